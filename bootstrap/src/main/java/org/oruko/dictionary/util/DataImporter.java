@@ -1,6 +1,7 @@
 package org.oruko.dictionary.util;
 
 import org.oruko.dictionary.model.GeoLocation;
+import org.oruko.dictionary.model.GeoLocationRegistry;
 import org.oruko.dictionary.model.WordEntry;
 import org.oruko.dictionary.model.State;
 import org.oruko.dictionary.model.Etymology;
@@ -29,6 +30,9 @@ public class DataImporter {
     @Autowired
     private GeoLocationRepository geoLocationRepository;
 
+    @Autowired
+    private GeoLocationRegistry geoLocationRegistry;
+
     @Autowired
     private WordEntryRepository wordEntryRepository;
 
@@ -38,6 +42,7 @@ public class DataImporter {
 
         if (geoLocationRepository.findAll().size() == 0) {
             initGeoLocation();
+            geoLocationRegistry.reload();
         }
         /**
          * Only initialize the database only when in dev
@@ -2,6 +2,7 @@ package org.oruko.dictionary.elasticsearch;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import org.elasticsearch.action.admin.indices.create.CreateIndexResponse;
 import org.elasticsearch.action.bulk.BulkRequestBuilder;
 import org.elasticsearch.action.bulk.BulkResponse;
@@ -9,16 +10,27 @@ import org.elasticsearch.action.count.CountResponse;
 import org.elasticsearch.action.delete.DeleteRequestBuilder;
 import org.elasticsearch.action.delete.DeleteResponse;
 import org.elasticsearch.action.index.IndexRequestBuilder;
+import org.elasticsearch.action.search.SearchRequestBuilder;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.client.Client;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.unit.Fuzziness;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.index.query.BoolFilterBuilder;
+import org.elasticsearch.index.query.FilterBuilder;
 import org.elasticsearch.index.query.FilterBuilders;
 import org.elasticsearch.index.query.MultiMatchQueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.node.Node;
 import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.sort.SortOrder;
 import org.oruko.dictionary.model.WordEntry;
+import org.oruko.dictionary.model.WordFolding;
+import org.oruko.dictionary.model.YorubaAlphabet;
 import org.oruko.dictionary.search.api.IndexOperationStatus;
+import org.oruko.dictionary.search.api.SearchCascade;
 import org.oruko.dictionary.search.api.SearchService;
+import org.oruko.dictionary.search.api.SearchTier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -31,11 +43,10 @@ import sun.reflect.generics.reflectiveObjects.NotImplementedException;
 import javax.annotation.PostConstruct;
 import java.io.IOException;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -49,13 +60,18 @@ import static org.elasticsearch.index.query.QueryBuilders.matchAllQuery;
 @Service
 public class ElasticSearchService implements SearchService {
 
+    private static final int SCROLL_BATCH_SIZE = 500;
+    private static final TimeValue SCROLL_KEEP_ALIVE = TimeValue.timeValueMinutes(1);
+
     private Logger logger = LoggerFactory.getLogger(ElasticSearchService.class);
 
     private Node node;
     private Client client;
     private ESConfig esConfig;
     private ResourceLoader resourceLoader;
+    private SearchCascade searchCascade;
     private ObjectMapper mapper = new ObjectMapper();
+    private ObjectReader wordEntryReader = mapper.readerFor(WordEntry.class);
 
     /**
      * Public constructor for {@link ElasticSearchService}
@@ -75,6 +91,11 @@ public class ElasticSearchService implements SearchService {
         this.resourceLoader = loader;
     }
 
+    @Autowired
+    public void setSearchCascade(SearchCascade searchCascade) {
+        this.searchCascade = searchCascade;
+    }
+
     ElasticSearchService() {
     }
 
@@ -94,23 +115,36 @@ public class ElasticSearchService implements SearchService {
 
         SearchHit[] hits = searchResponse.getHits().getHits();
         if (hits.length == 1) {
-            return sourceToWordEntry(hits[0].getSource());
+            return sourceToWordEntry(hits[0]);
         } else {
             return null;
         }
     }
 
-    private WordEntry sourceToWordEntry(Map<String, Object> source) {
-        String valueAsString = null;
+    /**
+     * Reads the entry straight from the source bytes of the hit, instead of from the map ES would parse
+     * them into, which then had to be written back to JSON to be read again
+     */
+    private WordEntry sourceToWordEntry(SearchHit hit) {
+        BytesReference source = hit.getSourceRef();
+        if (source == null) {
+            return null;
+        }
         try {
-            valueAsString = mapper.writeValueAsString(source);
-            return mapper.readValue(valueAsString, WordEntry.class);
+            return readWordEntry(wordEntryReader, source);
         } catch (IOException e) {
-            e.printStackTrace();
+            logger.error("Could not read the source of hit {}", hit.getId(), e);
             return null;
         }
     }
 
+    static WordEntry readWordEntry(ObjectReader reader, BytesReference source) throws IOException {
+        if (source.hasArray()) {
+            return reader.readValue(source.array(), source.arrayOffset(), source.length());
+        }
+        return reader.readValue(source.streamInput());
+    }
+
     /**
      * For searching the index for a name
      *
@@ -129,87 +163,67 @@ public class ElasticSearchService implements SearchService {
          * 5. Do a full text search against other variants. Irrespective of outcome, proceed to 6
          * 6. Do a full text search against meaning. Irrespective of outcome, proceed to 7
          * 7. Do a full text search against extendedMeaning
+         * 8. If nothing was found, suggest the words closest to the search term, i.e. "did you mean"
          */
 
-        final Set<WordEntry> result = new LinkedHashSet<>();
-
-        // 1. exact search
-        SearchResponse searchResponse = exactSearchByWord(searchTerm);
-        if (searchResponse.getHits().getHits().length >= 1) {
-            Stream.of(searchResponse.getHits().getHits()).forEach(hit -> {
-                result.add(sourceToWordEntry(hit.getSource()));
-            });
-
-            if (result.size() == 1) {
-                return result;
-            }
-        }
-
-        //2. Do a search with ascii-folding
-        searchResponse = exactSearchByNameAsciiFolded(searchTerm);
-        if (searchResponse.getHits().getHits().length >= 1) {
-            Stream.of(searchResponse.getHits().getHits()).forEach(hit -> {
-                result.add(sourceToWordEntry(hit.getSource()));
-            });
-
-            if (result.size() == 1) {
-                return result;
-            }
-        }
-
-
-        //3. Do a prefix search
-        searchResponse = prefixFilterSearch(searchTerm, false);
-        if (searchResponse.getHits().getHits().length >= 1) {
-            Stream.of(searchResponse.getHits().getHits()).forEach(hit -> {
-                result.add(sourceToWordEntry(hit.getSource()));
-            });
-
-            return result;
-        }
-
-        /**
-         * Does a full text search on
-         * name,
-         * meaning,
-         * extendedMeaning
-         * variants
-         * TODO Should revisit
-         */
-        MultiMatchQueryBuilder searchSpec = QueryBuilders.multiMatchQuery(searchTerm,
-                "name.autocomplete",
-                "meaning",
-                "extendedMeaning",
-                "variants");
-
-        SearchResponse tempSearchAll = client.prepareSearch(esConfig.getIndexName())
-                .setQuery(searchSpec)
-                .setSize(20)
-                .execute()
-                .actionGet();
-
-        Stream.of(tempSearchAll.getHits().getHits()).forEach(hit -> {
-            result.add(sourceToWordEntry(hit.getSource()));
-        });
-
-        return result;
+        // the steps are run in order by the SearchCascade, which stops at the first decisive one
+        return searchCascade.search(Arrays.asList(
+                // 1. exact search
+                SearchTier.of(() -> toWordEntries(exactSearchByWord(searchTerm)),
+                              (found, result) -> result.size() == 1),
+                //2. Do a search with ascii-folding
+                SearchTier.of(() -> toWordEntries(exactSearchByFoldedWord(searchTerm)),
+                              (found, result) -> result.size() == 1),
+                //3. Do a prefix search
+                SearchTier.untilFound(() -> toWordEntries(prefixFilterSearch(searchTerm))),
+                //4. Do a full text search
+                SearchTier.always(() -> toWordEntries(fullTextSearch(searchTerm))),
+                //5. Suggest the closest words
+                SearchTier.fallback(() -> toWordEntries(fuzzySearchByFoldedWord(searchTerm)))));
     }
 
 
     @Override
     public Set<WordEntry> listByAlphabet(String alphabetQuery) {
         final Set<WordEntry> result = new LinkedHashSet<>();
+        streamByAlphabet(alphabetQuery, result::add);
+        return result;
+    }
 
-        final SearchResponse searchResponse = prefixFilterSearch(alphabetQuery, true);
-        final SearchHit[] hits = searchResponse.getHits().getHits();
-        final List<SearchHit> searchHits = Arrays.asList(hits);
-
-        Collections.reverse(searchHits);
-        searchHits.forEach(hit -> {
-            result.add(sourceToWordEntry(hit.getSource()));
-        });
+    @Override
+    public List<WordEntry> listByAlphabet(String alphabetQuery, int page, int count) {
+        SearchResponse searchResponse = alphabetSearch(alphabetQuery)
+                .setFrom(Math.max(page - 1, 0) * count)
+                .setSize(count)
+                .execute()
+                .actionGet();
+        return toWordEntries(searchResponse);
+    }
 
-        return result;
+    /**
+     * Scrolls through the names, a batch of hits at a time, instead of counting them and then asking for
+     * all of them in a single response
+     */
+    @Override
+    public void streamByAlphabet(String alphabetQuery, Consumer<WordEntry> consumer) {
+        SearchResponse searchResponse = alphabetSearch(alphabetQuery)
+                .setScroll(SCROLL_KEEP_ALIVE)
+                .setSize(SCROLL_BATCH_SIZE)
+                .execute()
+                .actionGet();
+        try {
+            while (searchResponse.getHits().getHits().length > 0) {
+                for (SearchHit hit : searchResponse.getHits().getHits()) {
+                    consumer.accept(sourceToWordEntry(hit));
+                }
+                searchResponse = client.prepareSearchScroll(searchResponse.getScrollId())
+                                       .setScroll(SCROLL_KEEP_ALIVE)
+                                       .execute()
+                                       .actionGet();
+            }
+        } finally {
+            client.prepareClearScroll().addScrollId(searchResponse.getScrollId()).execute().actionGet();
+        }
     }
 
     /**
@@ -231,6 +245,15 @@ public class ElasticSearchService implements SearchService {
         return result;
     }
 
+    @Override
+    public Integer countByAlphabet(String alphabetQuery) {
+        CountResponse response = client.prepareCount(esConfig.getIndexName())
+                .setQuery(QueryBuilders.filteredQuery(matchAllQuery(), alphabetFilter(alphabetQuery)))
+                .execute()
+                .actionGet();
+        return Math.toIntExact(response.getCount());
+    }
+
     @Override
     public Integer getSearchableNames() {
         try {
@@ -359,6 +382,34 @@ public class ElasticSearchService implements SearchService {
 
     //=====================================Helpers=========================================================//
 
+    private List<WordEntry> toWordEntries(SearchResponse searchResponse) {
+        return Stream.of(searchResponse.getHits().getHits())
+                     .map(hit -> sourceToWordEntry(hit))
+                     .collect(Collectors.toList());
+    }
+
+    /**
+     * Does a full text search on
+     * name,
+     * meaning,
+     * extendedMeaning
+     * variants
+     * TODO Should revisit
+     */
+    private SearchResponse fullTextSearch(String searchTerm) {
+        MultiMatchQueryBuilder searchSpec = QueryBuilders.multiMatchQuery(searchTerm,
+                "name.autocomplete",
+                "meaning",
+                "extendedMeaning",
+                "variants");
+
+        return client.prepareSearch(esConfig.getIndexName())
+                .setQuery(searchSpec)
+                .setSize(20)
+                .execute()
+                .actionGet();
+    }
+
     private DeleteResponse deleteName(String name) {
         return client
                 .prepareDelete(esConfig.getIndexName(), esConfig.getDocumentType(), name.toLowerCase())
@@ -374,25 +425,50 @@ public class ElasticSearchService implements SearchService {
                 .actionGet();
     }
 
-    private SearchResponse prefixFilterSearch(String nameQuery, boolean getAll) {
-        int resultSet = 20;
+    private SearchResponse prefixFilterSearch(String nameQuery) {
+        return client.prepareSearch(esConfig.getIndexName())
+                .setPostFilter(FilterBuilders.prefixFilter("name", nameQuery.toLowerCase()))
+                .setSize(20)
+                .execute()
+                .actionGet();
+    }
+
+    // names starting with the alphabet in alphabetical order; _uid orders names that fold the same
+    private SearchRequestBuilder alphabetSearch(String alphabetQuery) {
+        return client.prepareSearch(esConfig.getIndexName())
+                .setPostFilter(alphabetFilter(alphabetQuery))
+                .addSort("foldedWord", SortOrder.ASC)
+                .addSort("_uid", SortOrder.ASC);
+    }
 
-        if (getAll) {
-            CountResponse countResponse = client.prepareCount(esConfig.getIndexName()).execute().actionGet();
-            resultSet = (int) countResponse.getCount();
+    // prefix match on the alphabet, leaving out what is listed under a longer letter when it is a letter (gb for g)
+    private FilterBuilder alphabetFilter(String alphabetQuery) {
+        String prefix = alphabetQuery.toLowerCase();
+        String letter = YorubaAlphabet.asLetter(alphabetQuery);
+        if (letter == null) {
+            return FilterBuilders.prefixFilter("name", prefix);
         }
+        BoolFilterBuilder filter = FilterBuilders.boolFilter().must(FilterBuilders.prefixFilter("name", letter));
+        YorubaAlphabet.longerLetters(letter)
+                      .forEach(longer -> filter.mustNot(FilterBuilders.prefixFilter("name", longer)));
+        return filter;
+    }
 
+    // term lookup against the folded word maintained on WordEntry, so no analysis happens at query time
+    private SearchResponse exactSearchByFoldedWord(String nameQuery) {
         return client.prepareSearch(esConfig.getIndexName())
-                .setPostFilter(FilterBuilders.prefixFilter("name", nameQuery.toLowerCase()))
-                .setSize(resultSet)
+                .setPostFilter(FilterBuilders.termFilter("foldedWord", WordFolding.fold(nameQuery)))
+                .setSize(20)
                 .execute()
                 .actionGet();
     }
 
-    private SearchResponse exactSearchByNameAsciiFolded(String nameQuery) {
+    // edit distance lookup against the folded word; AUTO allows one edit for short words and two for longer ones
+    private SearchResponse fuzzySearchByFoldedWord(String nameQuery) {
         return client.prepareSearch(esConfig.getIndexName())
-                .setQuery(QueryBuilders.matchQuery("name.asciifolded", nameQuery.toLowerCase()))
-                .setSize(20)
+                .setQuery(QueryBuilders.fuzzyQuery("foldedWord", WordFolding.fold(nameQuery))
+                                       .fuzziness(Fuzziness.AUTO))
+                .setSize(10)
                 .execute()
                 .actionGet();
     }
@@ -452,4 +528,10 @@ public class ElasticSearchService implements SearchService {
     public IndexOperationStatus bulkRemoveFromIndex(List<WordEntry> nameEntries) {
         throw new NotImplementedException();
     }
+
+    @Override
+    public IndexOperationStatus bulkRemoveWordsFromIndex(List<String> words) {
+        // documents are deleted by word, whatever the state of their entry
+        return bulkRemoveByNameFromIndex(words);
+    }
 }
@@ -0,0 +1,86 @@
+package org.oruko.dictionary.elasticsearch;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.search.lookup.SourceLookup;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.oruko.dictionary.model.Definition;
+import org.oruko.dictionary.model.WordEntry;
+import org.oruko.dictionary.model.WordVariant;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares reading a {@link WordEntry} straight from the source bytes of a hit with the previous round trip
+ * through the source map, i.e. parse to map, write the map to JSON and read the JSON back.
+ *
+ * Not run with the tests; run with the main method, or through the JMH runner, with -prof gc to compare
+ * allocations.
+ *
+ * @author Dadepo Aderemi.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SourceMappingBenchmark {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final ObjectReader reader = mapper.readerFor(WordEntry.class);
+    private BytesReference source;
+
+    @Setup
+    public void setUp() throws IOException {
+        WordEntry entry = new WordEntry("Bọ́lánlé");
+        entry.setMeaning("One who finds wealth at home");
+        entry.setMorphology("bá-ọlá-ní-ilé");
+        entry.setSyllables("bọ́-lán-lé");
+        entry.setTags("female,wealth");
+
+        WordVariant variant = new WordVariant();
+        variant.setWord("Ọlánlé");
+        entry.setVariants(Collections.singletonList(variant));
+
+        Definition definition = new Definition();
+        definition.setContent("Ẹni tí ó bá ọlá nílé");
+        definition.setEnglishTranslation("One who meets wealth at home");
+        entry.setDefinitions(Arrays.asList(definition, definition));
+
+        source = new BytesArray(mapper.writeValueAsBytes(entry));
+    }
+
+    @Benchmark
+    public WordEntry roundTripThroughSourceMap() throws IOException {
+        Map<String, Object> sourceAsMap = SourceLookup.sourceAsMap(source);
+        return mapper.readValue(mapper.writeValueAsString(sourceAsMap), WordEntry.class);
+    }
+
+    @Benchmark
+    public WordEntry readFromSourceBytes() throws IOException {
+        return ElasticSearchService.readWordEntry(reader, source);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SourceMappingBenchmark.class.getSimpleName()).build()).run();
+    }
+}
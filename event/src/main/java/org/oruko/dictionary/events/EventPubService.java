@@ -72,8 +72,11 @@ public class EventPubService {
         }
 
         for(Class aClass: classes) {
-            logger.info("Registered {} as an event handler", aClass.getName());
-            this.eventBus.register(appContext.getBean(aClass));
+            // handlers guarded by a condition might not have been created
+            for (Object handler : appContext.getBeansOfType(aClass).values()) {
+                logger.info("Registered {} as an event handler", aClass.getName());
+                this.eventBus.register(handler);
+            }
         }
     }
 }
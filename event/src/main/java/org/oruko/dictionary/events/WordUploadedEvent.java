@@ -5,10 +5,23 @@ package org.oruko.dictionary.events;
  * Created by Dadepo Aderemi.
  */
 public class WordUploadedEvent {
+    private String jobId;
     private int totalNumberOfNames;
     private int totalUploaded;
     private boolean isUploading = false;
 
+    /**
+     * Returns the id of the import job the names are uploaded by
+     * @return the job id
+     */
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+
     public boolean isUploading() {
         return isUploading;
     }
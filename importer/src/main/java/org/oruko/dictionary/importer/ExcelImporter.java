@@ -1,15 +1,8 @@
 package org.oruko.dictionary.importer;
 
-import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.xssf.usermodel.XSSFSheet;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.oruko.dictionary.events.EventPubService;
-import org.oruko.dictionary.events.WordUploadedEvent;
-import org.oruko.dictionary.model.GeoLocation;
+import org.oruko.dictionary.model.GeoLocationRegistry;
 import org.oruko.dictionary.model.WordEntry;
-import org.oruko.dictionary.model.repository.GeoLocationRepository;
 import org.oruko.dictionary.model.repository.WordEntryRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -18,8 +11,10 @@ import org.springframework.stereotype.Component;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
 
 /**
  * Importer for importing names from an excel sheet into
@@ -33,10 +28,11 @@ public class ExcelImporter implements ImporterInterface {
     private Logger logger = LoggerFactory.getLogger(ExcelImporter.class);
 
     private WordEntryRepository wordEntryRepository;
-    private GeoLocationRepository geoLocationRepository;
+    private GeoLocationRegistry geoLocationRegistry;
     private ImporterValidator validator;
     private EventPubService eventPubService;
     private ColumnOrder columnOrder;
+    private ImportCheckpoints checkpoints;
 
 
     @Autowired
@@ -50,9 +46,8 @@ public class ExcelImporter implements ImporterInterface {
     }
 
     @Autowired
-    public void setGeoLocationRepository(
-            GeoLocationRepository geoLocationRepository) {
-        this.geoLocationRepository = geoLocationRepository;
+    public void setGeoLocationRegistry(GeoLocationRegistry geoLocationRegistry) {
+        this.geoLocationRegistry = geoLocationRegistry;
     }
 
     @Autowired
@@ -64,193 +59,194 @@ public class ExcelImporter implements ImporterInterface {
     public void setColumnOrder(ColumnOrder columnOrder) {
         this.columnOrder = columnOrder;
     }
+
+    @Autowired
+    public void setCheckpoints(ImportCheckpoints checkpoints) {
+        this.checkpoints = checkpoints;
+    }
     
 
+    /**
+     * Imports the words of all the sheets of the file, one sheet after the other. See {@link ImportJobs} for
+     * importing the sheets in parallel
+     *
+     * @param fileSource the xlsx file
+     * @return the {@link ImportStatus}
+     */
     @Override
     public ImportStatus importFile(File fileSource) {
-        ImportStatus status = new ImportStatus();
-        WordUploadedEvent wordUploadedEvent = new WordUploadedEvent();
-
-        XSSFSheet sheet;
+        ImportJob job;
         try {
-            sheet = getSheet(fileSource, 0);
+            job = new ImportJob(countSheets(fileSource), ImportCheckpoints.hashOf(fileSource));
         } catch (IOException e) {
             logger.error("Failed to import file {} with error {}", fileSource.getAbsoluteFile(), e.getMessage());
-            status.setErrorMessages(e.getMessage());
-            return status;
-        } catch (InvalidFormatException e) {
-            logger.error("Failed to import file {} with error {}", fileSource.getAbsoluteFile(), e.getMessage());
+            ImportStatus status = new ImportStatus();
             status.setErrorMessages(e.getMessage());
             return status;
         }
 
-        int totalNumberOfNames = sheet.getPhysicalNumberOfRows() - 1; // removes the header row
-        wordUploadedEvent.setTotalNumberOfNames(totalNumberOfNames);
-        wordUploadedEvent.isUploading(true);
-
-        if (validator.isColumnNameInOrder(sheet)) {
-            Iterator<Row> rowIterator = sheet.rowIterator();
-
-            while (rowIterator.hasNext()) {
-                boolean fieldIsEmpty = true;
-                String name = "";
-                String pronunciation = "";
-                String ipaNotation = "";
-                String variant = "";
-                String syllable = "";
-                String meaning = "";
-                String extendedMeaning = "";
-                String morphology = "";
-                String etymology = "";
-                String geoLocation = "";
-                String media = "";
-
-                Row row = rowIterator.next();
-                if (row.getRowNum() == 0) {
-                    continue;
-                }
+        // the sheets are imported one after the other, so they take turns with the same two threads
+        ExecutorService stages = Executors.newFixedThreadPool(2);
+        try {
+            for (int sheetIndex = 0; sheetIndex < job.getNumberOfSheets(); sheetIndex++) {
+                importSheet(fileSource, sheetIndex, job, stages);
+            }
+        } finally {
+            stages.shutdownNow();
+        }
+        return job.getStatus();
+    }
 
-                WordEntry wordEntry = new WordEntry();
-
-                Cell nameCell = row.getCell(columnOrder.getColumnOrder().inverse().get("name"));
-                if (nameCell != null) {
-                    name = nameCell.toString();
-                    if (!name.isEmpty()) {
-                        fieldIsEmpty = false;
-                        wordEntry.setWord(name.trim());
-                    } else {
-                        // if name is empty then the row is nullified, so skip
-                        continue;
-                    }
+    @Override
+    public int countSheets(File fileSource) throws IOException {
+        try (XlsxReader reader = new XlsxReader(fileSource)) {
+            return reader.getSheetCount();
+        }
+    }
 
-                }
-                Cell pronunciationCell = row.getCell(columnOrder.getColumnOrder().inverse().get("pronunciation"));
-                if (pronunciationCell != null) {
-                    pronunciation = pronunciationCell.toString();
-                    if (!pronunciation.isEmpty()) {
-                        fieldIsEmpty = false;
-                        wordEntry.setPronunciation(pronunciation.trim());
-                    }
-                }
+    /**
+     * Imports the words of a sheet of the file. The rows are read as the sheet is parsed, see {@link XlsxReader},
+     * and handed to a {@link WordImportPipeline}, which checks and saves them a chunk at a time while the rest of
+     * the sheet is being read. Each sheet is read with a reader of its own, so several sheets can be imported at
+     * the same time.
+     *
+     * When the job has the hash of the file, the import keeps a checkpoint of the sheet, see
+     * {@link ImportCheckpoints}. If an earlier import of the same file was interrupted, the rows up to its
+     * checkpoint are passed over without being turned into words or checked against the dictionary again
+     *
+     * @param fileSource the xlsx file
+     * @param sheetIndex the index of the sheet
+     * @param job the job the sheet belongs to
+     * @param stages the executor the words are checked and saved on
+     */
+    @Override
+    public void importSheet(File fileSource, int sheetIndex, ImportJob job, ExecutorService stages) {
+        ImportStatus status = job.getStatus();
+        String fileHash = job.getFileHash();
+        job.started();
+
+        try (XlsxReader reader = new XlsxReader(fileSource)) {
+            job.addNumberOfNames(Math.max(reader.countRows(sheetIndex) - 1, 0)); // removes the header row
+            int resumeAfter = fileHash == null ? 0 : checkpoints.lastCommittedRow(fileHash, sheetIndex);
+            if (resumeAfter > 0) {
+                logger.info("Resuming import of sheet {} of file {} after row {}", sheetIndex, fileHash, resumeAfter);
+                job.addResumed(resumeAfter);
+            }
 
-                Cell ipaCell = row.getCell(columnOrder.getColumnOrder().inverse().get("ipa_notation"));
-                if (ipaCell != null) {
-                    ipaNotation = ipaCell.toString();
-                    if (!ipaNotation.isEmpty()) {
-                        fieldIsEmpty = false;
-                        wordEntry.setIpaNotation(ipaNotation.trim());
-                    }
+            AtomicInteger lastCommittedRow = new AtomicInteger(resumeAfter);
+            IntConsumer onCommitted = row -> {
+                lastCommittedRow.set(row);
+                if (fileHash != null) {
+                    checkpoints.committed(fileHash, sheetIndex, row, job.getId());
                 }
-
-                Cell syllableCell = row.getCell(columnOrder.getColumnOrder().inverse().get("syllable"));
-                if (syllableCell != null) {
-                    syllable = syllableCell.toString();
-                    if (!syllable.isEmpty()) {
-                        fieldIsEmpty = false;
-                        wordEntry.setSyllables(syllable.trim());
+            };
+            WordImportPipeline pipeline = new WordImportPipeline(wordEntryRepository, eventPubService, job, stages,
+                                                                 onCommitted);
+            boolean completed = false;
+            try {
+                reader.readSheet(sheetIndex, row -> {
+                    if (row.getRowNum() == 0) {
+                        if (validator.isColumnNameInOrder(row)) {
+                            return true;
+                        }
+                        String message = "Columns of sheet {SHEET} not in order. Should be in the following order "
+                                + "{ORDER}";
+                        status.setErrorMessages(message.replace("{SHEET}", String.valueOf(sheetIndex + 1))
+                                                       .replace("{ORDER}", columnOrder.getColumnOrderAsString()));
+                        return false;
                     }
-                }
-
-                Cell meaningCell = row.getCell(columnOrder.getColumnOrder().inverse().get("meaning"));
-                if (meaningCell != null) {
-                    meaning = meaningCell.toString();
-                    if (!meaning.isEmpty()) {
-                        fieldIsEmpty = false;
-                        wordEntry.setMeaning(meaning.trim());
+                    if (row.getRowNum() <= resumeAfter) {
+                        return true;
                     }
-
+                    WordEntry wordEntry = toWordEntry(row);
+                    // stops reading the sheet once the pipeline can no longer save what is read
+                    return wordEntry == null || pipeline.add(wordEntry, row.getRowNum());
+                });
+                completed = true;
+            } finally {
+                if (!pipeline.finish()) {
+                    completed = false;
+                    status.setErrorMessages(stoppedMessage(sheetIndex, lastCommittedRow.get()));
                 }
+            }
+            if (completed && fileHash != null) {
+                checkpoints.completed(fileHash, sheetIndex);
+            }
+        } catch (IOException e) {
+            logger.error("Failed to import sheet {} of file {} with error {}", sheetIndex,
+                         fileSource.getAbsoluteFile(), e.getMessage());
+            status.setErrorMessages(e.getMessage());
+        } finally {
+            if (job.sheetDone()) {
+                // publishes event that signifies end of uploading, once all the sheets are imported
+                eventPubService.publish(job.progressEvent());
+            }
+        }
+    }
 
-                Cell morphologyCell = row.getCell(columnOrder.getColumnOrder().inverse().get("morphology"));
-                if (morphologyCell != null) {
-                    morphology = morphologyCell.toString();
-                    if (!morphology.isEmpty()) {
-                        fieldIsEmpty = false;
-                        wordEntry.setMorphology(morphology.trim());
-                    }
-                }
 
-                Cell etymologyCell = row.getCell(columnOrder.getColumnOrder().inverse().get("etymology"));
-                if (etymologyCell != null) {
-                    etymology = etymologyCell.toString();
-                    if (!etymology.isEmpty()) {
-                        // TODO define format for etymology in spreadsheet
-                        fieldIsEmpty = false;
-                        wordEntry.setEtymology(null);
-                    }
-                }
 
-                Cell geoLocationCell = row.getCell(columnOrder.getColumnOrder().inverse().get("geo_location"));
-                if (geoLocationCell != null) {
-                    geoLocation = geoLocationCell.toString();
-                    if (!geoLocation.isEmpty()) {
-                        fieldIsEmpty = false;
-                        wordEntry.setGeoLocation(getGeoLocation(geoLocation));
-                    }
-                }
+    // ==================================================== Helpers ====================================================
 
+    // rows are numbered from 0, the header, in the sheet read and from 1 in the spreadsheet the user sees
+    private static String stoppedMessage(int sheetIndex, int lastCommittedRow) {
+        String saved = lastCommittedRow > 0
+                ? "The names up to row " + (lastCommittedRow + 1) + " were saved."
+                : "None of its names were saved.";
+        return "Import of sheet " + (sheetIndex + 1) + " stopped before all its names were saved. " + saved
+                + " Upload the file again to import the rest of the sheet";
+    }
 
-                Cell mediaCell = row.getCell(columnOrder.getColumnOrder().inverse().get("media"));
-                if (mediaCell != null) {
-                    media = mediaCell.toString();
-                    if (!media.isEmpty()) {
-                        fieldIsEmpty = false;
-                        wordEntry.setMedia(media.trim());
-                    }
-                }
+    // returns null if the row has no name, in which case the row is nullified
+    private WordEntry toWordEntry(SheetRow row) {
+        String name = cell(row, "name");
+        if (name.isEmpty()) {
+            return null;
+        }
 
-                if (fieldIsEmpty) {
-                    continue;
-                }
+        WordEntry wordEntry = new WordEntry();
+        wordEntry.setWord(name);
 
-                try {
-                    if (alreadyExists(name)) {
-                        logger.info("Name {} already exists in the index. Skipping...", name);
-                    } else {
-                        wordEntryRepository.save(wordEntry);
-                        status.incrementNumberOfNames();
-                    }
-                } catch (Exception e) {
-                    logger.debug("Exception while uploading name entry with name {}", name, e);
-                }
+        String pronunciation = cell(row, "pronunciation");
+        if (!pronunciation.isEmpty()) {
+            wordEntry.setPronunciation(pronunciation);
+        }
 
-                wordUploadedEvent.setTotalUploaded(status.getNumberOfNamesUpload());
-                eventPubService.publish(wordUploadedEvent);
-            }
-        } else {
-            status.setErrorMessages("Columns not in order. Should be in the following order {ORDER}"
-                                            .replace("{ORDER}", columnOrder.getColumnOrderAsString()));
+        String ipaNotation = cell(row, "ipa_notation");
+        if (!ipaNotation.isEmpty()) {
+            wordEntry.setIpaNotation(ipaNotation);
         }
 
-        // publishes event that signifies end of uploading
-        wordUploadedEvent.isUploading(false);
-        eventPubService.publish(wordUploadedEvent);
-        return status;
-    }
+        String syllable = cell(row, "syllable");
+        if (!syllable.isEmpty()) {
+            wordEntry.setSyllables(syllable);
+        }
 
+        String meaning = cell(row, "meaning");
+        if (!meaning.isEmpty()) {
+            wordEntry.setMeaning(meaning);
+        }
 
+        String morphology = cell(row, "morphology");
+        if (!morphology.isEmpty()) {
+            wordEntry.setMorphology(morphology);
+        }
 
-    // ==================================================== Helpers ====================================================
+        // TODO define format for etymology in spreadsheet
 
-    private ArrayList<GeoLocation> getGeoLocation(String locations) {
-        final String[] locationArrays = locations.split(",");
-        final ArrayList<GeoLocation> locationList = new ArrayList<>();
-        for (String aLocation:locationArrays) {
-            locationList.add(geoLocationRepository.findByPlace(aLocation));
+        String geoLocation = cell(row, "geo_location");
+        if (!geoLocation.isEmpty()) {
+            wordEntry.setGeoLocation(geoLocationRegistry.findByPlaces(geoLocation));
         }
-        return locationList;
-    }
 
-    private XSSFSheet getSheet(File file, int sheetIndex) throws IOException, InvalidFormatException {
-        XSSFWorkbook wb = new XSSFWorkbook(file);
-        return wb.getSheetAt(sheetIndex);
+        String media = cell(row, "media");
+        if (!media.isEmpty()) {
+            wordEntry.setMedia(media);
+        }
+        return wordEntry;
     }
 
-    private boolean alreadyExists(String word) {
-        WordEntry entry = wordEntryRepository.findByWord(word);
-        if (entry == null) {
-            return false;
-        }
-        return true;
+    private String cell(SheetRow row, String column) {
+        return row.getCell(columnOrder.getColumnOrder().inverse().get(column)).trim();
     }
 }
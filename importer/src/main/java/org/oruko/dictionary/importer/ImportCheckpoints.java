@@ -0,0 +1,109 @@
+package org.oruko.dictionary.importer;
+
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import org.oruko.dictionary.model.ImportCheckpoint;
+import org.oruko.dictionary.model.repository.ImportCheckpointRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Keeps the {@link ImportCheckpoint}s of the sheets being imported. The checkpoint of a sheet is moved after every
+ * chunk of rows committed, and removed once the sheet is imported to the end, so only the imports that were
+ * interrupted, say by a restart, keep a checkpoint. When the same file is uploaded again, its sheets are imported
+ * from after their checkpoint.
+ *
+ * A failure to keep a checkpoint does not stop the import; the rows after the previous checkpoint are only checked
+ * against the dictionary again when the import is resumed.
+ *
+ * @author Dadepo Aderemi.
+ */
+@Component
+public class ImportCheckpoints {
+
+    private Logger logger = LoggerFactory.getLogger(ImportCheckpoints.class);
+
+    private final ImportCheckpointRepository checkpointRepository;
+
+    /**
+     * Public constructor for {@link ImportCheckpoints}
+     *
+     * @param checkpointRepository the repository the checkpoints are kept in
+     */
+    @Autowired
+    public ImportCheckpoints(ImportCheckpointRepository checkpointRepository) {
+        this.checkpointRepository = checkpointRepository;
+    }
+
+    /**
+     * Computes the hash of the content of a file, by which its checkpoints are kept
+     *
+     * @param file the file
+     * @return the SHA-256 hash of the file, in hex
+     * @throws IOException if the file can not be read
+     */
+    public static String hashOf(File file) throws IOException {
+        return Files.hash(file, Hashing.sha256()).toString();
+    }
+
+    /**
+     * Returns the row the import of a sheet is to be resumed after
+     *
+     * @param fileHash the hash of the file
+     * @param sheetIndex the index of the sheet
+     * @return the last row committed, 0 if the import of the sheet is not to be resumed
+     */
+    public int lastCommittedRow(String fileHash, int sheetIndex) {
+        try {
+            ImportCheckpoint checkpoint = checkpointRepository.findByFileHashAndSheetIndex(fileHash, sheetIndex);
+            return checkpoint == null ? 0 : checkpoint.getLastCommittedRow();
+        } catch (RuntimeException e) {
+            logger.warn("Failed to look up the checkpoint of sheet {} of file {}", sheetIndex, fileHash, e);
+            return 0;
+        }
+    }
+
+    /**
+     * Moves the checkpoint of a sheet to the last row committed
+     *
+     * @param fileHash the hash of the file
+     * @param sheetIndex the index of the sheet
+     * @param lastCommittedRow the last row committed
+     * @param jobId the id of the job importing the sheet
+     */
+    public void committed(String fileHash, int sheetIndex, int lastCommittedRow, String jobId) {
+        try {
+            ImportCheckpoint checkpoint = checkpointRepository.findByFileHashAndSheetIndex(fileHash, sheetIndex);
+            if (checkpoint == null) {
+                checkpoint = new ImportCheckpoint(fileHash, sheetIndex);
+            }
+            checkpoint.committed(lastCommittedRow, jobId);
+            checkpointRepository.save(checkpoint);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to keep the checkpoint of sheet {} of file {} at row {}", sheetIndex, fileHash,
+                        lastCommittedRow, e);
+        }
+    }
+
+    /**
+     * Removes the checkpoint of a sheet imported to the end
+     *
+     * @param fileHash the hash of the file
+     * @param sheetIndex the index of the sheet
+     */
+    public void completed(String fileHash, int sheetIndex) {
+        try {
+            ImportCheckpoint checkpoint = checkpointRepository.findByFileHashAndSheetIndex(fileHash, sheetIndex);
+            if (checkpoint != null) {
+                checkpointRepository.delete(checkpoint);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Failed to remove the checkpoint of sheet {} of file {}", sheetIndex, fileHash, e);
+        }
+    }
+}
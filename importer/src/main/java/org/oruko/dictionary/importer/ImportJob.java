@@ -0,0 +1,153 @@
+package org.oruko.dictionary.importer;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.oruko.dictionary.events.WordUploadedEvent;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An import of a file, run by {@link ImportJobs}. Each sheet of the file is imported as a task of its own, and the
+ * job keeps the progress of all of them, so the progress of one upload is not mixed up with that of another
+ *
+ * @author Dadepo Aderemi.
+ */
+public class ImportJob {
+
+    public enum State {
+        QUEUED, RUNNING, DONE
+    }
+
+    private final String id = UUID.randomUUID().toString();
+    private final int numberOfSheets;
+    private final String fileHash;
+    private final ImportStatus status = new ImportStatus();
+    private final AtomicInteger totalNumberOfNames = new AtomicInteger();
+    private final AtomicInteger totalResumed = new AtomicInteger();
+    private final AtomicInteger sheetsLeft;
+    private volatile State state = State.QUEUED;
+
+    /**
+     * Public constructor for {@link ImportJob}, for a job without checkpoints
+     *
+     * @param numberOfSheets the number of sheets to be imported
+     */
+    public ImportJob(int numberOfSheets) {
+        this(numberOfSheets, null);
+    }
+
+    /**
+     * Public constructor for {@link ImportJob}
+     *
+     * @param numberOfSheets the number of sheets to be imported
+     * @param fileHash the hash of the file the job imports, by which its {@link ImportCheckpoints} are kept. Null
+     * for a job without checkpoints
+     */
+    public ImportJob(int numberOfSheets, String fileHash) {
+        this.numberOfSheets = numberOfSheets;
+        this.fileHash = fileHash;
+        this.sheetsLeft = new AtomicInteger(numberOfSheets);
+        if (numberOfSheets == 0) {
+            state = State.DONE;
+        }
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public int getNumberOfSheets() {
+        return numberOfSheets;
+    }
+
+    /**
+     * Returns the number of names in the sheets counted so far. A sheet is counted when its import starts
+     * @return the number of names
+     */
+    public int getTotalNumberOfNames() {
+        return totalNumberOfNames.get();
+    }
+
+    public int getTotalUploaded() {
+        return status.getNumberOfNamesUpload();
+    }
+
+    /**
+     * Returns the number of rows skipped because an earlier, interrupted import of the same file committed them
+     * @return the number of rows
+     */
+    public int getTotalResumed() {
+        return totalResumed.get();
+    }
+
+    @JsonIgnore
+    public String getFileHash() {
+        return fileHash;
+    }
+
+    public List<String> getErrorMessages() {
+        return status.getErrorMessages();
+    }
+
+    public boolean isUploading() {
+        return state != State.DONE;
+    }
+
+    /**
+     * Returns the status the sheets of the job are imported into
+     * @return the {@link ImportStatus}
+     */
+    @JsonIgnore
+    public ImportStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * Returns the progress of the job as an event to be published. A new event each time, as the events are handled
+     * asynchronously
+     * @return the {@link WordUploadedEvent}
+     */
+    WordUploadedEvent progressEvent() {
+        WordUploadedEvent event = new WordUploadedEvent();
+        event.setJobId(id);
+        event.setTotalNumberOfNames(getTotalNumberOfNames());
+        event.setTotalUploaded(getTotalUploaded());
+        event.isUploading(isUploading());
+        return event;
+    }
+
+    /**
+     * Adds the names of a sheet to the total number of names
+     * @param numberOfNames the number of names in the sheet
+     */
+    void addNumberOfNames(int numberOfNames) {
+        totalNumberOfNames.addAndGet(numberOfNames);
+    }
+
+    void addResumed(int numberOfRows) {
+        totalResumed.addAndGet(numberOfRows);
+    }
+
+    void started() {
+        if (state == State.QUEUED) {
+            state = State.RUNNING;
+        }
+    }
+
+    /**
+     * Marks a sheet as imported
+     * @return true if it was the last sheet of the job
+     */
+    boolean sheetDone() {
+        if (sheetsLeft.decrementAndGet() == 0) {
+            state = State.DONE;
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,155 @@
+package org.oruko.dictionary.importer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the imports of uploaded files in the background. The sheets of every file are imported as tasks on a single
+ * pool of {@link #WORKERS} threads with a queue of {@link #QUEUE_CAPACITY} sheets, so the sheets of a file are
+ * imported in parallel and several uploads can go on at the same time, without the number of threads growing with
+ * the uploads. A file is refused when the queue has no room for all its sheets. The words of a sheet are checked and
+ * saved by a {@link WordImportPipeline} on a second pool, of two threads for each worker, so every sheet being
+ * imported has the threads its pipeline needs.
+ *
+ * Each import is an {@link ImportJob} with an id of its own, by which its progress can be looked up. The last
+ * {@link #FINISHED_JOBS_KEPT} finished jobs are kept for that purpose.
+ *
+ * @author Dadepo Aderemi.
+ */
+@Component
+public class ImportJobs {
+
+    static final int WORKERS = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+    static final int QUEUE_CAPACITY = 64;
+    static final int STAGE_THREADS = 2 * WORKERS;
+    static final int FINISHED_JOBS_KEPT = 20;
+
+    private Logger logger = LoggerFactory.getLogger(ImportJobs.class);
+
+    private final ImporterInterface importer;
+    private final ThreadPoolExecutor workers = new ThreadPoolExecutor(WORKERS, WORKERS, 0L, TimeUnit.MILLISECONDS,
+                                                                      new ArrayBlockingQueue<>(QUEUE_CAPACITY));
+    // a worker waits for the stages of its sheet to end before taking the next, so they never have to queue
+    private final ThreadPoolExecutor stages = new ThreadPoolExecutor(STAGE_THREADS, STAGE_THREADS, 0L,
+                                                                     TimeUnit.MILLISECONDS,
+                                                                     new ArrayBlockingQueue<>(STAGE_THREADS));
+    // in the order the jobs were submitted in
+    private final Map<String, ImportJob> jobs = new LinkedHashMap<>();
+
+    /**
+     * Public constructor for {@link ImportJobs}
+     *
+     * @param importer the importer the sheets are imported with
+     */
+    @Autowired
+    public ImportJobs(ImporterInterface importer) {
+        this.importer = importer;
+    }
+
+    /**
+     * Starts the import of a file. The file is deleted once all its sheets are imported. The job is given the hash
+     * of the file, so an earlier import of the same file that was interrupted is resumed, see
+     * {@link ImportCheckpoints}. A file that is being imported already is not imported a second time; the job
+     * importing it is returned instead
+     *
+     * @param file the file
+     * @return the {@link ImportJob} the progress of the import can be followed with
+     * @throws IOException if the file can not be read
+     * @throws RejectedExecutionException if too many sheets are waiting to be imported already
+     */
+    public ImportJob submit(File file) throws IOException {
+        int numberOfSheets = importer.countSheets(file);
+        return submit(new ImportJob(numberOfSheets, ImportCheckpoints.hashOf(file)), file);
+    }
+
+    /**
+     * Returns a job by its id
+     *
+     * @param id the id of the job
+     * @return the job, null if there is no such job
+     */
+    public synchronized ImportJob get(String id) {
+        return jobs.get(id);
+    }
+
+    /**
+     * Returns the jobs, finished or not, in the order they were submitted in
+     *
+     * @return the jobs
+     */
+    public synchronized List<ImportJob> getAll() {
+        return new ArrayList<>(jobs.values());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+        stages.shutdownNow();
+    }
+
+    //=====================================Helpers=========================================================//
+
+    private synchronized ImportJob submit(ImportJob job, File file) {
+        // the sheets of both would be checkpointed over each other
+        for (ImportJob running : jobs.values()) {
+            if (running.isUploading() && job.getFileHash().equals(running.getFileHash())) {
+                file.delete();
+                return running;
+            }
+        }
+        // only this method adds to the queue, so the room checked for can not be taken before the sheets are added
+        if (workers.getQueue().remainingCapacity() < job.getNumberOfSheets()) {
+            throw new RejectedExecutionException("Too many imports in progress");
+        }
+
+        removeFinishedJobs();
+        jobs.put(job.getId(), job);
+        if (job.getNumberOfSheets() == 0) {
+            file.delete();
+        }
+        for (int sheetIndex = 0; sheetIndex < job.getNumberOfSheets(); sheetIndex++) {
+            int sheet = sheetIndex;
+            workers.execute(() -> importSheet(file, sheet, job));
+        }
+        return job;
+    }
+
+    private void importSheet(File file, int sheetIndex, ImportJob job) {
+        try {
+            importer.importSheet(file, sheetIndex, job, stages);
+        } catch (RuntimeException e) {
+            logger.error("Failed to import sheet {} of job {}", sheetIndex, job.getId(), e);
+            job.getStatus().setErrorMessages(e.getMessage());
+        } finally {
+            if (!job.isUploading()) {
+                file.delete();
+            }
+        }
+    }
+
+    private void removeFinishedJobs() {
+        int finished = (int) jobs.values().stream().filter(job -> !job.isUploading()).count();
+        Iterator<ImportJob> iterator = jobs.values().iterator();
+        while (finished > FINISHED_JOBS_KEPT && iterator.hasNext()) {
+            if (!iterator.next().isUploading()) {
+                iterator.remove();
+                finished--;
+            }
+        }
+    }
+}
@@ -1,17 +1,20 @@
 package org.oruko.dictionary.importer;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * Class that returns the status of importing names provided in a spreadsheet
+ * Class that returns the status of importing names provided in a spreadsheet. The sheets of a spreadsheet can be
+ * imported at the same time, so the status can be updated from several threads
  *
  * @author Dadepo Aderemi.
  */
 public class ImportStatus {
 
-    private List<String> errorMessages = new ArrayList<>();
-    private int numberOfNamesUpload = 0;
+    private List<String> errorMessages = Collections.synchronizedList(new ArrayList<>());
+    private AtomicInteger numberOfNamesUpload = new AtomicInteger();
 
     /**
      * Use to check if any error was encountered during the upload operation
@@ -26,7 +29,9 @@ public class ImportStatus {
      * @return returns a list of error messages
      */
     public List<String> getErrorMessages() {
-        return errorMessages;
+        synchronized (errorMessages) {
+            return new ArrayList<>(errorMessages);
+        }
     }
 
     /**
@@ -41,7 +46,7 @@ public class ImportStatus {
      * Increments the number of names uploaded
      */
     public void incrementNumberOfNames () {
-        ++numberOfNamesUpload;
+        numberOfNamesUpload.incrementAndGet();
     }
 
     /**
@@ -49,6 +54,6 @@ public class ImportStatus {
      * @return number of names uploaded
      */
     public int getNumberOfNamesUpload() {
-        return numberOfNamesUpload;
+        return numberOfNamesUpload.get();
     }
 }
@@ -1,6 +1,8 @@
 package org.oruko.dictionary.importer;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
 
 /**
  * @author Dadepo Aderemi.
@@ -13,5 +15,24 @@ public interface ImporterInterface {
      */
     ImportStatus importFile(File source);
 
+    /**
+     * Counts the sheets of the source, which can be imported independently of each other
+     * @param source the file
+     * @return the number of sheets
+     * @throws IOException if the file can not be read
+     */
+    int countSheets(File source) throws IOException;
+
+    /**
+     * Imports a single sheet of the source into the given job. The sheet is marked as done in the job once it is
+     * imported, whether it succeeded or not
+     * @param source the file
+     * @param sheetIndex the index of the sheet, zero based
+     * @param job the {@link ImportJob} the sheet belongs to
+     * @param stages the executor shared by the imports that the words of the sheet are checked and saved on, which
+     * is to have two threads free for the sheet
+     */
+    void importSheet(File source, int sheetIndex, ImportJob job, ExecutorService stages);
+
     //TODO Add method to ImportInterface that returns the format the importer expects the columns to be
 }
@@ -6,7 +6,9 @@ import org.apache.poi.xssf.usermodel.XSSFSheet;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 
 /**
  * Validates imported file
@@ -29,16 +31,35 @@ public class ImporterValidator {
      * @return true or false if column is in order
      */
     public boolean isColumnNameInOrder(XSSFSheet sheet) {
-        boolean result = false;
-        int counter = 0;
+        List<String> columnNames = new ArrayList<>();
         XSSFRow row = sheet.getRow(0);
         Iterator<Cell> cellIterator = row.cellIterator();
         while (cellIterator.hasNext()) {
-            Cell cell = cellIterator.next();
-            if (cell.toString().isEmpty()) {
+            columnNames.add(cellIterator.next().toString());
+        }
+        return isColumnNameInOrder(columnNames);
+    }
+
+    /**
+     * Used to check if the column order is in the required order.
+     * @param header the first row of the spreadsheet uploaded, as read by {@link XlsxReader}
+     * @return true or false if column is in order
+     */
+    public boolean isColumnNameInOrder(SheetRow header) {
+        return isColumnNameInOrder(header.getValues());
+    }
+
+    //=====================================Helpers=========================================================//
+
+    private boolean isColumnNameInOrder(List<String> columnNames) {
+        boolean result = false;
+        int counter = 0;
+        for (String columnName : columnNames) {
+            if (columnName.isEmpty()) {
                 break;
             }
-            result = cell.toString().trim().equalsIgnoreCase(columnOrder.getColumnOrder().get(counter).trim());
+            String expected = columnOrder.getColumnOrder().get(counter);
+            result = expected != null && columnName.trim().equalsIgnoreCase(expected.trim());
             if (!result) {
                 break;
             }
@@ -0,0 +1,55 @@
+package org.oruko.dictionary.importer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedMap;
+
+/**
+ * A row of a sheet read by {@link XlsxReader}, holding the formatted values of the cells that have one
+ *
+ * @author Dadepo Aderemi.
+ */
+public class SheetRow {
+
+    private final int rowNum;
+    private final SortedMap<Integer, String> cells;
+
+    /**
+     * Public constructor for {@link SheetRow}
+     *
+     * @param rowNum the zero based number of the row
+     * @param cells the formatted values of the cells, by zero based column
+     */
+    public SheetRow(int rowNum, SortedMap<Integer, String> cells) {
+        this.rowNum = rowNum;
+        this.cells = Collections.unmodifiableSortedMap(cells);
+    }
+
+    public int getRowNum() {
+        return rowNum;
+    }
+
+    /**
+     * Returns the formatted value of a cell
+     *
+     * @param column the zero based column of the cell
+     * @return the value, empty if the cell has none
+     */
+    public String getCell(int column) {
+        return cells.getOrDefault(column, "");
+    }
+
+    /**
+     * Returns the formatted values of the cells that have one, in the order of their columns
+     *
+     * @return the values
+     */
+    public List<String> getValues() {
+        return new ArrayList<>(cells.values());
+    }
+
+    public boolean isEmpty() {
+        return cells.isEmpty();
+    }
+}
@@ -0,0 +1,290 @@
+package org.oruko.dictionary.importer;
+
+import org.oruko.dictionary.events.EventPubService;
+import org.oruko.dictionary.model.WordEntry;
+import org.oruko.dictionary.model.WordFolding;
+import org.oruko.dictionary.model.repository.WordEntryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+import java.util.stream.Collectors;
+
+/**
+ * Saves the {@link WordEntry}s parsed by an import in three stages, each in a thread of its own:
+ * <ul>
+ *     <li>the parse stage, run by the caller through {@link #add(WordEntry, int)}, collects the entries in chunks</li>
+ *     <li>the dedupe stage drops the entries already in the dictionary, checking a chunk with a single query, and
+ *     the entries repeated in the import</li>
+ *     <li>the write stage saves a chunk in a single transaction, the inserts being sent in JDBC batches</li>
+ * </ul>
+ * The dedupe and write stages are run on an executor shared by the imports, see {@link ImportJobs}, which is to have
+ * two threads free for every pipeline running. The stages are joined by bounded queues, so parsing is held back
+ * when the database falls behind instead of the parsed entries piling up. Progress is published at most every
+ * {@link #PROGRESS_INTERVAL_MILLIS} instead of for every entry.
+ *
+ * A stage waiting on a queue checks every {@link #WAIT_MILLIS} whether another stage has failed, so a stage dying
+ * does not leave the others blocked on a queue no one empties or fills. Once one has failed, the stages left
+ * save what was already checked and stop, and {@link #add(WordEntry, int)} tells the caller to stop parsing.
+ *
+ * Once a chunk is saved, the row of its last entry is handed to a listener, so the import can be resumed after it.
+ * The chunks are saved in the order they were added in, so every row up to that one has been dealt with. A chunk
+ * that could not be checked against the dictionary is not saved, and the listener is no longer told of the chunks
+ * after it, so a resumed import goes over its rows again.
+ *
+ * @author Dadepo Aderemi.
+ */
+class WordImportPipeline {
+
+    static final int CHUNK_SIZE = 500;
+    static final long PROGRESS_INTERVAL_MILLIS = 500;
+    static final long WAIT_MILLIS = 100;
+    private static final int QUEUE_CAPACITY = 4;
+
+    // mark the end of the entries and a chunk that could not be checked, told apart from the chunks by identity
+    private static final Chunk END = new Chunk(new ArrayList<>(0), 0);
+    private static final Chunk UNCHECKED = new Chunk(new ArrayList<>(0), 0);
+
+    private Logger logger = LoggerFactory.getLogger(WordImportPipeline.class);
+
+    private final WordEntryRepository wordEntryRepository;
+    private final EventPubService eventPubService;
+    private final ImportJob job;
+    private final IntConsumer onCommitted;
+
+    private final BlockingQueue<Chunk> parsed = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final BlockingQueue<Chunk> deduped = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final List<Future<?>> running = new ArrayList<>();
+    private volatile boolean failed;
+    private volatile boolean chunkSkipped;
+
+    private List<WordEntry> chunk = new ArrayList<>(CHUNK_SIZE);
+    private int lastRow;
+    private long lastProgressAt;
+
+    /**
+     * Starts the dedupe and write stages, and publishes the progress of the job
+     *
+     * @param wordEntryRepository the repository the entries are saved to
+     * @param eventPubService the service the progress is published through
+     * @param job the job the saved entries are counted in
+     * @param stages the executor the dedupe and write stages are run on
+     * @param onCommitted the listener told the row of the last entry of every chunk saved
+     */
+    WordImportPipeline(WordEntryRepository wordEntryRepository, EventPubService eventPubService, ImportJob job,
+                       ExecutorService stages, IntConsumer onCommitted) {
+        this.wordEntryRepository = wordEntryRepository;
+        this.eventPubService = eventPubService;
+        this.job = job;
+        this.onCommitted = onCommitted;
+
+        publishProgress();
+        lastProgressAt = System.currentTimeMillis();
+        try {
+            running.add(stages.submit(() -> runStage(this::dedupe)));
+            running.add(stages.submit(() -> runStage(this::write)));
+        } catch (RejectedExecutionException e) {
+            // a stage already started is not left waiting for chunks
+            failed = true;
+            throw e;
+        }
+    }
+
+    /**
+     * Adds a parsed entry. Blocks while the stages are behind
+     *
+     * @param entry the entry
+     * @param row the row the entry was parsed from
+     * @return false if a stage has failed, in which case no more entries are to be added
+     */
+    boolean add(WordEntry entry, int row) {
+        chunk.add(entry);
+        lastRow = row;
+        if (chunk.size() == CHUNK_SIZE) {
+            try {
+                if (!handOver(parsed, new Chunk(chunk, lastRow))) {
+                    return false;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while importing", e);
+            }
+            chunk = new ArrayList<>(CHUNK_SIZE);
+        }
+        return !failed;
+    }
+
+    /**
+     * Waits for the entries added to be saved, and publishes the progress of the job
+     *
+     * @return true if every entry added was dealt with, false if the import was stopped before, or a chunk could
+     * not be checked against the dictionary
+     */
+    boolean finish() {
+        try {
+            if (!chunk.isEmpty()) {
+                handOver(parsed, new Chunk(chunk, lastRow));
+            }
+            handOver(parsed, END);
+            for (Future<?> stage : running) {
+                stage.get();
+            }
+            return !chunkSkipped;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            logger.error("Import stopped before all the names were saved", e.getCause());
+            return false;
+        } finally {
+            // the stages are done by now, unless the caller was interrupted waiting for them
+            running.forEach(stage -> stage.cancel(true));
+            publishProgress();
+        }
+    }
+
+    //=====================================Helpers=========================================================//
+
+    private interface Stage {
+        void run() throws InterruptedException;
+    }
+
+    private Void runStage(Stage stage) throws InterruptedException {
+        boolean done = false;
+        try {
+            stage.run();
+            done = true;
+            return null;
+        } finally {
+            if (!done) {
+                failed = true;
+            }
+        }
+    }
+
+    // false if a stage failed while waiting for room in the queue
+    private boolean handOver(BlockingQueue<Chunk> queue, Chunk handed) throws InterruptedException {
+        while (!queue.offer(handed, WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (failed) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // the chunks already queued are still taken once a stage failed, then END
+    private Chunk next(BlockingQueue<Chunk> queue) throws InterruptedException {
+        Chunk next = queue.poll(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        while (next == null && !failed) {
+            next = queue.poll(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        return next == null ? END : next;
+    }
+
+    private void dedupe() throws InterruptedException {
+        Set<String> seen = new HashSet<>();
+        for (Chunk parsedChunk = next(parsed); parsedChunk != END; parsedChunk = next(parsed)) {
+            try {
+                // passed on even when there is nothing left to save, for the row it ends at
+                if (!handOver(deduped, new Chunk(dedupe(parsedChunk.entries, seen), parsedChunk.lastRow))) {
+                    return;
+                }
+            } catch (RuntimeException e) {
+                logger.error("Failed to check {} names against the dictionary", parsedChunk.entries.size(), e);
+                if (!handOver(deduped, UNCHECKED)) {
+                    return;
+                }
+            }
+        }
+        handOver(deduped, END);
+    }
+
+    private List<WordEntry> dedupe(List<WordEntry> entries, Set<String> seen) {
+        List<String> words = entries.stream().map(WordEntry::getWord).collect(Collectors.toList());
+        Set<String> existing = keysOf(wordEntryRepository.findWordsByWordIn(words));
+        List<WordEntry> fresh = new ArrayList<>();
+        for (WordEntry entry : entries) {
+            String key = keyOf(entry.getWord());
+            if (existing.contains(key) || !seen.add(key)) {
+                logger.info("Name {} already exists in the index. Skipping...", entry.getWord());
+            } else {
+                fresh.add(entry);
+            }
+        }
+        return fresh;
+    }
+
+    private void write() throws InterruptedException {
+        for (Chunk dedupedChunk = next(deduped); dedupedChunk != END; dedupedChunk = next(deduped)) {
+            if (dedupedChunk == UNCHECKED) {
+                // the rows after the last one committed are to be imported again
+                chunkSkipped = true;
+                continue;
+            }
+            if (!dedupedChunk.entries.isEmpty()) {
+                save(dedupedChunk.entries);
+            }
+            if (!chunkSkipped) {
+                onCommitted.accept(dedupedChunk.lastRow);
+            }
+            long now = System.currentTimeMillis();
+            if (now - lastProgressAt >= PROGRESS_INTERVAL_MILLIS) {
+                publishProgress();
+                lastProgressAt = now;
+            }
+        }
+    }
+
+    private void save(List<WordEntry> entries) {
+        try {
+            wordEntryRepository.save(entries);
+            entries.forEach(entry -> job.getStatus().incrementNumberOfNames());
+        } catch (RuntimeException e) {
+            // a single bad entry rolls the whole chunk back, so the entries are saved one by one to skip it
+            for (WordEntry entry : entries) {
+                try {
+                    wordEntryRepository.save(entry);
+                    job.getStatus().incrementNumberOfNames();
+                } catch (RuntimeException entryException) {
+                    logger.debug("Exception while uploading name entry with name {}", entry.getWord(),
+                                 entryException);
+                }
+            }
+        }
+    }
+
+    private void publishProgress() {
+        eventPubService.publish(job.progressEvent());
+    }
+
+    private static Set<String> keysOf(Collection<String> words) {
+        return words.stream().map(WordImportPipeline::keyOf).collect(Collectors.toSet());
+    }
+
+    // words are matched regardless of case and accents, as the utf8_unicode_ci collation of the database does
+    private static String keyOf(String word) {
+        return WordFolding.fold(word);
+    }
+
+    private static class Chunk {
+        private final List<WordEntry> entries;
+        private final int lastRow;
+
+        Chunk(List<WordEntry> entries, int lastRow) {
+            this.entries = entries;
+            this.lastRow = lastRow;
+        }
+    }
+}
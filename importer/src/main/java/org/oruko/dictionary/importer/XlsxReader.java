@@ -0,0 +1,216 @@
+package org.oruko.dictionary.importer;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Reads the rows of the sheets of an xlsx file as they are parsed, using the event model of POI, instead of
+ * building the workbook in memory first. Only the shared strings and the styles of the workbook, and the row being
+ * read, are held in memory, so a sheet is read in the same memory however many rows it has.
+ *
+ * @author Dadepo Aderemi.
+ */
+public class XlsxReader implements Closeable {
+
+    /**
+     * Handles the rows of a sheet, in order
+     */
+    public interface RowHandler {
+        /**
+         * Handles a row. Rows without any cell are not skipped
+         *
+         * @param row the row
+         * @return true to go on to the next row, false to stop reading the sheet
+         */
+        boolean row(SheetRow row);
+    }
+
+    private final OPCPackage pkg;
+    private final XSSFReader reader;
+    private final ReadOnlySharedStringsTable strings;
+    private final StylesTable styles;
+
+    /**
+     * Opens an xlsx file for reading
+     *
+     * @param file the file
+     * @throws IOException when the file can not be read or is not an xlsx file
+     */
+    public XlsxReader(File file) throws IOException {
+        OPCPackage opened = null;
+        try {
+            opened = OPCPackage.open(file, PackageAccess.READ);
+            this.reader = new XSSFReader(opened);
+            this.strings = new ReadOnlySharedStringsTable(opened);
+            this.styles = reader.getStylesTable();
+            this.pkg = opened;
+        } catch (OpenXML4JException | SAXException | IOException | RuntimeException e) {
+            if (opened != null) {
+                opened.revert();
+            }
+            throw new IOException("Failed to open " + file.getName() + " as a spreadsheet: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns the number of sheets of the workbook
+     *
+     * @return the number of sheets
+     * @throws IOException when the workbook can not be read
+     */
+    public int getSheetCount() throws IOException {
+        int count = 0;
+        Iterator<InputStream> sheets = sheets();
+        while (sheets.hasNext()) {
+            sheets.next().close();
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Counts the rows of a sheet, without reading their cells
+     *
+     * @param sheetIndex the zero based index of the sheet
+     * @return the number of rows
+     * @throws IOException when the sheet can not be read
+     */
+    public int countRows(int sheetIndex) throws IOException {
+        int[] count = {0};
+        parse(sheetIndex, new DefaultHandler() {
+            @Override
+            public void startElement(String uri, String localName, String qName, Attributes attributes) {
+                if ("row".equals(qName)) {
+                    count[0]++;
+                }
+            }
+        });
+        return count[0];
+    }
+
+    /**
+     * Reads the rows of a sheet, handing each to the handler as soon as it is parsed
+     *
+     * @param sheetIndex the zero based index of the sheet
+     * @param handler the handler of the rows
+     * @throws IOException when the sheet can not be read
+     */
+    public void readSheet(int sheetIndex, RowHandler handler) throws IOException {
+        RowCollector collector = new RowCollector(handler);
+        try {
+            parse(sheetIndex, new XSSFSheetXMLHandler(styles, strings, collector, new DataFormatter(), false));
+        } catch (StopReading e) {
+            // the handler is done with the sheet
+        }
+    }
+
+    @Override
+    public void close() {
+        // the package is opened read only, so it is reverted rather than closed, which would save it
+        pkg.revert();
+    }
+
+    //=====================================Helpers=========================================================//
+
+    private Iterator<InputStream> sheets() throws IOException {
+        try {
+            return reader.getSheetsData();
+        } catch (OpenXML4JException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    private void parse(int sheetIndex, ContentHandler handler) throws IOException {
+        Iterator<InputStream> sheets = sheets();
+        for (int index = 0; index < sheetIndex && sheets.hasNext(); index++) {
+            sheets.next().close();
+        }
+        if (!sheets.hasNext()) {
+            throw new IOException("The workbook has no sheet " + sheetIndex);
+        }
+        try (InputStream sheet = sheets.next()) {
+            SAXParserFactory factory = SAXParserFactory.newInstance();
+            // the files are uploaded, so they may not pull in anything from outside
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            XMLReader xmlReader = factory.newSAXParser().getXMLReader();
+            xmlReader.setContentHandler(handler);
+            xmlReader.parse(new InputSource(sheet));
+        } catch (SAXException | ParserConfigurationException e) {
+            throw new IOException("Failed to read sheet " + sheetIndex + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Collects the cells of a row as they are parsed, and hands the row over once it ends
+     */
+    private static class RowCollector implements XSSFSheetXMLHandler.SheetContentsHandler {
+
+        private final RowHandler handler;
+        private int rowNum;
+        private int nextColumn;
+        private SortedMap<Integer, String> cells;
+
+        RowCollector(RowHandler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            this.rowNum = rowNum;
+            this.nextColumn = 0;
+            this.cells = new TreeMap<>();
+        }
+
+        @Override
+        public void endRow() {
+            if (!handler.row(new SheetRow(rowNum, cells))) {
+                throw new StopReading();
+            }
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue) {
+            int column = cellReference == null ? nextColumn : new CellReference(cellReference).getCol();
+            nextColumn = column + 1;
+            if (formattedValue != null) {
+                cells.put(column, formattedValue);
+            }
+        }
+
+        @Override
+        public void headerFooter(String text, boolean isHeader, String tagName) {
+        }
+    }
+
+    /**
+     * Thrown out of the parser to stop reading a sheet
+     */
+    private static class StopReading extends RuntimeException {
+        StopReading() {
+            super(null, null, false, false);
+        }
+    }
+}
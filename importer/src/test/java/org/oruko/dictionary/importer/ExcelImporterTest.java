@@ -1,7 +1,6 @@
 package org.oruko.dictionary.importer;
 
 
-import org.apache.poi.xssf.usermodel.XSSFSheet;
 import org.hamcrest.text.IsEqualIgnoringCase;
 import org.junit.*;
 import org.junit.runner.*;
@@ -30,6 +29,9 @@ public class ExcelImporterTest {
     @Mock
     ColumnOrder columnOrder;
 
+    @Mock
+    ImportCheckpoints checkpoints;
+
     @InjectMocks
     ImporterInterface importer = new ExcelImporter();
 
@@ -41,7 +43,7 @@ public class ExcelImporterTest {
     @Test @Ignore
     public void testDoImport() throws Exception {
         File file = new ClassPathResource("testdata/right_column_order.xlsx").getFile();
-        when(validator.isColumnNameInOrder(any(XSSFSheet.class))).thenReturn(true);
+        when(validator.isColumnNameInOrder(any(SheetRow.class))).thenReturn(true);
         ImportStatus status = importer.importFile(file);
 
         ArgumentCaptor<WordEntry> messageCaptor = ArgumentCaptor.forClass(WordEntry.class);
@@ -0,0 +1,92 @@
+package org.oruko.dictionary.importer;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.oruko.dictionary.model.ImportCheckpoint;
+import org.oruko.dictionary.model.repository.ImportCheckpointRepository;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests {@link ImportCheckpoints}
+ *
+ * @author Dadepo Aderemi.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class ImportCheckpointsTest {
+
+    private static final String HASH = "7d865e959b2466918c9863afca942d0fb89d7c9ac0c99bafc3749504ded97730";
+
+    @Mock
+    ImportCheckpointRepository checkpointRepository;
+
+    private ImportCheckpoints checkpoints;
+
+    @Before
+    public void setUp() {
+        checkpoints = new ImportCheckpoints(checkpointRepository);
+    }
+
+    @Test
+    public void test_sheet_without_checkpoint_is_imported_from_the_start() {
+        assertEquals(0, checkpoints.lastCommittedRow(HASH, 0));
+    }
+
+    @Test
+    public void test_checkpoint_is_moved_to_the_last_row_committed() {
+        ImportCheckpoint existing = new ImportCheckpoint(HASH, 1);
+        existing.committed(500, "earlier-job");
+        when(checkpointRepository.findByFileHashAndSheetIndex(HASH, 1)).thenReturn(existing);
+
+        checkpoints.committed(HASH, 0, 500, "job");
+        checkpoints.committed(HASH, 1, 1000, "job");
+
+        ArgumentCaptor<ImportCheckpoint> saved = ArgumentCaptor.forClass(ImportCheckpoint.class);
+        verify(checkpointRepository, times(2)).save(saved.capture());
+        assertEquals(0, saved.getAllValues().get(0).getSheetIndex());
+        assertEquals(500, saved.getAllValues().get(0).getLastCommittedRow());
+        assertEquals(existing, saved.getAllValues().get(1));
+        assertEquals(1000, checkpoints.lastCommittedRow(HASH, 1));
+        assertEquals("job", existing.getJobId());
+    }
+
+    @Test
+    public void test_checkpoint_is_removed_once_the_sheet_is_imported() {
+        ImportCheckpoint existing = new ImportCheckpoint(HASH, 0);
+        when(checkpointRepository.findByFileHashAndSheetIndex(HASH, 0)).thenReturn(existing);
+
+        checkpoints.completed(HASH, 0);
+        checkpoints.completed(HASH, 1);
+
+        verify(checkpointRepository).delete(existing);
+        verify(checkpointRepository, times(1)).delete(any(ImportCheckpoint.class));
+    }
+
+    @Test
+    public void test_files_are_told_apart_by_their_content() throws Exception {
+        File file = File.createTempFile("import-checkpoints", ".xlsx");
+        try {
+            Files.write(file.toPath(), "test".getBytes(StandardCharsets.UTF_8));
+            String hash = ImportCheckpoints.hashOf(file);
+            assertEquals("9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08", hash);
+
+            Files.write(file.toPath(), "other".getBytes(StandardCharsets.UTF_8));
+            assertNotEquals(hash, ImportCheckpoints.hashOf(file));
+        } finally {
+            file.delete();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package org.oruko.dictionary.importer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests {@link ImportJobs}
+ *
+ * @author Dadepo Aderemi.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class ImportJobsTest {
+
+    @Mock
+    ImporterInterface importer;
+
+    private ImportJobs importJobs;
+    private File file;
+
+    @Before
+    public void setUp() throws Exception {
+        importJobs = new ImportJobs(importer);
+        file = createFile("first");
+    }
+
+    @After
+    public void tearDown() {
+        importJobs.shutdown();
+        file.delete();
+    }
+
+    @Test
+    public void test_sheets_of_a_file_are_imported_in_parallel() throws Exception {
+        CountDownLatch bothSheetsStarted = new CountDownLatch(2);
+        when(importer.countSheets(file)).thenReturn(2);
+        doAnswer(invocation -> {
+            ImportJob job = (ImportJob) invocation.getArguments()[2];
+            job.started();
+            job.addNumberOfNames(1);
+            bothSheetsStarted.countDown();
+            // only returns in time if the other sheet is being imported at the same time
+            if (bothSheetsStarted.await(5, TimeUnit.SECONDS)) {
+                job.getStatus().incrementNumberOfNames();
+            }
+            job.sheetDone();
+            return null;
+        }).when(importer).importSheet(any(File.class), anyInt(), any(ImportJob.class), any(ExecutorService.class));
+
+        ImportJob job = importJobs.submit(file);
+        awaitDone(job, file);
+
+        assertEquals(ImportJob.State.DONE, job.getState());
+        assertEquals(2, job.getTotalNumberOfNames());
+        assertEquals(2, job.getTotalUploaded());
+        assertFalse(file.exists());
+    }
+
+    @Test
+    public void test_each_upload_has_its_own_progress() throws Exception {
+        File another = createFile("another");
+        when(importer.countSheets(any(File.class))).thenReturn(1);
+        doAnswer(invocation -> {
+            File source = (File) invocation.getArguments()[0];
+            ImportJob job = (ImportJob) invocation.getArguments()[2];
+            if (source.equals(another)) {
+                job.getStatus().setErrorMessages("Columns not in order");
+            } else {
+                job.getStatus().incrementNumberOfNames();
+            }
+            job.sheetDone();
+            return null;
+        }).when(importer).importSheet(any(File.class), anyInt(), any(ImportJob.class), any(ExecutorService.class));
+
+        ImportJob first = importJobs.submit(file);
+        ImportJob second = importJobs.submit(another);
+        awaitDone(first, file);
+        awaitDone(second, another);
+
+        assertNotEquals(first.getId(), second.getId());
+        assertSame(first, importJobs.get(first.getId()));
+        assertEquals(2, importJobs.getAll().size());
+        assertEquals(1, first.getTotalUploaded());
+        assertTrue(first.getErrorMessages().isEmpty());
+        assertEquals(0, second.getTotalUploaded());
+        assertEquals(1, second.getErrorMessages().size());
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void test_file_is_refused_when_the_queue_has_no_room_for_its_sheets() throws Exception {
+        when(importer.countSheets(file)).thenReturn(ImportJobs.QUEUE_CAPACITY + 1);
+
+        importJobs.submit(file);
+    }
+
+    @Test
+    public void test_file_being_imported_already_is_not_imported_again() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(importer.countSheets(any(File.class))).thenReturn(1);
+        doAnswer(invocation -> {
+            ImportJob job = (ImportJob) invocation.getArguments()[2];
+            release.await(5, TimeUnit.SECONDS);
+            job.sheetDone();
+            return null;
+        }).when(importer).importSheet(any(File.class), anyInt(), any(ImportJob.class), any(ExecutorService.class));
+
+        ImportJob first = importJobs.submit(file);
+        File sameContent = createFile("first");
+        ImportJob second = importJobs.submit(sameContent);
+        release.countDown();
+        awaitDone(first, file);
+
+        assertSame(first, second);
+        assertFalse(sameContent.exists());
+        verify(importer, times(1)).importSheet(any(File.class), anyInt(), any(ImportJob.class),
+                                               any(ExecutorService.class));
+    }
+
+    private File createFile(String content) throws IOException {
+        File created = File.createTempFile("import-jobs", ".xlsx");
+        Files.write(created.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return created;
+    }
+
+    // the file is deleted once the job is done
+    private void awaitDone(ImportJob job, File source) throws InterruptedException {
+        for (int i = 0; i < 500 && (job.isUploading() || source.exists()); i++) {
+            Thread.sleep(10);
+        }
+    }
+}
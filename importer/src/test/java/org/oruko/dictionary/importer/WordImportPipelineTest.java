@@ -0,0 +1,153 @@
+package org.oruko.dictionary.importer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.oruko.dictionary.events.EventPubService;
+import org.oruko.dictionary.events.WordUploadedEvent;
+import org.oruko.dictionary.model.WordEntry;
+import org.oruko.dictionary.model.repository.WordEntryRepository;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class WordImportPipelineTest {
+
+    @Mock
+    WordEntryRepository repository;
+
+    @Mock
+    EventPubService eventPubService;
+
+    private List<WordUploadedEvent> events = new CopyOnWriteArrayList<>();
+    private List<Integer> committed = new CopyOnWriteArrayList<>();
+    private ExecutorService stages = Executors.newFixedThreadPool(2);
+
+    @Before
+    public void setUp() {
+        doAnswer(invocation -> {
+            for (Object event : invocation.getArguments()) {
+                events.add((WordUploadedEvent) event);
+            }
+            return null;
+        }).when(eventPubService).publish(any());
+        when(repository.findWordsByWordIn(anyCollectionOf(String.class)))
+                .thenReturn(Collections.emptyList())
+                .thenReturn(Collections.singletonList("word600"));
+    }
+
+    @After
+    public void tearDown() {
+        stages.shutdownNow();
+    }
+
+    @Test
+    public void test_entries_are_checked_and_saved_a_chunk_at_a_time() throws Exception {
+        ImportJob job = new ImportJob(1);
+        ImportStatus status = job.getStatus();
+        int count = WordImportPipeline.CHUNK_SIZE * 2 + 1;
+        job.addNumberOfNames(count);
+
+        WordImportPipeline pipeline = new WordImportPipeline(repository, eventPubService, job, stages, committed::add);
+        for (int i = 0; i < count; i++) {
+            pipeline.add(new WordEntry("word" + i), i + 1);
+        }
+        pipeline.add(new WordEntry("WÓRD1"), count + 1);
+        assertTrue(pipeline.finish());
+
+        // word600 is in the dictionary already and WÓRD1 repeats word1, regardless of case and accents
+        assertEquals(count - 1, status.getNumberOfNamesUpload());
+        verify(repository, times(3)).findWordsByWordIn(anyCollectionOf(String.class));
+        verify(repository, times(3)).save(anyListOf(WordEntry.class));
+        verify(repository, never()).findByWord(any(String.class));
+        // the rows the chunks end at, in order
+        assertEquals(Arrays.asList(WordImportPipeline.CHUNK_SIZE, WordImportPipeline.CHUNK_SIZE * 2, count + 1),
+                     committed);
+
+        assertThat(events.size(), lessThan(count));
+        assertTrue(events.get(0).isUploading());
+        WordUploadedEvent last = events.get(events.size() - 1);
+        assertEquals(job.getId(), last.getJobId());
+        assertEquals(count, last.getTotalNumberOfNames());
+        assertEquals(count - 1, last.getTotalUploaded());
+    }
+
+    @Test
+    public void test_entries_of_a_failed_chunk_are_saved_one_by_one() throws Exception {
+        when(repository.save(anyListOf(WordEntry.class))).thenThrow(new IllegalStateException("duplicate"));
+        when(repository.save(any(WordEntry.class))).thenThrow(new IllegalStateException("duplicate"))
+                                                   .thenReturn(null);
+        ImportJob job = new ImportJob(1);
+        ImportStatus status = job.getStatus();
+
+        WordImportPipeline pipeline = new WordImportPipeline(repository, eventPubService, job, stages, committed::add);
+        pipeline.add(new WordEntry("ade"), 1);
+        pipeline.add(new WordEntry("bola"), 2);
+        pipeline.add(new WordEntry("chike"), 3);
+        pipeline.finish();
+
+        assertEquals(2, status.getNumberOfNamesUpload());
+        verify(repository, times(3)).save(any(WordEntry.class));
+    }
+
+    @Test(timeout = 10000)
+    public void test_stage_failing_stops_the_import_instead_of_blocking_it() throws Exception {
+        ImportJob job = new ImportJob(1);
+        WordImportPipeline pipeline = new WordImportPipeline(repository, eventPubService, job, stages, row -> {
+            throw new IllegalStateException("write stage died");
+        });
+
+        // far more chunks than the queues have room for
+        boolean accepted = true;
+        int row = 0;
+        while (accepted && row < WordImportPipeline.CHUNK_SIZE * 50) {
+            row++;
+            accepted = pipeline.add(new WordEntry("word" + row), row);
+        }
+
+        assertFalse(accepted);
+        assertFalse(pipeline.finish());
+    }
+
+    @Test
+    public void test_checkpoint_is_not_moved_past_a_chunk_that_could_not_be_checked() throws Exception {
+        when(repository.findWordsByWordIn(anyCollectionOf(String.class)))
+                .thenReturn(Collections.emptyList())
+                .thenThrow(new IllegalStateException("connection lost"))
+                .thenReturn(Collections.emptyList());
+        ImportJob job = new ImportJob(1);
+        int count = WordImportPipeline.CHUNK_SIZE * 3;
+
+        WordImportPipeline pipeline = new WordImportPipeline(repository, eventPubService, job, stages, committed::add);
+        for (int i = 0; i < count; i++) {
+            pipeline.add(new WordEntry("word" + i), i + 1);
+        }
+
+        assertFalse(pipeline.finish());
+        // the chunks after the failed one are still saved, but only resumed after the one before it
+        assertEquals(Collections.singletonList(WordImportPipeline.CHUNK_SIZE), committed);
+        assertEquals(WordImportPipeline.CHUNK_SIZE * 2, job.getStatus().getNumberOfNamesUpload());
+    }
+}
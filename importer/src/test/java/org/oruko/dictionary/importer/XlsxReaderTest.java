@@ -0,0 +1,64 @@
+package org.oruko.dictionary.importer;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.contains;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class XlsxReaderTest {
+
+    ImporterValidator validator;
+
+    @Before
+    public void setUp() {
+        validator = new ImporterValidator();
+        validator.setColumnOrder(new ColumnOrder());
+    }
+
+    @Test
+    public void testReadSheet_reads_the_rows_in_order() throws Exception {
+        List<SheetRow> rows = new ArrayList<>();
+        try (XlsxReader reader = new XlsxReader(testFile("right_column_order.xlsx"))) {
+            reader.readSheet(0, rows::add);
+
+            assertEquals(1, reader.getSheetCount());
+            assertEquals(rows.size(), reader.countRows(0));
+        }
+
+        assertTrue(validator.isColumnNameInOrder(rows.get(0)));
+        List<String> names = rows.stream()
+                                 .skip(1)
+                                 .map(row -> row.getCell(0))
+                                 .filter(name -> !name.isEmpty())
+                                 .collect(Collectors.toList());
+        assertThat(names, contains("Kola", "koko", "Dadepo"));
+        assertEquals("kola means", rows.get(1).getCell(2));
+    }
+
+    @Test
+    public void testReadSheet_stops_when_the_handler_is_done() throws Exception {
+        List<SheetRow> rows = new ArrayList<>();
+        try (XlsxReader reader = new XlsxReader(testFile("wrong_column_order.xlsx"))) {
+            reader.readSheet(0, row -> rows.add(row) && validator.isColumnNameInOrder(row));
+        }
+
+        assertEquals(1, rows.size());
+        assertFalse(validator.isColumnNameInOrder(rows.get(0)));
+    }
+
+    //=====================================Helpers=========================================================//
+
+    private static File testFile(String name) throws Exception {
+        return new ClassPathResource("testdata/" + name).getFile();
+    }
+}
@@ -0,0 +1,203 @@
+package org.oruko.dictionary.search.jpa;
+
+import com.google.common.eventbus.Subscribe;
+import org.oruko.dictionary.events.WordDeletedEvent;
+import org.oruko.dictionary.events.WordIndexedEvent;
+import org.oruko.dictionary.model.State;
+import org.oruko.dictionary.model.WordFolding;
+import org.oruko.dictionary.model.YorubaAlphabet;
+import org.oruko.dictionary.model.repository.WordEntryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.stereotype.Component;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Buckets the PUBLISHED words by the letter of the Yoruba alphabet they are listed under (see
+ * {@link YorubaAlphabet}), each bucket kept in alphabetical order, so a page of a letter is a slice of its
+ * bucket and the number of words under a letter is the size of its bucket.
+ *
+ * Buckets are never changed in place; a change replaces the bucket, so readers work on a consistent snapshot
+ * without locking. The buckets are loaded once the application context is up and then kept current from
+ * {@link WordIndexedEvent} and {@link WordDeletedEvent}.
+ *
+ * @author Dadepo Aderemi.
+ */
+@Component
+public class AlphabetIndex extends ListenableIndex implements ApplicationListener<ContextRefreshedEvent> {
+
+    private static final String[] EMPTY = new String[0];
+
+    private Logger logger = LoggerFactory.getLogger(AlphabetIndex.class);
+
+    private final WordEntryRepository wordEntryRepository;
+    private volatile Map<String, String[]> buckets = Collections.emptyMap();
+
+    /**
+     * Public constructor for {@link AlphabetIndex}
+     *
+     * @param wordEntryRepository the repository the words are loaded from
+     */
+    @Autowired
+    public AlphabetIndex(WordEntryRepository wordEntryRepository) {
+        this.wordEntryRepository = wordEntryRepository;
+    }
+
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        reload();
+    }
+
+    /**
+     * Rebuilds the whole index from the PUBLISHED entries in the database
+     */
+    public void reload() {
+        replaceAll(wordEntryRepository.findWordsByState(State.PUBLISHED));
+        logger.info("Bucketed {} published words by alphabet",
+                    buckets.values().stream().mapToInt(bucket -> bucket.length).sum());
+    }
+
+    /**
+     * Returns the words listed under the given letter
+     *
+     * @param letter the letter, see {@link YorubaAlphabet#asLetter(String)}
+     * @return the words, in alphabetical order. The list does not change when the index does
+     */
+    public List<String> words(String letter) {
+        String[] bucket = buckets.getOrDefault(letter, EMPTY);
+        return new AbstractList<String>() {
+            @Override
+            public String get(int index) {
+                return wordOf(bucket[index]);
+            }
+
+            @Override
+            public int size() {
+                return bucket.length;
+            }
+        };
+    }
+
+    /**
+     * Returns the number of words listed under the given letter
+     *
+     * @param letter the letter, see {@link YorubaAlphabet#asLetter(String)}
+     * @return the number of words
+     */
+    public int count(String letter) {
+        return buckets.getOrDefault(letter, EMPTY).length;
+    }
+
+    /**
+     * Replaces the content of the index
+     *
+     * @param words the words
+     */
+    synchronized void replaceAll(Collection<String> words) {
+        Map<String, List<String>> keysByLetter = new HashMap<>();
+        for (String word : words) {
+            String letter = YorubaAlphabet.letterOf(word);
+            if (letter != null) {
+                keysByLetter.computeIfAbsent(letter, l -> new ArrayList<>()).add(sortKey(word));
+            }
+        }
+        Map<String, String[]> loaded = new HashMap<>();
+        keysByLetter.forEach((letter, keys) -> {
+            String[] bucket = keys.stream().distinct().toArray(String[]::new);
+            Arrays.sort(bucket);
+            loaded.put(letter, bucket);
+        });
+        buckets = loaded;
+    }
+
+    /**
+     * Adds a word
+     *
+     * @param word the word
+     */
+    synchronized void put(String word) {
+        String letter = YorubaAlphabet.letterOf(word);
+        if (letter == null) {
+            return;
+        }
+        String[] bucket = buckets.getOrDefault(letter, EMPTY);
+        String key = sortKey(word);
+        int position = Arrays.binarySearch(bucket, key);
+        if (position >= 0) {
+            return;
+        }
+        int insertAt = -position - 1;
+        String[] updated = new String[bucket.length + 1];
+        System.arraycopy(bucket, 0, updated, 0, insertAt);
+        updated[insertAt] = key;
+        System.arraycopy(bucket, insertAt, updated, insertAt + 1, bucket.length - insertAt);
+        replace(letter, updated);
+    }
+
+    /**
+     * Removes the given words
+     *
+     * @param words the words
+     */
+    public void remove(Collection<String> words) {
+        words.forEach(word -> {
+            removeWord(word);
+            applied(word);
+        });
+    }
+
+    @Subscribe
+    public void listen(WordIndexedEvent event) {
+        String word = event.getName();
+        if (wordEntryRepository.findByWordAndState(word, State.PUBLISHED) != null) {
+            put(word);
+        }
+        applied(word);
+    }
+
+    @Subscribe
+    public void listen(WordDeletedEvent event) {
+        remove(Collections.singletonList(event.getName()));
+    }
+
+    //=====================================Helpers=========================================================//
+
+    private synchronized void removeWord(String word) {
+        String letter = YorubaAlphabet.letterOf(word);
+        String[] bucket = buckets.getOrDefault(letter, EMPTY);
+        int position = Arrays.binarySearch(bucket, sortKey(word));
+        if (position < 0) {
+            return;
+        }
+        String[] updated = new String[bucket.length - 1];
+        System.arraycopy(bucket, 0, updated, 0, position);
+        System.arraycopy(bucket, position + 1, updated, position, updated.length - position);
+        replace(letter, updated);
+    }
+
+    private void replace(String letter, String[] bucket) {
+        Map<String, String[]> updated = new HashMap<>(buckets);
+        updated.put(letter, bucket);
+        buckets = updated;
+    }
+
+    // orders on the folded word, then on the word itself so words folding the same keep a stable order
+    private static String sortKey(String word) {
+        return WordFolding.fold(word) + '\u0000' + word;
+    }
+
+    private static String wordOf(String sortKey) {
+        return sortKey.substring(sortKey.indexOf('\u0000') + 1);
+    }
+}
@@ -0,0 +1,153 @@
+package org.oruko.dictionary.search.jpa;
+
+import com.google.common.eventbus.AllowConcurrentEvents;
+import com.google.common.eventbus.Subscribe;
+import org.oruko.dictionary.events.WordDeletedEvent;
+import org.oruko.dictionary.events.WordIndexedEvent;
+import org.oruko.dictionary.events.WordSearchedEvent;
+import org.oruko.dictionary.model.State;
+import org.oruko.dictionary.model.WordFolding;
+import org.oruko.dictionary.model.repository.WordEntryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Answers autocomplete queries from memory, so typing into the search box never hits the database.
+ *
+ * Holds every PUBLISHED word in a {@link PrefixTrie}, reachable through its folded form, the folded form
+ * of each of its parts and the folded form of each of its variants. Suggestions are ranked by how often
+ * the word has been looked up since the application started.
+ *
+ * The trie is loaded once the application context is up and then kept current from {@link WordIndexedEvent},
+ * {@link WordDeletedEvent} and {@link WordSearchedEvent}.
+ *
+ * @author Dadepo Aderemi.
+ */
+@Component
+public class AutocompleteIndex extends ListenableIndex implements ApplicationListener<ContextRefreshedEvent> {
+
+    private Logger logger = LoggerFactory.getLogger(AutocompleteIndex.class);
+
+    private final WordEntryRepository wordEntryRepository;
+    private final PrefixTrie trie;
+
+    /**
+     * Public constructor for {@link AutocompleteIndex}
+     *
+     * @param wordEntryRepository the repository the words are loaded from
+     * @param limit the maximum number of suggestions returned for a query
+     */
+    @Autowired
+    public AutocompleteIndex(WordEntryRepository wordEntryRepository,
+                             @Value("${app.search.autocompleteLimit:20}") int limit) {
+        this.wordEntryRepository = wordEntryRepository;
+        this.trie = new PrefixTrie(limit);
+    }
+
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        reload();
+    }
+
+    /**
+     * Rebuilds the whole index from the PUBLISHED entries in the database
+     */
+    public void reload() {
+        Map<String, List<String>> variantsByWord = new HashMap<>();
+        for (Object[] pair : wordEntryRepository.findWordAndVariantPairsByState(State.PUBLISHED)) {
+            List<String> variants = variantsByWord.computeIfAbsent((String) pair[0], word -> new ArrayList<>());
+            if (pair[1] != null) {
+                variants.add((String) pair[1]);
+            }
+        }
+        Map<String, Set<String>> keysByWord = new HashMap<>(variantsByWord.size());
+        variantsByWord.forEach((word, variants) -> keysByWord.put(word, keysOf(word, variants)));
+        trie.replaceAll(keysByWord);
+        logger.info("Loaded {} published words for autocomplete", trie.size());
+    }
+
+    /**
+     * Returns the most popular PUBLISHED words that start with the query. Tone marks, under dots and case
+     * are ignored, and the query can also match the start of any part of a word or of one of its variants
+     *
+     * @param query the query
+     * @return the words, most popular first
+     */
+    public List<String> complete(String query) {
+        String key = WordFolding.fold(query);
+        if (key == null || key.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return trie.complete(key);
+    }
+
+    /**
+     * Removes the given words
+     *
+     * @param words the words
+     */
+    public void remove(Collection<String> words) {
+        words.forEach(this::remove);
+    }
+
+    @Subscribe
+    public void listen(WordIndexedEvent event) {
+        List<String> variants = wordEntryRepository.findVariantWordsByWordAndState(event.getName(), State.PUBLISHED);
+        if (wordEntryRepository.findByWordAndState(event.getName(), State.PUBLISHED) != null) {
+            trie.put(event.getName(), keysOf(event.getName(), variants));
+        }
+        applied(event.getName());
+    }
+
+    @Subscribe
+    public void listen(WordDeletedEvent event) {
+        remove(event.getName());
+    }
+
+    @Subscribe
+    @AllowConcurrentEvents
+    public void listen(WordSearchedEvent event) {
+        trie.increment(event.getNameSearched());
+    }
+
+    //=====================================Helpers=========================================================//
+
+    private void remove(String word) {
+        trie.remove(word);
+        applied(word);
+    }
+
+    private static Set<String> keysOf(String word, List<String> variants) {
+        Set<String> keys = new LinkedHashSet<>();
+        addKeys(keys, word);
+        variants.forEach(variant -> addKeys(keys, variant));
+        return keys;
+    }
+
+    // the whole form, and each part of a compound, so a query can match the start of any of them
+    private static void addKeys(Set<String> keys, String form) {
+        String folded = WordFolding.fold(form);
+        if (folded == null || folded.isEmpty()) {
+            return;
+        }
+        keys.add(folded);
+        for (String part : folded.split("[\\s-]+")) {
+            if (!part.isEmpty()) {
+                keys.add(part);
+            }
+        }
+    }
+}
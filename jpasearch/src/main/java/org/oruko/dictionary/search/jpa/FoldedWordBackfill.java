@@ -0,0 +1,49 @@
+package org.oruko.dictionary.search.jpa;
+
+import org.oruko.dictionary.model.WordEntry;
+import org.oruko.dictionary.model.repository.WordEntryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Fills in the folded word of the {@link WordEntry}s saved before it was maintained on save, so the
+ * folded search tier also finds them. Does nothing once every entry has its folded word.
+ *
+ * @author Dadepo Aderemi.
+ */
+@Component
+public class FoldedWordBackfill implements ApplicationListener<ContextRefreshedEvent> {
+
+    private static final int BATCH_SIZE = 500;
+
+    private Logger logger = LoggerFactory.getLogger(FoldedWordBackfill.class);
+
+    private final WordEntryRepository wordEntryRepository;
+
+    @Autowired
+    public FoldedWordBackfill(WordEntryRepository wordEntryRepository) {
+        this.wordEntryRepository = wordEntryRepository;
+    }
+
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        int filled = 0;
+        List<WordEntry> batch = wordEntryRepository.findByFoldedWordIsNull(new PageRequest(0, BATCH_SIZE));
+        while (!batch.isEmpty()) {
+            batch.forEach(WordEntry::refreshFoldedWord);
+            wordEntryRepository.save(batch);
+            filled += batch.size();
+            batch = wordEntryRepository.findByFoldedWordIsNull(new PageRequest(0, BATCH_SIZE));
+        }
+        if (filled > 0) {
+            logger.info("Filled in the folded word of {} entries", filled);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package org.oruko.dictionary.search.jpa;
+
+import com.google.common.eventbus.Subscribe;
+import org.oruko.dictionary.events.WordDeletedEvent;
+import org.oruko.dictionary.events.WordIndexedEvent;
+import org.oruko.dictionary.model.State;
+import org.oruko.dictionary.model.repository.WordEntryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Full text search over the variants, definitions and examples of the PUBLISHED words, and search for the
+ * words containing a query, so the search cascade does not need leading wildcard LIKE queries that scan
+ * every row.
+ *
+ * The texts are held in an {@link InvertedIndex}. A match in a variant counts the most, followed by
+ * definitions and then examples. The words themselves are held in an {@link NgramIndex}. Both are loaded
+ * once the application context is up and then kept current from {@link WordIndexedEvent} and
+ * {@link WordDeletedEvent}.
+ *
+ * @author Dadepo Aderemi.
+ */
+@Component
+public class FullTextIndex extends ListenableIndex implements ApplicationListener<ContextRefreshedEvent> {
+
+    private static final double VARIANT_WEIGHT = 3;
+    private static final double DEFINITION_WEIGHT = 2;
+    private static final double EXAMPLE_WEIGHT = 1;
+
+    private Logger logger = LoggerFactory.getLogger(FullTextIndex.class);
+
+    private final WordEntryRepository wordEntryRepository;
+    private final InvertedIndex index = new InvertedIndex();
+    private final NgramIndex words = new NgramIndex();
+    private final int limit;
+
+    /**
+     * Public constructor for {@link FullTextIndex}
+     *
+     * @param wordEntryRepository the repository the texts are loaded from
+     * @param limit the maximum number of words returned for a query, by each of {@link #search(String)} and
+     * {@link #containing(String)}
+     */
+    @Autowired
+    public FullTextIndex(WordEntryRepository wordEntryRepository,
+                         @Value("${app.search.fullTextLimit:20}") int limit) {
+        this.wordEntryRepository = wordEntryRepository;
+        this.limit = limit;
+    }
+
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        reload();
+    }
+
+    /**
+     * Rebuilds the whole index from the PUBLISHED entries in the database
+     */
+    public void reload() {
+        Map<String, InvertedIndex.Document> documents = new HashMap<>();
+        for (Object[] pair : wordEntryRepository.findWordAndVariantPairsByState(State.PUBLISHED)) {
+            document(documents, pair[0]).add((String) pair[1], VARIANT_WEIGHT);
+        }
+        addTexts(documents, wordEntryRepository.findDefinitionTextsByState(State.PUBLISHED), DEFINITION_WEIGHT);
+        addTexts(documents, wordEntryRepository.findExampleTextsByState(State.PUBLISHED), EXAMPLE_WEIGHT);
+        index.replaceAll(documents.values());
+        words.replaceAll(wordEntryRepository.findWordsByState(State.PUBLISHED));
+        logger.info("Loaded {} published words for full text search", words.size());
+    }
+
+    /**
+     * Returns the PUBLISHED words whose variants, definitions or examples best match the query
+     *
+     * @param query the query
+     * @return the words, best match first
+     */
+    public List<String> search(String query) {
+        return index.search(query, limit);
+    }
+
+    /**
+     * Returns the PUBLISHED words that contain the query, ignoring case and tone marks
+     *
+     * @param query the query
+     * @return the words, shortest first
+     */
+    public List<String> containing(String query) {
+        return words.containing(query, limit);
+    }
+
+    /**
+     * Removes the given words
+     *
+     * @param removed the words
+     */
+    public void remove(Collection<String> removed) {
+        removed.forEach(this::remove);
+    }
+
+    @Subscribe
+    public void listen(WordIndexedEvent event) {
+        String word = event.getName();
+        if (wordEntryRepository.findByWordAndState(word, State.PUBLISHED) != null) {
+            Map<String, InvertedIndex.Document> documents = new HashMap<>();
+            document(documents, word);
+            wordEntryRepository.findVariantWordsByWordAndState(word, State.PUBLISHED)
+                               .forEach(variant -> document(documents, word).add(variant, VARIANT_WEIGHT));
+            addTexts(documents, wordEntryRepository.findDefinitionTextsByWordAndState(word, State.PUBLISHED),
+                     DEFINITION_WEIGHT);
+            addTexts(documents, wordEntryRepository.findExampleTextsByWordAndState(word, State.PUBLISHED),
+                     EXAMPLE_WEIGHT);
+            index.put(documents.get(word));
+            words.put(word);
+        }
+        applied(word);
+    }
+
+    @Subscribe
+    public void listen(WordDeletedEvent event) {
+        remove(event.getName());
+    }
+
+    //=====================================Helpers=========================================================//
+
+    private void remove(String word) {
+        index.remove(word);
+        words.remove(word);
+        applied(word);
+    }
+
+    private static void addTexts(Map<String, InvertedIndex.Document> documents, List<Object[]> texts, double weight) {
+        for (Object[] text : texts) {
+            document(documents, text[0]).add((String) text[1], weight).add((String) text[2], weight);
+        }
+    }
+
+    private static InvertedIndex.Document document(Map<String, InvertedIndex.Document> documents, Object word) {
+        return documents.computeIfAbsent((String) word, InvertedIndex.Document::new);
+    }
+}
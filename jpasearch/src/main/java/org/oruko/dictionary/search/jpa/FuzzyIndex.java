@@ -0,0 +1,208 @@
+package org.oruko.dictionary.search.jpa;
+
+import com.google.common.eventbus.Subscribe;
+import org.oruko.dictionary.events.WordDeletedEvent;
+import org.oruko.dictionary.events.WordIndexedEvent;
+import org.oruko.dictionary.model.State;
+import org.oruko.dictionary.model.WordFolding;
+import org.oruko.dictionary.model.repository.WordEntryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Suggests the PUBLISHED words closest to a query that found nothing, i.e. "did you mean".
+ *
+ * Words and their variants are held folded (see {@link WordFolding}) in a {@link LevenshteinTrie}, which finds
+ * those within one edit of short queries and two edits of longer ones. The words found are then ranked by a
+ * tone aware distance, in which getting only the tone marks or under dots of a letter wrong (e.g. ẹ for e)
+ * costs a quarter of an edit.
+ *
+ * The trie is loaded once the application context is up and then kept current from {@link WordIndexedEvent}
+ * and {@link WordDeletedEvent}.
+ *
+ * @author Dadepo Aderemi.
+ */
+@Component
+public class FuzzyIndex extends ListenableIndex implements ApplicationListener<ContextRefreshedEvent> {
+
+    private static final int SHORT_QUERY_LENGTH = 4;
+    private static final double MARK_EDIT_COST = 0.25;
+
+    private Logger logger = LoggerFactory.getLogger(FuzzyIndex.class);
+
+    private final WordEntryRepository wordEntryRepository;
+    private final LevenshteinTrie trie = new LevenshteinTrie();
+    private final int limit;
+
+    /**
+     * Public constructor for {@link FuzzyIndex}
+     *
+     * @param wordEntryRepository the repository the words are loaded from
+     * @param limit the maximum number of words suggested for a query
+     */
+    @Autowired
+    public FuzzyIndex(WordEntryRepository wordEntryRepository,
+                      @Value("${app.search.fuzzyLimit:10}") int limit) {
+        this.wordEntryRepository = wordEntryRepository;
+        this.limit = limit;
+    }
+
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        reload();
+    }
+
+    /**
+     * Rebuilds the whole index from the PUBLISHED entries in the database
+     */
+    public void reload() {
+        Map<String, Set<String>> keysByWord = new HashMap<>();
+        for (Object[] pair : wordEntryRepository.findWordAndVariantPairsByState(State.PUBLISHED)) {
+            Set<String> keys = keysByWord.computeIfAbsent((String) pair[0], FuzzyIndex::keysOf);
+            addKey(keys, (String) pair[1]);
+        }
+        trie.replaceAll(keysByWord);
+        logger.info("Loaded {} published words for fuzzy search", trie.size());
+    }
+
+    /**
+     * Returns the PUBLISHED words closest to the query
+     *
+     * @param query the query
+     * @return the words, closest first
+     */
+    public List<String> suggest(String query) {
+        String key = WordFolding.fold(query);
+        if (key == null || key.isEmpty()) {
+            return Collections.emptyList();
+        }
+        int maxDistance = key.length() <= SHORT_QUERY_LENGTH ? 1 : 2;
+        Map<String, Integer> found = trie.search(key, maxDistance);
+        List<String> graphemes = graphemes(query);
+        Map<String, Double> distances = new HashMap<>(found.size());
+        found.keySet().forEach(word -> distances.put(word, toneAwareDistance(graphemes, graphemes(word))));
+        return found.keySet().stream()
+                    .sorted(Comparator.<String>comparingInt(found::get)
+                                    .thenComparingDouble(distances::get)
+                                    .thenComparing(Comparator.naturalOrder()))
+                    .limit(limit)
+                    .collect(Collectors.toList());
+    }
+
+    /**
+     * Removes the given words
+     *
+     * @param words the words
+     */
+    public void remove(Collection<String> words) {
+        words.forEach(this::remove);
+    }
+
+    @Subscribe
+    public void listen(WordIndexedEvent event) {
+        String word = event.getName();
+        if (wordEntryRepository.findByWordAndState(word, State.PUBLISHED) != null) {
+            Set<String> keys = keysOf(word);
+            wordEntryRepository.findVariantWordsByWordAndState(word, State.PUBLISHED)
+                               .forEach(variant -> addKey(keys, variant));
+            trie.put(word, keys);
+        }
+        applied(word);
+    }
+
+    @Subscribe
+    public void listen(WordDeletedEvent event) {
+        remove(event.getName());
+    }
+
+    /**
+     * Edit distance between two words, split into letters with their marks, in which a letter that only
+     * differs by its marks costs a quarter of an edit
+     */
+    static double toneAwareDistance(List<String> first, List<String> second) {
+        double[][] distance = new double[first.size() + 1][second.size() + 1];
+        for (int i = 0; i <= first.size(); i++) {
+            distance[i][0] = i;
+        }
+        for (int j = 0; j <= second.size(); j++) {
+            distance[0][j] = j;
+        }
+        for (int i = 1; i <= first.size(); i++) {
+            for (int j = 1; j <= second.size(); j++) {
+                double substitution = distance[i - 1][j - 1] + cost(first.get(i - 1), second.get(j - 1));
+                distance[i][j] = Math.min(Math.min(distance[i - 1][j] + 1, distance[i][j - 1] + 1), substitution);
+                if (i > 1 && j > 1 && first.get(i - 1).equals(second.get(j - 2))
+                        && first.get(i - 2).equals(second.get(j - 1))) {
+                    distance[i][j] = Math.min(distance[i][j], distance[i - 2][j - 2] + 1);
+                }
+            }
+        }
+        return distance[first.size()][second.size()];
+    }
+
+    /**
+     * Splits a word into its lower cased letters, each together with the marks that follow it
+     */
+    static List<String> graphemes(String word) {
+        String decomposed = Normalizer.normalize(word.trim(), Normalizer.Form.NFD).toLowerCase(Locale.ROOT);
+        List<String> graphemes = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (int i = 0; i < decomposed.length(); i++) {
+            char character = decomposed.charAt(i);
+            if (current.length() > 0 && Character.getType(character) != Character.NON_SPACING_MARK) {
+                graphemes.add(current.toString());
+                current.setLength(0);
+            }
+            current.append(character);
+        }
+        if (current.length() > 0) {
+            graphemes.add(current.toString());
+        }
+        return graphemes;
+    }
+
+    //=====================================Helpers=========================================================//
+
+    private void remove(String word) {
+        trie.remove(word);
+        applied(word);
+    }
+
+    private static double cost(String first, String second) {
+        if (first.equals(second)) {
+            return 0;
+        }
+        return first.charAt(0) == second.charAt(0) ? MARK_EDIT_COST : 1;
+    }
+
+    private static Set<String> keysOf(String word) {
+        Set<String> keys = new LinkedHashSet<>();
+        addKey(keys, word);
+        return keys;
+    }
+
+    private static void addKey(Set<String> keys, String form) {
+        String folded = WordFolding.fold(form);
+        if (folded != null && !folded.isEmpty()) {
+            keys.add(folded);
+        }
+    }
+}
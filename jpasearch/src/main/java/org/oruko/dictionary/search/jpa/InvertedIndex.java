@@ -0,0 +1,244 @@
+package org.oruko.dictionary.search.jpa;
+
+import org.oruko.dictionary.model.WordFolding;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Inverted index over the texts describing each word, ranked with BM25.
+ *
+ * Texts are folded the same way words are (see {@link WordFolding}) and split into terms, so a query
+ * matches regardless of tone marks, under dots and case. Each text carries a weight that scales the
+ * frequency of its terms, which lets a match in a variant count for more than a match in an example.
+ * The last term of a query also matches the terms it is a prefix of, at half weight.
+ *
+ * @author Dadepo Aderemi.
+ */
+final class InvertedIndex {
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int MIN_PREFIX_LENGTH = 3;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final double PREFIX_WEIGHT = 0.5;
+
+    private final TreeMap<String, Map<String, Double>> postings = new TreeMap<>();
+    private final Map<String, Document> documents = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private double totalLength;
+
+    /**
+     * Adds a document, replacing the one previously held for the same word
+     *
+     * @param document the document
+     */
+    void put(Document document) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(document.word);
+            addDocument(document);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the document of the given word
+     *
+     * @param word the word
+     */
+    void remove(String word) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(word);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the whole content of the index
+     *
+     * @param newDocuments the documents
+     */
+    void replaceAll(Collection<Document> newDocuments) {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            totalLength = 0;
+            newDocuments.forEach(this::addDocument);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the words whose documents best match the query
+     *
+     * @param query the query
+     * @param limit the maximum number of words returned
+     * @return the words, best match first
+     */
+    List<String> search(String query, int limit) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        lock.readLock().lock();
+        try {
+            if (documents.isEmpty()) {
+                return Collections.emptyList();
+            }
+            Map<String, Double> scores = new HashMap<>();
+            Map<String, Double> queryTerms = expand(terms);
+            double averageLength = totalLength / documents.size();
+            queryTerms.forEach((term, weight) -> {
+                Map<String, Double> frequencies = postings.get(term);
+                double idf = Math.log(1 + (documents.size() - frequencies.size() + 0.5) / (frequencies.size() + 0.5));
+                frequencies.forEach((word, frequency) -> {
+                    double norm = K1 * (1 - B + B * documents.get(word).length / averageLength);
+                    double score = weight * idf * frequency * (K1 + 1) / (frequency + norm);
+                    scores.merge(word, score, Double::sum);
+                });
+            });
+            return top(scores, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        String folded = WordFolding.fold(text);
+        if (folded == null) {
+            return terms;
+        }
+        for (String term : SEPARATORS.split(folded)) {
+            if (!term.isEmpty()) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+
+    // ==================================================== Helpers ====================================================
+
+    private void addDocument(Document document) {
+        document.frequencies.forEach((term, frequency) ->
+                postings.computeIfAbsent(term, key -> new HashMap<>()).put(document.word, frequency));
+        documents.put(document.word, document);
+        totalLength += document.length;
+    }
+
+    private void removeDocument(String word) {
+        Document previous = documents.remove(word);
+        if (previous == null) {
+            return;
+        }
+        for (String term : previous.frequencies.keySet()) {
+            Map<String, Double> frequencies = postings.get(term);
+            frequencies.remove(word);
+            if (frequencies.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+        totalLength -= previous.length;
+    }
+
+    private Map<String, Double> expand(List<String> terms) {
+        Map<String, Double> queryTerms = new LinkedHashMap<>();
+        for (String term : terms) {
+            if (postings.containsKey(term)) {
+                queryTerms.merge(term, 1.0, Double::sum);
+            }
+        }
+        String last = terms.get(terms.size() - 1);
+        if (last.length() >= MIN_PREFIX_LENGTH) {
+            int expansions = 0;
+            for (String term : postings.subMap(last, false, last + Character.MAX_VALUE, false).keySet()) {
+                if (expansions++ == MAX_PREFIX_EXPANSIONS) {
+                    break;
+                }
+                queryTerms.putIfAbsent(term, PREFIX_WEIGHT);
+            }
+        }
+        return queryTerms;
+    }
+
+    private static List<String> top(Map<String, Double> scores, int limit) {
+        Comparator<Map.Entry<String, Double>> ranking = Map.Entry.<String, Double>comparingByValue()
+                .thenComparing(Map.Entry.<String, Double>comparingByKey().reversed());
+        // keeps the best matches, worst first, so the head is the one to drop
+        PriorityQueue<Map.Entry<String, Double>> best = new PriorityQueue<>(limit + 1, ranking);
+        for (Map.Entry<String, Double> score : scores.entrySet()) {
+            best.add(score);
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        List<String> words = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            words.add(best.poll().getKey());
+        }
+        Collections.reverse(words);
+        return words;
+    }
+
+    /**
+     * The texts describing a word, reduced to the weighted frequency of their terms
+     */
+    static final class Document {
+        private final String word;
+        private final Map<String, Double> frequencies = new HashMap<>();
+        private double length;
+
+        Document(String word) {
+            this.word = word;
+        }
+
+        /**
+         * Adds a text describing the word
+         *
+         * @param text the text, ignored if null
+         * @param weight how much a match in this text counts
+         * @return this document
+         */
+        Document add(String text, double weight) {
+            if (text == null) {
+                return this;
+            }
+            for (String term : tokenize(text)) {
+                frequencies.merge(term, weight, Double::sum);
+                length += weight;
+            }
+            return this;
+        }
+
+        String getWord() {
+            return word;
+        }
+    }
+}
@@ -1,36 +1,84 @@
 package org.oruko.dictionary.search.jpa;
 
+import org.hibernate.Hibernate;
 import org.oruko.dictionary.model.WordEntry;
 import org.oruko.dictionary.model.State;
+import org.oruko.dictionary.model.WordFolding;
+import org.oruko.dictionary.model.YorubaAlphabet;
 import org.oruko.dictionary.model.repository.WordEntryRepository;
 import org.oruko.dictionary.search.api.IndexOperationStatus;
+import org.oruko.dictionary.search.api.SearchCascade;
 import org.oruko.dictionary.search.api.SearchService;
+import org.oruko.dictionary.search.api.SearchTier;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class JpaSearchService implements SearchService {
+    private static final int STREAM_BATCH_SIZE = 500;
+
     private WordEntryRepository wordEntryRepository;
+    private AutocompleteIndex autocompleteIndex;
+    private FullTextIndex fullTextIndex;
+    private FuzzyIndex fuzzyIndex;
+    private AlphabetIndex alphabetIndex;
+    private SearchCascade searchCascade;
+    private TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
 
     @Autowired
-    public JpaSearchService(WordEntryRepository wordEntryRepository) {
+    public JpaSearchService(WordEntryRepository wordEntryRepository,
+                            AutocompleteIndex autocompleteIndex,
+                            FullTextIndex fullTextIndex,
+                            FuzzyIndex fuzzyIndex,
+                            AlphabetIndex alphabetIndex,
+                            SearchCascade searchCascade,
+                            PlatformTransactionManager transactionManager) {
         this.wordEntryRepository = wordEntryRepository;
+        this.autocompleteIndex = autocompleteIndex;
+        this.fullTextIndex = fullTextIndex;
+        this.fuzzyIndex = fuzzyIndex;
+        this.alphabetIndex = alphabetIndex;
+        this.searchCascade = searchCascade;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
     }
 
     @Override
     public WordEntry getByWord(String wordQuery) {
-        return wordEntryRepository.findByWordAndState(wordQuery, State.PUBLISHED);
+        return transactionTemplate.execute(status -> {
+            WordEntry found = wordEntryRepository.findByWordAndState(wordQuery, State.PUBLISHED);
+            if (found != null) {
+                initialize(found);
+            }
+            return found;
+        });
     }
 
     @Override
     public Set<WordEntry> search(String searchTerm) {
-        Set<WordEntry> possibleFound = new LinkedHashSet<>();
         /**
          * The following approach should be taken:
          *
@@ -43,43 +91,102 @@ public class JpaSearchService implements SearchService {
          * 5. Do a full text search against other variants. Irrespective of outcome, proceed to 6
          * 6. Do a full text search against meaning. Irrespective of outcome, proceed to 7
          * 7. Do a full text search against extendedMeaning
+         * 8. If nothing was found, suggest the words closest to the search term, i.e. "did you mean"
+         *
+         * The SearchCascade runs the steps one after the other, stopping at the first of steps 1 to 3 that finds
+         * anything. Steps 4 to 8 are answered from in memory indexes. The steps find the words only, and the entries
+         * of the words returned are loaded with their collections once the cascade is done
          */
-        WordEntry exactFound = wordEntryRepository.findByWordAndState(searchTerm, State.PUBLISHED);
-        if (exactFound != null) {
-            return Collections.singleton(exactFound);
-        }
-        Set<WordEntry> startingWithSearchTerm = wordEntryRepository.findByWordStartingWithAndState(searchTerm, State.PUBLISHED);
-        if (startingWithSearchTerm != null && startingWithSearchTerm.size() > 0) {
-            return startingWithSearchTerm;
+        List<String> words = new ArrayList<>(searchCascade.search(Arrays.asList(
+                SearchTier.untilFound(() -> {
+                    WordEntry exactFound = wordEntryRepository.findByWordAndState(searchTerm, State.PUBLISHED);
+                    return exactFound == null ? null : Collections.singleton(exactFound.getWord());
+                }),
+                SearchTier.untilFound(() -> wordsOf(wordEntryRepository.findByFoldedWordAndState(
+                        WordFolding.fold(searchTerm), State.PUBLISHED))),
+                SearchTier.untilFound(() -> wordsOf(wordEntryRepository.findByWordStartingWithAndState(
+                        searchTerm, State.PUBLISHED))),
+                SearchTier.always(() -> fullTextIndex.containing(searchTerm)),
+                SearchTier.always(() -> fullTextIndex.search(searchTerm)),
+                SearchTier.fallback(() -> fuzzyIndex.suggest(searchTerm)))));
+        return new LinkedHashSet<>(loadRanked(words));
+    }
+
+    @Override
+    public Set<WordEntry> listByAlphabet(String alphabetQuery) {
+        if (YorubaAlphabet.asLetter(alphabetQuery) != null) {
+            Set<WordEntry> found = new LinkedHashSet<>();
+            streamByAlphabet(alphabetQuery, found::add);
+            return found;
         }
+        return transactionTemplate.execute(status -> {
+            Set<WordEntry> found = wordEntryRepository.findByWordStartingWithAndState(alphabetQuery, State.PUBLISHED);
+            found.forEach(JpaSearchService::initialize);
+            return found;
+        });
+    }
 
-        possibleFound.addAll(wordEntryRepository.findWordEntryByWordContainingAndState(searchTerm, State.PUBLISHED));
-        possibleFound.addAll(wordEntryRepository.findWordEntryByVariants_wordContainingAndState(searchTerm, State.PUBLISHED));
-        possibleFound.addAll(wordEntryRepository.findWordEntryByDefinitions_contentContainingAndState(searchTerm, State.PUBLISHED));
+    @Override
+    public List<WordEntry> listByAlphabet(String alphabetQuery, int page, int count) {
+        String letter = YorubaAlphabet.asLetter(alphabetQuery);
+        if (letter != null) {
+            List<String> words = alphabetIndex.words(letter);
+            int from = (int) Math.min((long) Math.max(page - 1, 0) * count, words.size());
+            return loadRanked(words.subList(from, Math.min(from + count, words.size())));
+        }
+        PageRequest request = new PageRequest(Math.max(page - 1, 0), count, Sort.Direction.ASC, "word");
+        return transactionTemplate.execute(status -> {
+            List<WordEntry> found = wordEntryRepository.findByWordStartingWithAndState(alphabetQuery,
+                                                                                      State.PUBLISHED, request);
+            found.forEach(JpaSearchService::initialize);
+            return found;
+        });
+    }
 
-        return possibleFound;
+    @Override
+    public void streamByAlphabet(String alphabetQuery, Consumer<WordEntry> consumer) {
+        String letter = YorubaAlphabet.asLetter(alphabetQuery);
+        if (letter != null) {
+            List<String> words = alphabetIndex.words(letter);
+            for (int from = 0; from < words.size(); from += STREAM_BATCH_SIZE) {
+                loadRanked(words.subList(from, Math.min(from + STREAM_BATCH_SIZE, words.size()))).forEach(consumer);
+                entityManager.clear();
+            }
+            return;
+        }
+        // pages are keyed on the last word handed over, so a page costs the same however deep into the letter it is
+        PageRequest request = new PageRequest(0, STREAM_BATCH_SIZE, Sort.Direction.ASC, "word");
+        String after = "";
+        List<WordEntry> batch;
+        do {
+            String previous = after;
+            batch = transactionTemplate.execute(status -> {
+                List<WordEntry> found = wordEntryRepository.findByWordStartingWithAndStateAndWordGreaterThan(
+                        alphabetQuery, State.PUBLISHED, previous, request);
+                found.forEach(JpaSearchService::initialize);
+                return found;
+            });
+            batch.forEach(consumer);
+            if (!batch.isEmpty()) {
+                after = batch.get(batch.size() - 1).getWord();
+            }
+            // the entries handed over are done with, so they should not pile up in the session the request holds
+            entityManager.clear();
+        } while (batch.size() == STREAM_BATCH_SIZE);
     }
 
     @Override
-    public Set<WordEntry> listByAlphabet(String alphabetQuery) {
-        return wordEntryRepository.findByWordStartingWithAndState(alphabetQuery, State.PUBLISHED);
+    public Integer countByAlphabet(String alphabetQuery) {
+        String letter = YorubaAlphabet.asLetter(alphabetQuery);
+        if (letter != null) {
+            return alphabetIndex.count(letter);
+        }
+        return wordEntryRepository.countByWordStartingWithAndState(alphabetQuery, State.PUBLISHED);
     }
 
     @Override
     public Set<String> autocomplete(String query) {
-        Set<WordEntry> names = new LinkedHashSet<>();
-        Set<String> nameToReturn = new LinkedHashSet<>();
-        // TODO calling the db in a for loop might not be a terribly good idea. Revist
-        for (int i=2; i<query.length() + 1; i++) {
-            String searchTerm = query.substring(0, i);
-            names.addAll(wordEntryRepository.findByWordStartingWithAndState(searchTerm, State.PUBLISHED));
-        }
-        Set<WordEntry> otherParts = wordEntryRepository.findWordEntryByWordContainingAndState(query, State.PUBLISHED);
-        names.addAll(otherParts);
-        names.forEach(name -> {
-            nameToReturn.add(name.getWord());
-        });
-        return nameToReturn;
+        return new LinkedHashSet<>(autocompleteIndex.complete(query));
     }
 
     @Override
@@ -104,6 +211,10 @@ public class JpaSearchService implements SearchService {
         }
         foundName.setState(State.UNPUBLISHED);
         wordEntryRepository.save(foundName);
+        autocompleteIndex.remove(Collections.singletonList(name));
+        fullTextIndex.remove(Collections.singletonList(name));
+        fuzzyIndex.remove(Collections.singletonList(name));
+        alphabetIndex.remove(Collections.singletonList(name));
         return new IndexOperationStatus(true, name + " removed from index");
     }
 
@@ -112,30 +223,65 @@ public class JpaSearchService implements SearchService {
         if (names.size() == 0) {
             return new IndexOperationStatus(false, "Cannot index an empty list");
         }
-        List<WordEntry> nameEntries = names.stream().map(name -> wordEntryRepository.findByWordAndState(name, State.PUBLISHED))
-                .collect(Collectors.toList());
+        return unpublish(names, EnumSet.of(State.PUBLISHED));
+    }
+
+    @Override
+    public IndexOperationStatus bulkRemoveFromIndex(List<WordEntry> nameEntries) {
+        return bulkRemoveWordsFromIndex(wordsOf(nameEntries));
+    }
 
+    @Override
+    public IndexOperationStatus bulkRemoveWordsFromIndex(List<String> words) {
+        return unpublish(words, EnumSet.complementOf(EnumSet.of(State.UNPUBLISHED)));
+    }
 
-        List<WordEntry> namesUnpublished = nameEntries.stream().map(name -> {
-            name.setState(State.UNPUBLISHED);
-            return name;
-        }).collect(Collectors.toList());
+    //=====================================Helpers=========================================================//
 
-        wordEntryRepository.save(namesUnpublished);
+    // a single update statement, in a single transaction, however many words and states, instead of loading and
+    // saving back every entry
+    private IndexOperationStatus unpublish(List<String> words, Set<State> from) {
+        wordEntryRepository.updateStateByWordInAndStateIn(words, from, State.UNPUBLISHED);
+        autocompleteIndex.remove(words);
+        fullTextIndex.remove(words);
+        fuzzyIndex.remove(words);
+        alphabetIndex.remove(words);
         return new IndexOperationStatus(true, "Successfully. "
                 + "Removed the following names from search index "
-                + String.join(",", names));
+                + String.join(",", words));
     }
 
-    @Override
-    public IndexOperationStatus bulkRemoveFromIndex(List<WordEntry> nameEntries) {
-        List<WordEntry> namesUnpublished = nameEntries.stream()
-                .peek(name -> name.setState(State.UNPUBLISHED))
-                .collect(Collectors.toList());
+    private static List<String> wordsOf(Collection<WordEntry> entries) {
+        return entries.stream().map(WordEntry::getWord).collect(Collectors.toList());
+    }
 
-        wordEntryRepository.save(namesUnpublished);
-        return new IndexOperationStatus(true, "Successfully. "
-                + "Removed the following names from search index "
-                + String.join(",", nameEntries.stream().map(WordEntry::getWord).collect(Collectors.toList())));
+    // entries returned by this service can outlive the request, i.e. be cached, so their collections are loaded
+    private static void initialize(WordEntry entry) {
+        Hibernate.initialize(entry.getVariants());
+        Hibernate.initialize(entry.getGeoLocation());
+        Hibernate.initialize(entry.getEtymology());
+        Hibernate.initialize(entry.getMediaLinks());
+        Hibernate.initialize(entry.getDefinitions());
+        if (entry.getDefinitions() != null) {
+            entry.getDefinitions().forEach(definition -> Hibernate.initialize(definition.getExamples()));
+        }
+    }
+
+    private List<WordEntry> loadRanked(List<String> words) {
+        return transactionTemplate.execute(status -> {
+            List<WordEntry> found = findRanked(words);
+            found.forEach(JpaSearchService::initialize);
+            return found;
+        });
+    }
+
+    // loads the PUBLISHED entries of the given words, keeping the order of the words
+    private List<WordEntry> findRanked(List<String> words) {
+        if (words.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<String, WordEntry> entries = wordEntryRepository.findByWordInAndState(words, State.PUBLISHED).stream()
+                .collect(Collectors.toMap(WordEntry::getWord, Function.identity()));
+        return words.stream().map(entries::get).filter(Objects::nonNull).collect(Collectors.toList());
     }
 }
@@ -0,0 +1,219 @@
+package org.oruko.dictionary.search.jpa;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Trie of keys that finds every key within a given edit distance of a query in a single walk.
+ *
+ * The walk carries one row of the edit distance matrix per trie level, the way a Levenshtein automaton
+ * would, and leaves a subtree as soon as no key below it can be within the distance. Insertions,
+ * deletions, substitutions and transpositions of adjacent characters each count as one edit.
+ *
+ * A word can be reached through several keys (e.g. its variants).
+ *
+ * @author Dadepo Aderemi.
+ */
+final class LevenshteinTrie {
+
+    private static final String[] NO_WORDS = new String[0];
+
+    private final Node root = new Node();
+    private final Map<String, Set<String>> keysByWord = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Adds a word reachable through the given keys, replacing the keys previously held for it
+     *
+     * @param word the word
+     * @param keys the keys, already normalized, that lead to the word
+     */
+    void put(String word, Collection<String> keys) {
+        lock.writeLock().lock();
+        try {
+            removeWord(word);
+            addWord(word, keys);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a word and all the keys leading to it
+     *
+     * @param word the word
+     */
+    void remove(String word) {
+        lock.writeLock().lock();
+        try {
+            removeWord(word);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the whole content of the trie
+     *
+     * @param keysByNewWord the words mapped to the keys that lead to them
+     */
+    void replaceAll(Map<String, ? extends Collection<String>> keysByNewWord) {
+        lock.writeLock().lock();
+        try {
+            root.labels = new char[0];
+            root.children = new Node[0];
+            root.words = NO_WORDS;
+            keysByWord.clear();
+            keysByNewWord.forEach(this::addWord);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the words with a key within the given edit distance of the query
+     *
+     * @param query the query, already normalized the same way the keys were
+     * @param maxDistance the maximum number of edits
+     * @return the words found, mapped to the distance of their closest key
+     */
+    Map<String, Integer> search(String query, int maxDistance) {
+        Map<String, Integer> found = new HashMap<>();
+        int[] firstRow = new int[query.length() + 1];
+        for (int i = 0; i < firstRow.length; i++) {
+            firstRow[i] = i;
+        }
+        lock.readLock().lock();
+        try {
+            for (int i = 0; i < root.labels.length; i++) {
+                walk(root.children[i], root.labels[i], (char) 0, query, firstRow, null, maxDistance, found);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return found;
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return keysByWord.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ==================================================== Helpers ====================================================
+
+    private void walk(Node node, char label, char previousLabel, String query, int[] previousRow,
+                      int[] rowBeforePrevious, int maxDistance, Map<String, Integer> found) {
+        int[] row = new int[previousRow.length];
+        row[0] = previousRow[0] + 1;
+        int smallest = row[0];
+        for (int i = 1; i < row.length; i++) {
+            char queried = query.charAt(i - 1);
+            int substitution = previousRow[i - 1] + (queried == label ? 0 : 1);
+            row[i] = Math.min(Math.min(row[i - 1] + 1, previousRow[i] + 1), substitution);
+            if (rowBeforePrevious != null && i > 1 && queried == previousLabel && query.charAt(i - 2) == label) {
+                row[i] = Math.min(row[i], rowBeforePrevious[i - 2] + 1);
+            }
+            smallest = Math.min(smallest, row[i]);
+        }
+
+        int distance = row[row.length - 1];
+        if (distance <= maxDistance) {
+            for (String word : node.words) {
+                found.merge(word, distance, Math::min);
+            }
+        }
+
+        // a transposition can still bring the next row back within the distance
+        int smallestBefore = Integer.MAX_VALUE;
+        for (int value : previousRow) {
+            smallestBefore = Math.min(smallestBefore, value);
+        }
+        if (smallest <= maxDistance || smallestBefore + 1 <= maxDistance) {
+            for (int i = 0; i < node.labels.length; i++) {
+                walk(node.children[i], node.labels[i], label, query, row, previousRow, maxDistance, found);
+            }
+        }
+    }
+
+    private void addWord(String word, Collection<String> keys) {
+        Set<String> uniqueKeys = new LinkedHashSet<>(keys);
+        for (String key : uniqueKeys) {
+            Node node = root;
+            for (int i = 0; i < key.length(); i++) {
+                node = node.childOrCreate(key.charAt(i));
+            }
+            node.words = Arrays.copyOf(node.words, node.words.length + 1);
+            node.words[node.words.length - 1] = word;
+        }
+        keysByWord.put(word, uniqueKeys);
+    }
+
+    private void removeWord(String word) {
+        Set<String> keys = keysByWord.remove(word);
+        if (keys == null) {
+            return;
+        }
+        for (String key : keys) {
+            remove(root, key, 0, word);
+        }
+    }
+
+    // returns whether the node holds nothing anymore
+    private boolean remove(Node node, String key, int depth, String word) {
+        if (depth == key.length()) {
+            node.words = Arrays.stream(node.words).filter(held -> !held.equals(word)).toArray(String[]::new);
+        } else {
+            int position = Arrays.binarySearch(node.labels, key.charAt(depth));
+            if (position >= 0 && remove(node.children[position], key, depth + 1, word)) {
+                node.removeChild(position);
+            }
+        }
+        return node.words.length == 0 && node.children.length == 0;
+    }
+
+    private static final class Node {
+        char[] labels = new char[0];
+        Node[] children = new Node[0];
+        String[] words = NO_WORDS;
+
+        Node childOrCreate(char label) {
+            int position = Arrays.binarySearch(labels, label);
+            if (position >= 0) {
+                return children[position];
+            }
+            int insertAt = -position - 1;
+            char[] newLabels = new char[labels.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(labels, 0, newLabels, 0, insertAt);
+            System.arraycopy(children, 0, newChildren, 0, insertAt);
+            newLabels[insertAt] = label;
+            newChildren[insertAt] = new Node();
+            System.arraycopy(labels, insertAt, newLabels, insertAt + 1, labels.length - insertAt);
+            System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+            labels = newLabels;
+            children = newChildren;
+            return newChildren[insertAt];
+        }
+
+        void removeChild(int position) {
+            char[] newLabels = new char[labels.length - 1];
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(labels, 0, newLabels, 0, position);
+            System.arraycopy(children, 0, newChildren, 0, position);
+            System.arraycopy(labels, position + 1, newLabels, position, newLabels.length - position);
+            System.arraycopy(children, position + 1, newChildren, position, newChildren.length - position);
+            labels = newLabels;
+            children = newChildren;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package org.oruko.dictionary.search.jpa;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * An in memory index kept current from the {@link org.oruko.dictionary.events.WordIndexedEvent}s and
+ * {@link org.oruko.dictionary.events.WordDeletedEvent}s, which tells its listeners of each word once the change to
+ * it has been applied. The events are handled by every index on a thread of its own, so what is read from the
+ * indexes before then may not show the change yet.
+ *
+ * @author Dadepo Aderemi.
+ */
+public abstract class ListenableIndex {
+
+    private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Adds a listener told of each word whose change the index has applied
+     *
+     * @param listener the listener
+     */
+    public void addListener(Consumer<String> listener) {
+        listeners.add(listener);
+    }
+
+    protected void applied(String word) {
+        listeners.forEach(listener -> listener.accept(word));
+    }
+}
@@ -0,0 +1,171 @@
+package org.oruko.dictionary.search.jpa;
+
+import org.oruko.dictionary.model.WordFolding;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Finds the words that contain a query, without a leading wildcard LIKE query that scans every row.
+ *
+ * Words are folded (see {@link WordFolding}) and their trigrams are posted to the words they occur in. The words
+ * containing a query are then among those in the postings of every trigram of the query, starting with the
+ * shortest postings, and only those are checked. A query shorter than a trigram is checked against every word,
+ * which are all in memory.
+ *
+ * @author Dadepo Aderemi.
+ */
+final class NgramIndex {
+
+    static final int GRAM_LENGTH = 3;
+
+    private final Map<String, Set<String>> postings = new HashMap<>();
+    // the folded form of each word
+    private final Map<String, String> words = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Adds a word
+     *
+     * @param word the word
+     */
+    void put(String word) {
+        lock.writeLock().lock();
+        try {
+            removeWord(word);
+            addWord(word);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a word
+     *
+     * @param word the word
+     */
+    void remove(String word) {
+        lock.writeLock().lock();
+        try {
+            removeWord(word);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the whole content of the index
+     *
+     * @param newWords the words
+     */
+    void replaceAll(Collection<String> newWords) {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            words.clear();
+            newWords.forEach(this::addWord);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the words that contain the query, ignoring case and tone marks
+     *
+     * @param query the query
+     * @param limit the maximum number of words returned
+     * @return the words, shortest first
+     */
+    List<String> containing(String query, int limit) {
+        String folded = WordFolding.fold(query);
+        if (folded == null || folded.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        List<String> found = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (String word : candidates(folded)) {
+                if (words.get(word).contains(folded)) {
+                    found.add(word);
+                }
+            }
+            found.sort(Comparator.comparing((String word) -> words.get(word).length())
+                                 .thenComparing(Comparator.naturalOrder()));
+        } finally {
+            lock.readLock().unlock();
+        }
+        return found.size() > limit ? new ArrayList<>(found.subList(0, limit)) : found;
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return words.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ==================================================== Helpers ====================================================
+
+    private Collection<String> candidates(String folded) {
+        if (folded.length() < GRAM_LENGTH) {
+            return words.keySet();
+        }
+        List<Set<String>> matching = new ArrayList<>();
+        for (String gram : gramsOf(folded)) {
+            Set<String> posted = postings.get(gram);
+            if (posted == null) {
+                return Collections.emptySet();
+            }
+            matching.add(posted);
+        }
+        matching.sort(Comparator.comparing(Set::size));
+        Set<String> candidates = new HashSet<>(matching.get(0));
+        for (int i = 1; i < matching.size() && !candidates.isEmpty(); i++) {
+            candidates.retainAll(matching.get(i));
+        }
+        return candidates;
+    }
+
+    private void addWord(String word) {
+        String folded = WordFolding.fold(word);
+        if (folded == null) {
+            return;
+        }
+        words.put(word, folded);
+        gramsOf(folded).forEach(gram -> postings.computeIfAbsent(gram, key -> new HashSet<>()).add(word));
+    }
+
+    private void removeWord(String word) {
+        String folded = words.remove(word);
+        if (folded == null) {
+            return;
+        }
+        for (String gram : gramsOf(folded)) {
+            Set<String> posted = postings.get(gram);
+            posted.remove(word);
+            if (posted.isEmpty()) {
+                postings.remove(gram);
+            }
+        }
+    }
+
+    private static Set<String> gramsOf(String folded) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= folded.length(); i++) {
+            grams.add(folded.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+}
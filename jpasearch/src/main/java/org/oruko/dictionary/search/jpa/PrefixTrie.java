@@ -0,0 +1,338 @@
+package org.oruko.dictionary.search.jpa;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Prefix trie used to answer autocomplete queries in a single walk down the trie.
+ *
+ * Every node keeps the best ranked words found below it, so completing a prefix never needs to visit
+ * the subtree. Words are ranked by popularity, then by length and then alphabetically. A word can be
+ * reached through several keys (e.g. its variants), all of which complete to the word itself.
+ *
+ * Nodes are immutable and updates copy only the path they touch, so lookups run without locking
+ * against a consistent root while a single writer updates the trie.
+ *
+ * @author Dadepo Aderemi.
+ */
+final class PrefixTrie {
+
+    private static final Suggestion[] NO_SUGGESTIONS = new Suggestion[0];
+
+    private static final Comparator<Suggestion> RANKING = Comparator
+            .comparingLong((Suggestion suggestion) -> -suggestion.popularity)
+            .thenComparingInt(suggestion -> suggestion.word.length())
+            .thenComparing(suggestion -> suggestion.word);
+
+    private final int limit;
+    private final Map<String, Suggestion> suggestions = new HashMap<>();
+    private final Map<String, Set<String>> keysByWord = new HashMap<>();
+    private volatile Node root = Node.EMPTY;
+
+    /**
+     * @param limit the number of words kept, and thus returned, per prefix
+     */
+    PrefixTrie(int limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * Returns the best ranked words reachable from the given prefix
+     *
+     * @param prefix the prefix, already normalized the same way the keys were
+     * @return the words, best ranked first
+     */
+    List<String> complete(String prefix) {
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.child(prefix.charAt(i));
+        }
+        if (node == null) {
+            return Collections.emptyList();
+        }
+        List<String> words = new ArrayList<>(node.top.length);
+        for (Suggestion suggestion : node.top) {
+            words.add(suggestion.word);
+        }
+        return words;
+    }
+
+    /**
+     * Adds a word reachable through the given keys, replacing the keys previously held for it.
+     * The popularity of the word is kept
+     *
+     * @param word the word suggested
+     * @param keys the keys, already normalized, that lead to the word
+     */
+    synchronized void put(String word, Collection<String> keys) {
+        Suggestion previous = suggestions.get(word);
+        long popularity = previous == null ? 0 : previous.popularity;
+        remove(word);
+        Suggestion suggestion = new Suggestion(word, popularity);
+        Set<String> uniqueKeys = new LinkedHashSet<>(keys);
+        Node newRoot = root;
+        for (String key : uniqueKeys) {
+            newRoot = insert(newRoot, key, 0, suggestion);
+        }
+        suggestions.put(word, suggestion);
+        keysByWord.put(word, uniqueKeys);
+        root = newRoot;
+    }
+
+    /**
+     * Removes a word and all the keys leading to it
+     *
+     * @param word the word to remove
+     */
+    synchronized void remove(String word) {
+        Suggestion suggestion = suggestions.remove(word);
+        Set<String> keys = keysByWord.remove(word);
+        if (suggestion == null) {
+            return;
+        }
+        Node newRoot = root;
+        for (String key : keys) {
+            newRoot = deleteFromRoot(newRoot, key, word);
+        }
+        root = newRoot;
+    }
+
+    /**
+     * Bumps the popularity of a word already in the trie. Unknown words are ignored
+     *
+     * @param word the word
+     */
+    synchronized void increment(String word) {
+        Suggestion previous = suggestions.get(word);
+        if (previous == null) {
+            return;
+        }
+        Set<String> keys = keysByWord.get(word);
+        Suggestion suggestion = new Suggestion(word, previous.popularity + 1);
+        Node newRoot = root;
+        for (String key : keys) {
+            newRoot = insert(newRoot, key, 0, suggestion);
+        }
+        suggestions.put(word, suggestion);
+        root = newRoot;
+    }
+
+    /**
+     * Replaces the whole content of the trie. Popularity of words already known is kept
+     *
+     * @param keysByNewWord the words mapped to the keys that lead to them
+     */
+    synchronized void replaceAll(Map<String, ? extends Collection<String>> keysByNewWord) {
+        Map<String, Suggestion> previous = new HashMap<>(suggestions);
+        suggestions.clear();
+        keysByWord.clear();
+        Builder builder = new Builder();
+        for (Map.Entry<String, ? extends Collection<String>> entry : keysByNewWord.entrySet()) {
+            String word = entry.getKey();
+            Suggestion known = previous.get(word);
+            Suggestion suggestion = new Suggestion(word, known == null ? 0 : known.popularity);
+            Set<String> uniqueKeys = new LinkedHashSet<>(entry.getValue());
+            uniqueKeys.forEach(key -> builder.add(key, suggestion));
+            suggestions.put(word, suggestion);
+            keysByWord.put(word, uniqueKeys);
+        }
+        // built bottom up so the ranking of every node is computed once
+        root = build(builder);
+    }
+
+    synchronized int size() {
+        return suggestions.size();
+    }
+
+    // ==================================================== Helpers ====================================================
+
+    private Node insert(Node node, String key, int depth, Suggestion suggestion) {
+        if (depth == key.length()) {
+            // replaces the word if it is already held here
+            List<Suggestion> terminals = new ArrayList<>(node.terminals.length + 1);
+            for (Suggestion terminal : node.terminals) {
+                if (!terminal.word.equals(suggestion.word)) {
+                    terminals.add(terminal);
+                }
+            }
+            terminals.add(suggestion);
+            return node(node.labels, node.children, terminals.toArray(new Suggestion[terminals.size()]));
+        }
+        char label = key.charAt(depth);
+        Node child = node.child(label);
+        Node newChild = insert(child == null ? Node.EMPTY : child, key, depth + 1, suggestion);
+        return withChild(node, label, newChild);
+    }
+
+    private Node deleteFromRoot(Node node, String key, String word) {
+        Node updated = delete(node, key, 0, word);
+        return updated == null ? Node.EMPTY : updated;
+    }
+
+    // returns null when the node ends up holding nothing
+    private Node delete(Node node, String key, int depth, String word) {
+        if (depth == key.length()) {
+            Suggestion[] terminals = Arrays.stream(node.terminals)
+                                           .filter(terminal -> !terminal.word.equals(word))
+                                           .toArray(Suggestion[]::new);
+            return terminals.length == 0 && node.children.length == 0
+                    ? null : node(node.labels, node.children, terminals);
+        }
+        char label = key.charAt(depth);
+        Node child = node.child(label);
+        if (child == null) {
+            return node;
+        }
+        Node newChild = delete(child, key, depth + 1, word);
+        Node updated = withChild(node, label, newChild);
+        return updated.terminals.length == 0 && updated.children.length == 0 ? null : updated;
+    }
+
+    private Node withChild(Node node, char label, Node newChild) {
+        int position = Arrays.binarySearch(node.labels, label);
+        char[] labels;
+        Node[] children;
+        if (position >= 0 && newChild != null) {
+            labels = node.labels;
+            children = node.children.clone();
+            children[position] = newChild;
+        } else if (position >= 0) {
+            labels = new char[node.labels.length - 1];
+            children = new Node[node.children.length - 1];
+            System.arraycopy(node.labels, 0, labels, 0, position);
+            System.arraycopy(node.children, 0, children, 0, position);
+            System.arraycopy(node.labels, position + 1, labels, position, labels.length - position);
+            System.arraycopy(node.children, position + 1, children, position, children.length - position);
+        } else if (newChild != null) {
+            int insertAt = -position - 1;
+            labels = new char[node.labels.length + 1];
+            children = new Node[node.children.length + 1];
+            System.arraycopy(node.labels, 0, labels, 0, insertAt);
+            System.arraycopy(node.children, 0, children, 0, insertAt);
+            labels[insertAt] = label;
+            children[insertAt] = newChild;
+            System.arraycopy(node.labels, insertAt, labels, insertAt + 1, node.labels.length - insertAt);
+            System.arraycopy(node.children, insertAt, children, insertAt + 1, node.children.length - insertAt);
+        } else {
+            return node;
+        }
+        return node(labels, children, node.terminals);
+    }
+
+    private Node node(char[] labels, Node[] children, Suggestion[] terminals) {
+        // a node on a chain shares the ranking of its only child, which keeps long words cheap to hold
+        if (terminals.length == 0 && children.length == 1) {
+            return new Node(labels, children, NO_SUGGESTIONS, children[0].top);
+        }
+        // every child already holds its best words in rank order, so merging the heads is enough
+        PriorityQueue<Cursor> heads = new PriorityQueue<>(children.length + 1,
+                                                          (left, right) -> RANKING.compare(left.head(), right.head()));
+        if (terminals.length > 0) {
+            Suggestion[] sortedTerminals = terminals.clone();
+            Arrays.sort(sortedTerminals, RANKING);
+            heads.add(new Cursor(sortedTerminals));
+        }
+        for (Node child : children) {
+            if (child.top.length > 0) {
+                heads.add(new Cursor(child.top));
+            }
+        }
+        List<Suggestion> top = new ArrayList<>(limit);
+        Set<String> seen = new HashSet<>();
+        while (top.size() < limit && !heads.isEmpty()) {
+            Cursor cursor = heads.poll();
+            Suggestion head = cursor.head();
+            if (seen.add(head.word)) {
+                top.add(head);
+            }
+            if (cursor.advance()) {
+                heads.add(cursor);
+            }
+        }
+        return new Node(labels, children, terminals, top.toArray(new Suggestion[top.size()]));
+    }
+
+    private Node build(Builder builder) {
+        char[] labels = new char[builder.children.size()];
+        Node[] children = new Node[builder.children.size()];
+        int i = 0;
+        for (Map.Entry<Character, Builder> child : builder.children.entrySet()) {
+            labels[i] = child.getKey();
+            children[i] = build(child.getValue());
+            i++;
+        }
+        return node(labels, children, builder.terminals.toArray(new Suggestion[builder.terminals.size()]));
+    }
+
+    private static final class Cursor {
+        final Suggestion[] ranked;
+        int position;
+
+        Cursor(Suggestion[] ranked) {
+            this.ranked = ranked;
+        }
+
+        Suggestion head() {
+            return ranked[position];
+        }
+
+        boolean advance() {
+            return ++position < ranked.length;
+        }
+    }
+
+    private static final class Builder {
+        final TreeMap<Character, Builder> children = new TreeMap<>();
+        final List<Suggestion> terminals = new ArrayList<>();
+
+        void add(String key, Suggestion suggestion) {
+            Builder current = this;
+            for (int i = 0; i < key.length(); i++) {
+                current = current.children.computeIfAbsent(key.charAt(i), label -> new Builder());
+            }
+            current.terminals.add(suggestion);
+        }
+    }
+
+    private static final class Node {
+        static final Node EMPTY = new Node(new char[0], new Node[0], NO_SUGGESTIONS, NO_SUGGESTIONS);
+
+        final char[] labels;
+        final Node[] children;
+        final Suggestion[] terminals;
+        final Suggestion[] top;
+
+        Node(char[] labels, Node[] children, Suggestion[] terminals, Suggestion[] top) {
+            this.labels = labels;
+            this.children = children;
+            this.terminals = terminals;
+            this.top = top;
+        }
+
+        Node child(char label) {
+            int position = Arrays.binarySearch(labels, label);
+            return position < 0 ? null : children[position];
+        }
+    }
+
+    private static final class Suggestion {
+        final String word;
+        final long popularity;
+
+        Suggestion(String word, long popularity) {
+            this.word = word;
+            this.popularity = popularity;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package org.oruko.dictionary.search.jpa;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.oruko.dictionary.model.YorubaAlphabet;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests {@link AlphabetIndex} and the letters of {@link YorubaAlphabet}
+ *
+ * @author Dadepo Aderemi.
+ */
+public class AlphabetIndexTest {
+
+    private AlphabetIndex alphabetIndex;
+
+    @Before
+    public void setUp() {
+        alphabetIndex = new AlphabetIndex(null);
+        alphabetIndex.replaceAll(Arrays.asList("Gbénga", "Gbádé", "Gbọ́láhàn", "Gàníyù", "Ẹniọlá", "Èbùn",
+                                               "Ọlá", "Ọ̀ṣun", "Ṣadé", "Sàdé", "Xavier"));
+    }
+
+    @Test
+    public void test_letter_of_word() {
+        assertEquals("gb", YorubaAlphabet.letterOf("Gbénga"));
+        assertEquals("g", YorubaAlphabet.letterOf("Gàníyù"));
+        assertEquals("ẹ", YorubaAlphabet.letterOf("Ẹ̀kọ́"));
+        assertEquals("e", YorubaAlphabet.letterOf("Èbùn"));
+        assertEquals("ọ", YorubaAlphabet.letterOf("Ọ̀ṣun"));
+        assertEquals("ṣ", YorubaAlphabet.letterOf("Ṣadé"));
+        assertNull(YorubaAlphabet.letterOf("Xavier"));
+    }
+
+    @Test
+    public void test_words_are_bucketed_by_letter_in_alphabetical_order() {
+        assertEquals(Arrays.asList("Gbádé", "Gbénga", "Gbọ́láhàn"), alphabetIndex.words("gb"));
+        assertEquals(Collections.singletonList("Gàníyù"), alphabetIndex.words("g"));
+        assertEquals(Collections.singletonList("Ẹniọlá"), alphabetIndex.words("ẹ"));
+        assertEquals(Collections.singletonList("Èbùn"), alphabetIndex.words("e"));
+        assertEquals(Arrays.asList("Ọlá", "Ọ̀ṣun"), alphabetIndex.words("ọ"));
+        assertEquals(2, alphabetIndex.count("ọ"));
+        assertEquals(0, alphabetIndex.count("o"));
+    }
+
+    @Test
+    public void test_changes_replace_buckets_without_changing_snapshots() {
+        List<String> before = alphabetIndex.words("gb");
+
+        alphabetIndex.put("Gbàdàmọ́sí");
+        alphabetIndex.put("Gbàdàmọ́sí");
+        alphabetIndex.remove(Collections.singletonList("Gbénga"));
+
+        assertEquals(Arrays.asList("Gbàdàmọ́sí", "Gbádé", "Gbọ́láhàn"), alphabetIndex.words("gb"));
+        assertEquals(3, before.size());
+        assertEquals("Gbénga", before.get(1));
+    }
+
+    @Test
+    public void test_alphabet_is_normalized_to_a_letter() {
+        assertEquals("gb", YorubaAlphabet.asLetter("GB"));
+        assertEquals("ẹ", YorubaAlphabet.asLetter("Ẹ"));
+        assertNull(YorubaAlphabet.asLetter("ab"));
+        assertEquals(Collections.singletonList("gb"), YorubaAlphabet.longerLetters("g"));
+    }
+}
@@ -0,0 +1,61 @@
+package org.oruko.dictionary.search.jpa;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link InvertedIndex}
+ *
+ * @author Dadepo Aderemi.
+ */
+public class InvertedIndexTest {
+
+    private InvertedIndex index;
+
+    @Before
+    public void setUp() {
+        index = new InvertedIndex();
+        index.replaceAll(Arrays.asList(
+                new InvertedIndex.Document("Adé").add("crown", 2).add("The crown has arrived", 1),
+                new InvertedIndex.Document("Adéwálé").add("the crown has come home", 2),
+                new InvertedIndex.Document("Olúwadé").add("God has arrived", 2).add("Oluwade", 3)));
+    }
+
+    @Test
+    public void test_best_match_comes_first() {
+        assertEquals(Arrays.asList("Adé", "Adéwálé"), index.search("crown", 10));
+        assertEquals(Arrays.asList("Olúwadé", "Adé"), index.search("God arrived", 10));
+    }
+
+    @Test
+    public void test_search_ignores_tone_marks_and_case() {
+        assertEquals(Collections.singletonList("Olúwadé"), index.search("OLÚWADÉ", 10));
+    }
+
+    @Test
+    public void test_last_term_matches_as_prefix() {
+        assertEquals(Arrays.asList("Adé", "Adéwálé"), index.search("cro", 10));
+        assertTrue(index.search("cr", 10).isEmpty());
+    }
+
+    @Test
+    public void test_result_is_limited() {
+        assertEquals(Collections.singletonList("Adé"), index.search("crown", 1));
+    }
+
+    @Test
+    public void test_put_replaces_and_remove_drops_document() {
+        index.put(new InvertedIndex.Document("Adé").add("king", 2));
+        assertEquals(Collections.singletonList("Adéwálé"), index.search("crown", 10));
+
+        index.remove("Adéwálé");
+        assertTrue(index.search("crown", 10).isEmpty());
+        assertEquals(2, index.size());
+    }
+}
@@ -0,0 +1,68 @@
+package org.oruko.dictionary.search.jpa;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link LevenshteinTrie} and the tone aware ranking of {@link FuzzyIndex}
+ *
+ * @author Dadepo Aderemi.
+ */
+public class LevenshteinTrieTest {
+
+    private LevenshteinTrie trie;
+
+    @Before
+    public void setUp() {
+        trie = new LevenshteinTrie();
+        Map<String, List<String>> keysByWord = new HashMap<>();
+        keysByWord.put("Bọ́lánlé", Collections.singletonList("bolanle"));
+        keysByWord.put("Adé", Collections.singletonList("ade"));
+        keysByWord.put("Adébáyọ̀", Arrays.asList("adebayo", "debayo"));
+        trie.replaceAll(keysByWord);
+    }
+
+    @Test
+    public void test_words_within_distance_are_found() {
+        Map<String, Integer> found = trie.search("bolanli", 2);
+        assertEquals(Collections.singletonMap("Bọ́lánlé", 1), found);
+        assertTrue(trie.search("bolanli", 0).isEmpty());
+    }
+
+    @Test
+    public void test_transposition_counts_as_one_edit() {
+        assertEquals(Collections.singletonMap("Bọ́lánlé", 1), trie.search("bolalne", 1));
+    }
+
+    @Test
+    public void test_closest_key_of_a_word_is_used() {
+        assertEquals(Integer.valueOf(1), trie.search("debay", 1).get("Adébáyọ̀"));
+    }
+
+    @Test
+    public void test_removed_words_are_no_longer_found() {
+        trie.remove("Adébáyọ̀");
+        assertTrue(trie.search("debayo", 2).isEmpty());
+        assertEquals(2, trie.size());
+
+        trie.put("Adébáyọ̀", Collections.singletonList("adebayo"));
+        assertTrue(trie.search("debayo", 1).containsKey("Adébáyọ̀"));
+        assertEquals(3, trie.size());
+    }
+
+    @Test
+    public void test_wrong_tone_marks_cost_less_than_wrong_letters() {
+        List<String> query = FuzzyIndex.graphemes("Bolánlé");
+        assertEquals(0.25, FuzzyIndex.toneAwareDistance(query, FuzzyIndex.graphemes("Bọ́lánlé")), 0.001);
+        assertEquals(1, FuzzyIndex.toneAwareDistance(query, FuzzyIndex.graphemes("Bolánla")), 0.001);
+    }
+}
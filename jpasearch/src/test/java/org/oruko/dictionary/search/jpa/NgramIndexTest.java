@@ -0,0 +1,58 @@
+package org.oruko.dictionary.search.jpa;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link NgramIndex}
+ *
+ * @author Dadepo Aderemi.
+ */
+public class NgramIndexTest {
+
+    private NgramIndex index;
+
+    @Before
+    public void setUp() {
+        index = new NgramIndex();
+        index.replaceAll(Arrays.asList("Adé", "Adéwálé", "Olúwadé", "Bọ́lánlé"));
+    }
+
+    @Test
+    public void test_words_containing_the_query_are_found_shortest_first() {
+        assertEquals(Arrays.asList("Adé", "Adéwálé", "Olúwadé"), index.containing("ade", 10));
+        assertEquals(Collections.singletonList("Bọ́lánlé"), index.containing("LANL", 10));
+    }
+
+    @Test
+    public void test_queries_shorter_than_a_gram_are_found_too() {
+        assertEquals(Arrays.asList("Adé", "Adéwálé", "Olúwadé"), index.containing("dé", 10));
+    }
+
+    @Test
+    public void test_words_are_checked_against_the_whole_query() {
+        assertEquals(Collections.singletonList("Adéwálé"), index.containing("wale", 10));
+        // every gram of the query is in one of the words, but no word has them all
+        assertTrue(index.containing("wadew", 10).isEmpty());
+    }
+
+    @Test
+    public void test_result_is_limited() {
+        assertEquals(Collections.singletonList("Adé"), index.containing("ade", 1));
+    }
+
+    @Test
+    public void test_put_and_remove_keep_the_index_current() {
+        index.remove("Adé");
+        index.put("Ṣadé");
+
+        assertEquals(Arrays.asList("Ṣadé", "Adéwálé", "Olúwadé"), index.containing("ade", 10));
+        assertEquals(4, index.size());
+    }
+}
@@ -0,0 +1,72 @@
+package org.oruko.dictionary.search.jpa;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link PrefixTrie}
+ *
+ * @author Dadepo Aderemi.
+ */
+public class PrefixTrieTest {
+
+    private PrefixTrie trie;
+
+    @Before
+    public void setUp() {
+        trie = new PrefixTrie(2);
+        Map<String, List<String>> keysByWord = new HashMap<>();
+        keysByWord.put("Adébáyọ̀", Collections.singletonList("adebayo"));
+        keysByWord.put("Adé", Collections.singletonList("ade"));
+        keysByWord.put("Adéwálé", Collections.singletonList("adewale"));
+        keysByWord.put("Olúwadé", Arrays.asList("oluwade", "dele"));
+        trie.replaceAll(keysByWord);
+    }
+
+    @Test
+    public void test_shorter_words_come_first_when_equally_popular() {
+        assertEquals(Arrays.asList("Adé", "Adéwálé"), trie.complete("ade"));
+        assertTrue(trie.complete("x").isEmpty());
+    }
+
+    @Test
+    public void test_popular_words_come_first() {
+        trie.increment("Adéwálé");
+
+        assertEquals(Arrays.asList("Adéwálé", "Adé"), trie.complete("ad"));
+    }
+
+    @Test
+    public void test_word_is_reachable_through_all_its_keys() {
+        assertEquals(Collections.singletonList("Olúwadé"), trie.complete("de"));
+        assertEquals(Collections.singletonList("Olúwadé"), trie.complete("olu"));
+    }
+
+    @Test
+    public void test_put_replaces_keys_and_keeps_popularity() {
+        trie.increment("Olúwadé");
+        trie.put("Olúwadé", Collections.singletonList("oluwade"));
+
+        assertTrue(trie.complete("de").isEmpty());
+        assertEquals(Collections.singletonList("Olúwadé"), trie.complete("o"));
+        trie.put("Ọlá", Collections.singletonList("ola"));
+        assertEquals(Arrays.asList("Olúwadé", "Ọlá"), trie.complete("ol"));
+    }
+
+    @Test
+    public void test_remove_drops_word_from_all_prefixes() {
+        trie.remove("Adé");
+
+        assertEquals(Arrays.asList("Adéwálé", "Adébáyọ̀"), trie.complete("a"));
+        assertEquals(3, trie.size());
+    }
+}
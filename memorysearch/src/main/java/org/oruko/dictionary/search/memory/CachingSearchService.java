@@ -0,0 +1,251 @@
+package org.oruko.dictionary.search.memory;
+
+import com.google.common.cache.CacheStats;
+import com.google.common.eventbus.Subscribe;
+import org.oruko.dictionary.events.WordDeletedEvent;
+import org.oruko.dictionary.events.WordIndexedEvent;
+import org.oruko.dictionary.model.WordEntry;
+import org.oruko.dictionary.model.WordFolding;
+import org.oruko.dictionary.search.api.IndexOperationStatus;
+import org.oruko.dictionary.search.api.SearchService;
+import org.oruko.dictionary.search.jpa.ListenableIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * {@link SearchService} that caches the reads of the JPA backed {@link SearchService}.
+ *
+ * Each read method has its own size bounded cache, evicting the least recently used queries first, with its
+ * own time to live. When a {@link WordIndexedEvent} or {@link WordDeletedEvent} is published, the cached
+ * results that contain the word, and the cached queries the word could match by word, folded word, prefix
+ * or part of the word, are dropped. The cached queries are indexed, see {@link QueryCache}, so the queries
+ * a word affects are looked up rather than found by going over every cached query. Search results are all
+ * dropped instead: they are ranked against every word in the full text index and fall back to the closest
+ * words, so a change to any word, its definitions or examples, can change the result of any search.
+ *
+ * The in memory indexes the reads are served from apply the same events on threads of their own, see
+ * {@link ListenableIndex}, so a query read between the event and the change reaching an index could cache a
+ * result without it. The results are therefore dropped again each time an index tells it has applied the change.
+ * Hit, miss and eviction counts are published as metrics.
+ *
+ * Enabled by setting app.search.cache=true. Not used together with the in memory index, which already
+ * serves reads from memory.
+ *
+ * @author Dadepo Aderemi.
+ */
+@Service
+@Primary
+@ConditionalOnExpression("${app.search.cache:false} && !${app.search.memoryIndex:false}")
+public class CachingSearchService implements SearchService, PublicMetrics {
+
+    private static final String COUNT_KEY = "count";
+
+    private final SearchService delegate;
+    private final QueryCache<Set<WordEntry>> searchCache;
+    private final QueryCache<Optional<WordEntry>> wordCache;
+    private final QueryCache<Set<WordEntry>> alphabetCache;
+    private final QueryCache<Set<String>> autocompleteCache;
+    private final QueryCache<Integer> countCache;
+
+    /**
+     * Public constructor for {@link CachingSearchService}
+     *
+     * @param delegate the {@link SearchService} whose reads are cached
+     * @param indexes the in memory indexes the reads of the delegate are served from
+     * @param maxEntries the maximum number of queries cached per method
+     * @param searchTtl seconds a search result is kept
+     * @param wordTtl seconds an entry looked up by word is kept
+     * @param alphabetTtl seconds a listing by alphabet is kept
+     * @param autocompleteTtl seconds an autocomplete result is kept
+     * @param countTtl seconds the number of searchable names is kept
+     */
+    @Autowired
+    public CachingSearchService(@Qualifier("jpaSearchService") SearchService delegate,
+                                List<ListenableIndex> indexes,
+                                @Value("${app.search.cache.maxEntries:10000}") long maxEntries,
+                                @Value("${app.search.cache.searchTtl:600}") long searchTtl,
+                                @Value("${app.search.cache.wordTtl:3600}") long wordTtl,
+                                @Value("${app.search.cache.alphabetTtl:3600}") long alphabetTtl,
+                                @Value("${app.search.cache.autocompleteTtl:600}") long autocompleteTtl,
+                                @Value("${app.search.cache.countTtl:60}") long countTtl) {
+        this.delegate = delegate;
+        this.searchCache = new QueryCache<>(maxEntries, searchTtl, CachingSearchService::wordsOf);
+        this.wordCache = new QueryCache<>(maxEntries, wordTtl, entry -> wordsOf(entry.map(Collections::singleton)
+                                                                                    .orElse(Collections.emptySet())));
+        this.alphabetCache = new QueryCache<>(maxEntries, alphabetTtl, CachingSearchService::wordsOf);
+        this.autocompleteCache = new QueryCache<>(maxEntries, autocompleteTtl, words -> words);
+        this.countCache = new QueryCache<>(1, countTtl, count -> Collections.emptySet());
+        indexes.forEach(index -> index.addListener(this::invalidate));
+    }
+
+    @Override
+    public WordEntry getByWord(String wordQuery) {
+        return wordCache.get(wordQuery, () -> Optional.ofNullable(delegate.getByWord(wordQuery))).orElse(null);
+    }
+
+    @Override
+    public Set<WordEntry> search(String searchTerm) {
+        return searchCache.get(searchTerm, () -> delegate.search(searchTerm));
+    }
+
+    @Override
+    public Set<WordEntry> listByAlphabet(String alphabetQuery) {
+        return alphabetCache.get(alphabetQuery, () -> delegate.listByAlphabet(alphabetQuery));
+    }
+
+    @Override
+    public List<WordEntry> listByAlphabet(String alphabetQuery, int page, int count) {
+        // pages are cheap to fetch, and caching them would only crowd out whole listings
+        return delegate.listByAlphabet(alphabetQuery, page, count);
+    }
+
+    @Override
+    public void streamByAlphabet(String alphabetQuery, Consumer<WordEntry> consumer) {
+        delegate.streamByAlphabet(alphabetQuery, consumer);
+    }
+
+    @Override
+    public Integer countByAlphabet(String alphabetQuery) {
+        return delegate.countByAlphabet(alphabetQuery);
+    }
+
+    @Override
+    public Set<String> autocomplete(String query) {
+        return autocompleteCache.get(query, () -> delegate.autocomplete(query));
+    }
+
+    @Override
+    public Integer getSearchableNames() {
+        return countCache.get(COUNT_KEY, delegate::getSearchableNames);
+    }
+
+    @Override
+    public IndexOperationStatus bulkIndexName(List<WordEntry> entries) {
+        // the cache is refreshed when the WordIndexedEvent of each entry is published
+        return delegate.bulkIndexName(entries);
+    }
+
+    @Override
+    public IndexOperationStatus removeFromIndex(String name) {
+        IndexOperationStatus status = delegate.removeFromIndex(name);
+        invalidate(name);
+        return status;
+    }
+
+    @Override
+    public IndexOperationStatus bulkRemoveByNameFromIndex(List<String> names) {
+        IndexOperationStatus status = delegate.bulkRemoveByNameFromIndex(names);
+        names.forEach(this::invalidate);
+        return status;
+    }
+
+    @Override
+    public IndexOperationStatus bulkRemoveFromIndex(List<WordEntry> nameEntries) {
+        IndexOperationStatus status = delegate.bulkRemoveFromIndex(nameEntries);
+        nameEntries.forEach(entry -> invalidate(entry.getWord()));
+        return status;
+    }
+
+    @Override
+    public IndexOperationStatus bulkRemoveWordsFromIndex(List<String> words) {
+        IndexOperationStatus status = delegate.bulkRemoveWordsFromIndex(words);
+        words.forEach(this::invalidate);
+        return status;
+    }
+
+    @Subscribe
+    public void listen(WordIndexedEvent event) {
+        invalidate(event.getName());
+    }
+
+    @Subscribe
+    public void listen(WordDeletedEvent event) {
+        invalidate(event.getName());
+    }
+
+    /**
+     * Drops the cached results the given word is, or could now be, part of
+     *
+     * @param word the word that was indexed or removed
+     */
+    public void invalidate(String word) {
+        // any search can find the word, see above
+        searchCache.invalidateAll();
+        countCache.invalidateAll();
+        String folded = WordFolding.fold(word);
+        if (folded == null) {
+            return;
+        }
+        // the queries that find the word by word, folded word, prefix or part of the word
+        alphabetCache.invalidate(word, prefixesOf(folded));
+        wordCache.invalidate(word, Collections.singleton(folded));
+        autocompleteCache.invalidate(word, partsOf(folded));
+    }
+
+    /**
+     * Returns the statistics of the cache of each read method
+     *
+     * @return the statistics keyed by method name
+     */
+    public Map<String, CacheStats> getStats() {
+        Map<String, CacheStats> stats = new LinkedHashMap<>();
+        stats.put("search", searchCache.stats());
+        stats.put("getByWord", wordCache.stats());
+        stats.put("listByAlphabet", alphabetCache.stats());
+        stats.put("autocomplete", autocompleteCache.stats());
+        stats.put("getSearchableNames", countCache.stats());
+        return stats;
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        List<Metric<?>> metrics = new ArrayList<>();
+        getStats().forEach((method, stats) -> {
+            metrics.add(new Metric<>("search.cache." + method + ".hits", stats.hitCount()));
+            metrics.add(new Metric<>("search.cache." + method + ".misses", stats.missCount()));
+            metrics.add(new Metric<>("search.cache." + method + ".evictions", stats.evictionCount()));
+        });
+        return metrics;
+    }
+
+    //=====================================Helpers=========================================================//
+
+    private static Collection<String> wordsOf(Collection<WordEntry> entries) {
+        return entries.stream().map(WordEntry::getWord).collect(Collectors.toSet());
+    }
+
+    // the empty part included, as an empty query matches every word
+    private static Set<String> prefixesOf(String folded) {
+        Set<String> prefixes = new HashSet<>();
+        for (int end = 0; end <= folded.length(); end++) {
+            prefixes.add(folded.substring(0, end));
+        }
+        return prefixes;
+    }
+
+    private static Set<String> partsOf(String folded) {
+        Set<String> parts = new HashSet<>();
+        for (int start = 0; start <= folded.length(); start++) {
+            parts.addAll(prefixesOf(folded.substring(start)));
+        }
+        return parts;
+    }
+}
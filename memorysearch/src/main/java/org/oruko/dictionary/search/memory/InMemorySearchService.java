@@ -0,0 +1,315 @@
+package org.oruko.dictionary.search.memory;
+
+import com.google.common.eventbus.AllowConcurrentEvents;
+import com.google.common.eventbus.Subscribe;
+import org.oruko.dictionary.events.WordDeletedEvent;
+import org.oruko.dictionary.events.WordIndexedEvent;
+import org.oruko.dictionary.model.State;
+import org.oruko.dictionary.model.WordEntry;
+import org.oruko.dictionary.model.YorubaAlphabet;
+import org.oruko.dictionary.model.repository.WordEntryRepository;
+import org.oruko.dictionary.search.api.IndexOperationStatus;
+import org.oruko.dictionary.search.api.SearchService;
+import org.oruko.dictionary.search.jpa.FullTextIndex;
+import org.oruko.dictionary.search.jpa.FuzzyIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * {@link SearchService} that serves reads from an in-heap index of all the PUBLISHED {@link WordEntry}s.
+ *
+ * The index is loaded from the database once the application context is up, and is then kept current
+ * from {@link WordIndexedEvent} and {@link WordDeletedEvent}. Write operations are delegated to the
+ * JPA backed {@link SearchService} so the database remains the source of truth. Partial matches and "did you
+ * mean" suggestions are looked up in the {@link FullTextIndex} and {@link FuzzyIndex} the JPA backed service
+ * keeps, which hold the words only, and the entries of the words found are then taken from the in-heap index.
+ *
+ * Every change copies the index, so the changes are queued and applied in batches: while one thread applies the
+ * changes queued so far, the changes of the others queue up to be applied together next. A bulk index then costs a
+ * copy per batch instead of one per entry.
+ *
+ * Enabled by setting app.search.memoryIndex=true
+ *
+ * @author Dadepo Aderemi.
+ */
+@Service
+@Primary
+@ConditionalOnProperty(name = "app.search.memoryIndex", havingValue = "true")
+public class InMemorySearchService implements SearchService, ApplicationListener<ContextRefreshedEvent> {
+
+    private Logger logger = LoggerFactory.getLogger(InMemorySearchService.class);
+
+    private final WordEntryRepository wordEntryRepository;
+    private final SearchService delegate;
+    private final FullTextIndex fullTextIndex;
+    private final FuzzyIndex fuzzyIndex;
+    private final TransactionTemplate transactionTemplate;
+
+    private volatile WordIndex index = WordIndex.EMPTY;
+    // the entries to put in the index by word, a null entry standing for the removal of the word
+    private final Queue<Map.Entry<String, WordEntry>> pending = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Public constructor for {@link InMemorySearchService}
+     *
+     * @param wordEntryRepository the repository the index is loaded from
+     * @param delegate the {@link SearchService} write operations are delegated to
+     * @param fullTextIndex the index partial matches are looked up in
+     * @param fuzzyIndex the index the closest words are suggested from when a search finds nothing
+     * @param transactionManager used to load entries together with their collections
+     */
+    @Autowired
+    public InMemorySearchService(WordEntryRepository wordEntryRepository,
+                                 @Qualifier("jpaSearchService") SearchService delegate,
+                                 FullTextIndex fullTextIndex,
+                                 FuzzyIndex fuzzyIndex,
+                                 PlatformTransactionManager transactionManager) {
+        this.wordEntryRepository = wordEntryRepository;
+        this.delegate = delegate;
+        this.fullTextIndex = fullTextIndex;
+        this.fuzzyIndex = fuzzyIndex;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        reload();
+    }
+
+    /**
+     * Rebuilds the whole index from the PUBLISHED entries in the database
+     */
+    public void reload() {
+        List<WordEntry> published = transactionTemplate.execute(status -> {
+            List<WordEntry> entries = wordEntryRepository.findByState(State.PUBLISHED);
+            entries.forEach(InMemorySearchService::initialize);
+            return entries;
+        });
+        index = WordIndex.of(published);
+        logger.info("Loaded {} published entries into the in memory index", index.size());
+    }
+
+    @Subscribe
+    @AllowConcurrentEvents
+    public void listen(WordIndexedEvent event) {
+        WordEntry entry = transactionTemplate.execute(status -> {
+            WordEntry found = wordEntryRepository.findByWordAndState(event.getName(), State.PUBLISHED);
+            if (found != null) {
+                initialize(found);
+            }
+            return found;
+        });
+        if (entry != null) {
+            put(entry);
+        }
+    }
+
+    @Subscribe
+    public void listen(WordDeletedEvent event) {
+        evict(event.getName());
+    }
+
+    @Override
+    public WordEntry getByWord(String wordQuery) {
+        return index.exact(wordQuery);
+    }
+
+    @Override
+    public Set<WordEntry> search(String searchTerm) {
+        final WordIndex snapshot = index;
+
+        // 1. exact search
+        WordEntry exactFound = snapshot.exact(searchTerm);
+        if (exactFound != null) {
+            return Collections.singleton(exactFound);
+        }
+
+        // 2. search with ascii-folding
+        List<WordEntry> foldedFound = snapshot.folded(searchTerm);
+        if (!foldedFound.isEmpty()) {
+            return new LinkedHashSet<>(foldedFound);
+        }
+
+        // 3. prefix search
+        List<WordEntry> prefixFound = snapshot.prefixed(searchTerm);
+        if (!prefixFound.isEmpty()) {
+            return new LinkedHashSet<>(prefixFound);
+        }
+
+        // 4 - 7. partial match against word, variants, definitions and examples, looked up in the indexes kept by
+        // the JPA backed service rather than by going over every entry
+        final Set<WordEntry> possibleFound = new LinkedHashSet<>(snapshot.variant(searchTerm));
+        addEntries(snapshot, fullTextIndex.containing(searchTerm), possibleFound);
+        addEntries(snapshot, fullTextIndex.search(searchTerm), possibleFound);
+        if (!possibleFound.isEmpty()) {
+            return possibleFound;
+        }
+
+        // 8. suggest the words closest to the search term, i.e. "did you mean"
+        addEntries(snapshot, fuzzyIndex.suggest(searchTerm), possibleFound);
+        return possibleFound;
+    }
+
+    @Override
+    public Set<WordEntry> listByAlphabet(String alphabetQuery) {
+        return new LinkedHashSet<>(listedUnder(alphabetQuery));
+    }
+
+    @Override
+    public List<WordEntry> listByAlphabet(String alphabetQuery, int page, int count) {
+        List<WordEntry> listed = listedUnder(alphabetQuery);
+        int from = (int) Math.min((long) Math.max(page - 1, 0) * count, listed.size());
+        return new ArrayList<>(listed.subList(from, Math.min(from + count, listed.size())));
+    }
+
+    @Override
+    public void streamByAlphabet(String alphabetQuery, Consumer<WordEntry> consumer) {
+        // the entries are already in memory; this only saves copying them
+        listedUnder(alphabetQuery).forEach(consumer);
+    }
+
+    @Override
+    public Integer countByAlphabet(String alphabetQuery) {
+        return listedUnder(alphabetQuery).size();
+    }
+
+    @Override
+    public Set<String> autocomplete(String query) {
+        // the JPA backed service already answers autocomplete from memory
+        return delegate.autocomplete(query);
+    }
+
+    @Override
+    public Integer getSearchableNames() {
+        return index.size();
+    }
+
+    @Override
+    public IndexOperationStatus bulkIndexName(List<WordEntry> entries) {
+        // entries make it into the index when their WordIndexedEvent is published
+        return delegate.bulkIndexName(entries);
+    }
+
+    @Override
+    public IndexOperationStatus removeFromIndex(String name) {
+        IndexOperationStatus status = delegate.removeFromIndex(name);
+        evict(name);
+        return status;
+    }
+
+    @Override
+    public IndexOperationStatus bulkRemoveByNameFromIndex(List<String> names) {
+        IndexOperationStatus status = delegate.bulkRemoveByNameFromIndex(names);
+        evictAll(names);
+        return status;
+    }
+
+    @Override
+    public IndexOperationStatus bulkRemoveFromIndex(List<WordEntry> nameEntries) {
+        IndexOperationStatus status = delegate.bulkRemoveFromIndex(nameEntries);
+        evictAll(nameEntries.stream().map(WordEntry::getWord).collect(Collectors.toList()));
+        return status;
+    }
+
+    @Override
+    public IndexOperationStatus bulkRemoveWordsFromIndex(List<String> words) {
+        IndexOperationStatus status = delegate.bulkRemoveWordsFromIndex(words);
+        evictAll(words);
+        return status;
+    }
+
+    //=====================================Helpers=========================================================//
+
+    // the entries prefixed with the alphabet, less those listed under another letter when it is a letter (gb for g)
+    private List<WordEntry> listedUnder(String alphabetQuery) {
+        List<WordEntry> prefixed = index.prefixed(alphabetQuery);
+        String letter = YorubaAlphabet.asLetter(alphabetQuery);
+        if (letter == null) {
+            return prefixed;
+        }
+        return prefixed.stream()
+                       .filter(entry -> letter.equals(YorubaAlphabet.letterOf(entry.getWord())))
+                       .collect(Collectors.toList());
+    }
+
+    private void put(WordEntry entry) {
+        pending.add(new AbstractMap.SimpleImmutableEntry<>(entry.getWord(), entry));
+        applyPending();
+    }
+
+    private void evict(String word) {
+        evictAll(Collections.singletonList(word));
+    }
+
+    private void evictAll(Collection<String> words) {
+        words.forEach(word -> pending.add(new AbstractMap.SimpleImmutableEntry<>(word, null)));
+        applyPending();
+    }
+
+    private synchronized void applyPending() {
+        // the last change queued for a word wins
+        Map<String, WordEntry> changes = new LinkedHashMap<>();
+        for (Map.Entry<String, WordEntry> change = pending.poll(); change != null; change = pending.poll()) {
+            changes.put(change.getKey(), change.getValue());
+        }
+        if (changes.isEmpty()) {
+            return;
+        }
+        List<String> removed = changes.entrySet().stream()
+                                      .filter(change -> change.getValue() == null)
+                                      .map(Map.Entry::getKey)
+                                      .collect(Collectors.toList());
+        List<WordEntry> added = changes.values().stream().filter(Objects::nonNull).collect(Collectors.toList());
+        index = index.withoutAll(removed).withAll(added);
+    }
+
+    // the indexes are kept current on events of their own, so a word they have that the snapshot does not is skipped
+    private static void addEntries(WordIndex snapshot, List<String> words, Set<WordEntry> found) {
+        for (String word : words) {
+            WordEntry entry = snapshot.exact(word);
+            if (entry != null) {
+                found.add(entry);
+            }
+        }
+    }
+
+    // Entries outlive the session they were loaded in, so their lazy collections are loaded up front
+    private static void initialize(WordEntry entry) {
+        sizeOf(entry.getVariants());
+        sizeOf(entry.getGeoLocation());
+        sizeOf(entry.getEtymology());
+        sizeOf(entry.getMediaLinks());
+        if (entry.getDefinitions() != null) {
+            entry.getDefinitions().forEach(definition -> sizeOf(definition.getExamples()));
+        }
+    }
+
+    private static int sizeOf(List<?> collection) {
+        return collection == null ? 0 : collection.size();
+    }
+}
@@ -0,0 +1,161 @@
+package org.oruko.dictionary.search.memory;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.oruko.dictionary.model.WordFolding;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * A size bounded {@link Cache} of the results of one read method of {@link CachingSearchService}, keyed by query.
+ *
+ * The cached queries are indexed by their folded form and by the words in their result, so the queries a changed
+ * word affects are looked up, instead of found by folding every cached query again on each change.
+ *
+ * A result is loaded at most once per query at a time. Each invalidation moves the cache on to a new generation,
+ * and a result whose load started in an earlier generation is dropped again once loaded, as it may have been read
+ * before the change the invalidation was for.
+ *
+ * @author Dadepo Aderemi.
+ */
+class QueryCache<V> {
+
+    private final Cache<String, V> cache;
+    private final Function<V, Collection<String>> wordsOf;
+    private final AtomicLong generation = new AtomicLong();
+
+    // guarded by this
+    private final Map<String, Set<String>> queriesByFoldedQuery = new HashMap<>();
+    private final Map<String, Set<String>> queriesByWord = new HashMap<>();
+    private final Map<String, Collection<String>> wordsByQuery = new HashMap<>();
+
+    /**
+     * Constructor for {@link QueryCache}
+     *
+     * @param maxEntries the maximum number of queries cached
+     * @param ttlSeconds seconds a result is kept
+     * @param wordsOf the words in a result
+     */
+    QueryCache(long maxEntries, long ttlSeconds, Function<V, Collection<String>> wordsOf) {
+        this.wordsOf = wordsOf;
+        this.cache = CacheBuilder.newBuilder()
+                                 .maximumSize(maxEntries)
+                                 .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                                 .recordStats()
+                                 .<String, V>removalListener(this::removed)
+                                 .build();
+    }
+
+    /**
+     * Returns the cached result of a query, loading it if it is not cached. Null results are not cached
+     *
+     * @param query the query
+     * @param loader loads the result of the query
+     * @return the result
+     */
+    V get(String query, Supplier<V> loader) {
+        long startedIn = generation.get();
+        AtomicBoolean loaded = new AtomicBoolean();
+        V value;
+        try {
+            value = cache.get(query, () -> {
+                loaded.set(true);
+                return loader.get();
+            });
+        } catch (CacheLoader.InvalidCacheLoadException e) {
+            return null;
+        } catch (ExecutionException | UncheckedExecutionException | ExecutionError e) {
+            throw Throwables.propagate(e.getCause());
+        }
+
+        if (loaded.get()) {
+            index(query, value);
+            // indexed only now, so an invalidation since the load started may have missed it
+            if (generation.get() != startedIn) {
+                cache.asMap().remove(query, value);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Drops the cached queries that found the word, or whose folded form is one of the given forms
+     *
+     * @param word the word
+     * @param foldedQueries the folded forms of the queries the word could now be found by
+     */
+    void invalidate(String word, Collection<String> foldedQueries) {
+        generation.incrementAndGet();
+        Set<String> affected = new HashSet<>();
+        synchronized (this) {
+            affected.addAll(queriesByWord.getOrDefault(word, Collections.emptySet()));
+            foldedQueries.forEach(folded -> affected.addAll(queriesByFoldedQuery.getOrDefault(folded,
+                                                                                               Collections.emptySet())));
+        }
+        cache.invalidateAll(affected);
+    }
+
+    /**
+     * Drops all cached queries
+     */
+    void invalidateAll() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    CacheStats stats() {
+        return cache.stats();
+    }
+
+    //=====================================Helpers=========================================================//
+
+    private synchronized void index(String query, V value) {
+        unindex(query);
+        Collection<String> words = wordsOf.apply(value);
+        wordsByQuery.put(query, words);
+        words.forEach(word -> queriesByWord.computeIfAbsent(word, key -> new HashSet<>()).add(query));
+        queriesByFoldedQuery.computeIfAbsent(WordFolding.fold(query), key -> new HashSet<>()).add(query);
+    }
+
+    private synchronized void removed(RemovalNotification<String, V> notification) {
+        // the query may have been loaded again since, and indexed for its new result
+        if (notification.getCause() != RemovalCause.REPLACED
+                && !cache.asMap().containsKey(notification.getKey())) {
+            unindex(notification.getKey());
+        }
+    }
+
+    private void unindex(String query) {
+        Collection<String> words = wordsByQuery.remove(query);
+        if (words == null) {
+            return;
+        }
+        words.forEach(word -> removeFrom(queriesByWord, word, query));
+        removeFrom(queriesByFoldedQuery, WordFolding.fold(query), query);
+    }
+
+    private static void removeFrom(Map<String, Set<String>> index, String key, String query) {
+        Set<String> queries = index.get(key);
+        if (queries != null && queries.remove(query) && queries.isEmpty()) {
+            index.remove(key);
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package org.oruko.dictionary.search.memory;
+
+import org.oruko.dictionary.model.WordEntry;
+import org.oruko.dictionary.model.WordFolding;
+import org.oruko.dictionary.model.WordVariant;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of the published {@link WordEntry}s held in memory.
+ *
+ * Holds the entries sorted by their lower cased word, a map from the folded form of a word to its entries
+ * and a map from the folded form of a variant to the entries it is a variant of.
+ * Modifications return a new snapshot, leaving the current one untouched, so readers never need to lock. As a
+ * modification copies the snapshot, changes are best applied in batches, see {@link #withAll(Collection)} and
+ * {@link #withoutAll(Collection)}.
+ *
+ * @author Dadepo Aderemi.
+ */
+final class WordIndex {
+
+    static final WordIndex EMPTY = new WordIndex(new String[0], new WordEntry[0],
+                                                 Collections.emptyMap(), Collections.emptyMap());
+
+    private final String[] keys;
+    private final WordEntry[] entries;
+    private final Map<String, List<WordEntry>> folded;
+    private final Map<String, List<WordEntry>> variants;
+
+    private WordIndex(String[] keys, WordEntry[] entries,
+                      Map<String, List<WordEntry>> folded,
+                      Map<String, List<WordEntry>> variants) {
+        this.keys = keys;
+        this.entries = entries;
+        this.folded = folded;
+        this.variants = variants;
+    }
+
+    /**
+     * Builds a snapshot from the given entries
+     *
+     * @param wordEntries the entries to index
+     * @return the snapshot
+     */
+    static WordIndex of(Collection<WordEntry> wordEntries) {
+        WordEntry[] sorted = wordEntries.stream()
+                                        .filter(entry -> entry.getWord() != null)
+                                        .sorted(Comparator.comparing(WordIndex::key))
+                                        .toArray(WordEntry[]::new);
+        String[] sortedKeys = new String[sorted.length];
+        Map<String, List<WordEntry>> foldedMap = new HashMap<>();
+        Map<String, List<WordEntry>> variantMap = new HashMap<>();
+        for (int i = 0; i < sorted.length; i++) {
+            sortedKeys[i] = key(sorted[i]);
+            addTo(foldedMap, variantMap, sorted[i]);
+        }
+        return new WordIndex(sortedKeys, sorted, freeze(foldedMap), freeze(variantMap));
+    }
+
+    /**
+     * Returns a snapshot that contains the given entry, replacing any entry with the same word
+     *
+     * @param entry the entry to add
+     * @return the new snapshot
+     */
+    WordIndex with(WordEntry entry) {
+        return withAll(Collections.singletonList(entry));
+    }
+
+    /**
+     * Returns a snapshot that contains the given entries, replacing any entry with the same word. The snapshot is
+     * copied once for all the entries, so a batch costs about as much as a single entry
+     *
+     * @param added the entries to add, the last one given for a word being the one kept
+     * @return the new snapshot, or this snapshot if there are no entries
+     */
+    WordIndex withAll(Collection<WordEntry> added) {
+        if (added.isEmpty()) {
+            return this;
+        }
+        Map<String, WordEntry> byWord = new LinkedHashMap<>();
+        added.stream().filter(entry -> entry.getWord() != null).forEach(entry -> byWord.put(entry.getWord(), entry));
+        WordIndex base = withoutAll(byWord.keySet());
+        WordEntry[] sortedAdded = byWord.values().stream()
+                                        .sorted(Comparator.comparing(WordIndex::key))
+                                        .toArray(WordEntry[]::new);
+
+        // merges the sorted entries into the sorted snapshot
+        int length = base.entries.length + sortedAdded.length;
+        String[] newKeys = new String[length];
+        WordEntry[] newEntries = new WordEntry[length];
+        int fromBase = 0;
+        int fromAdded = 0;
+        for (int i = 0; i < length; i++) {
+            String addedKey = fromAdded < sortedAdded.length ? key(sortedAdded[fromAdded]) : null;
+            if (addedKey != null && (fromBase == base.keys.length || addedKey.compareTo(base.keys[fromBase]) <= 0)) {
+                newEntries[i] = sortedAdded[fromAdded++];
+                newKeys[i] = addedKey;
+            } else {
+                newEntries[i] = base.entries[fromBase];
+                newKeys[i] = base.keys[fromBase++];
+            }
+        }
+
+        Map<String, List<WordEntry>> foldedMap = thaw(base.folded);
+        Map<String, List<WordEntry>> variantMap = thaw(base.variants);
+        for (WordEntry entry : sortedAdded) {
+            addTo(foldedMap, variantMap, entry);
+        }
+        return new WordIndex(newKeys, newEntries, freeze(foldedMap), freeze(variantMap));
+    }
+
+    /**
+     * Returns a snapshot without the entry for the given word
+     *
+     * @param word the word to remove
+     * @return the new snapshot, or this snapshot if the word is not indexed
+     */
+    WordIndex without(String word) {
+        return withoutAll(Collections.singletonList(word));
+    }
+
+    /**
+     * Returns a snapshot without the entries for the given words. The snapshot is copied once for all the words
+     *
+     * @param words the words to remove
+     * @return the new snapshot, or this snapshot if none of the words is indexed
+     */
+    WordIndex withoutAll(Collection<String> words) {
+        boolean[] removed = new boolean[entries.length];
+        int removedCount = 0;
+        for (String word : words) {
+            int position = positionOf(word);
+            if (position >= 0 && !removed[position]) {
+                removed[position] = true;
+                removedCount++;
+            }
+        }
+        if (removedCount == 0) {
+            return this;
+        }
+
+        String[] newKeys = new String[keys.length - removedCount];
+        WordEntry[] newEntries = new WordEntry[entries.length - removedCount];
+        Map<String, List<WordEntry>> foldedMap = thaw(folded);
+        Map<String, List<WordEntry>> variantMap = thaw(variants);
+        for (int i = 0, kept = 0; i < entries.length; i++) {
+            if (removed[i]) {
+                WordEntry entry = entries[i];
+                removeFrom(foldedMap, WordFolding.fold(entry.getWord()), entry);
+                variantsOf(entry).forEach(variant -> removeFrom(variantMap, variant, entry));
+            } else {
+                newKeys[kept] = keys[i];
+                newEntries[kept++] = entries[i];
+            }
+        }
+        return new WordIndex(newKeys, newEntries, freeze(foldedMap), freeze(variantMap));
+    }
+
+    /**
+     * Looks up the entry for the given word, ignoring case
+     *
+     * @param word the word
+     * @return the entry or null if not indexed
+     */
+    WordEntry exact(String word) {
+        int position = positionOf(word);
+        return position < 0 ? null : entries[position];
+    }
+
+    /**
+     * Looks up the entries whose word folds to the same form as the query
+     *
+     * @param query the query
+     * @return the entries found
+     */
+    List<WordEntry> folded(String query) {
+        return folded.getOrDefault(WordFolding.fold(query), Collections.emptyList());
+    }
+
+    /**
+     * Looks up the entries that have a variant that folds to the same form as the query
+     *
+     * @param query the query
+     * @return the entries found
+     */
+    List<WordEntry> variant(String query) {
+        return variants.getOrDefault(WordFolding.fold(query), Collections.emptyList());
+    }
+
+    /**
+     * Returns the entries whose word starts with the given prefix, ignoring case, in sorted order
+     *
+     * @param prefix the prefix
+     * @return the entries found
+     */
+    List<WordEntry> prefixed(String prefix) {
+        String key = prefix.toLowerCase(Locale.ROOT);
+        int from = lowerBound(keys, key);
+        int to = from;
+        while (to < keys.length && keys[to].startsWith(key)) {
+            to++;
+        }
+        return Collections.unmodifiableList(Arrays.asList(entries).subList(from, to));
+    }
+
+    /**
+     * Returns all the indexed entries in sorted order
+     *
+     * @return the entries
+     */
+    List<WordEntry> entries() {
+        return Collections.unmodifiableList(Arrays.asList(entries));
+    }
+
+    int size() {
+        return entries.length;
+    }
+
+    // ==================================================== Helpers ====================================================
+
+    private int positionOf(String word) {
+        if (word == null) {
+            return -1;
+        }
+        String key = word.toLowerCase(Locale.ROOT);
+        int position = lowerBound(keys, key);
+        int firstMatch = -1;
+        for (int i = position; i < keys.length && keys[i].equals(key); i++) {
+            if (entries[i].getWord().equals(word)) {
+                return i;
+            }
+            if (firstMatch < 0) {
+                firstMatch = i;
+            }
+        }
+        return firstMatch;
+    }
+
+    private static int lowerBound(String[] sortedKeys, String key) {
+        int low = 0;
+        int high = sortedKeys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sortedKeys[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static String key(WordEntry entry) {
+        return entry.getWord().toLowerCase(Locale.ROOT);
+    }
+
+    private static List<String> variantsOf(WordEntry entry) {
+        List<String> variantWords = new ArrayList<>();
+        if (entry.getVariants() != null) {
+            for (WordVariant variant : entry.getVariants()) {
+                if (variant != null && variant.getWord() != null) {
+                    variantWords.add(WordFolding.fold(variant.getWord()));
+                }
+            }
+        }
+        return variantWords;
+    }
+
+    private static void addTo(Map<String, List<WordEntry>> foldedMap,
+                              Map<String, List<WordEntry>> variantMap,
+                              WordEntry entry) {
+        foldedMap.computeIfAbsent(WordFolding.fold(entry.getWord()), k -> new ArrayList<>()).add(entry);
+        variantsOf(entry).forEach(variant -> variantMap.computeIfAbsent(variant, k -> new ArrayList<>()).add(entry));
+    }
+
+    private static void removeFrom(Map<String, List<WordEntry>> map, String key, WordEntry entry) {
+        List<WordEntry> found = map.get(key);
+        if (found == null) {
+            return;
+        }
+        found.remove(entry);
+        if (found.isEmpty()) {
+            map.remove(key);
+        }
+    }
+
+    private static Map<String, List<WordEntry>> thaw(Map<String, List<WordEntry>> map) {
+        Map<String, List<WordEntry>> copy = new HashMap<>(map.size() + 1);
+        map.forEach((key, value) -> copy.put(key, new ArrayList<>(value)));
+        return copy;
+    }
+
+    private static Map<String, List<WordEntry>> freeze(Map<String, List<WordEntry>> map) {
+        map.replaceAll((key, value) -> Collections.unmodifiableList(value));
+        return Collections.unmodifiableMap(map);
+    }
+}
@@ -0,0 +1,143 @@
+package org.oruko.dictionary.search.memory;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.oruko.dictionary.events.WordDeletedEvent;
+import org.oruko.dictionary.events.WordIndexedEvent;
+import org.oruko.dictionary.model.WordEntry;
+import org.oruko.dictionary.search.api.SearchService;
+import org.oruko.dictionary.search.jpa.ListenableIndex;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests {@link CachingSearchService}
+ *
+ * @author Dadepo Aderemi.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class CachingSearchServiceTest {
+
+    @Mock
+    private SearchService delegate;
+
+    private CachingSearchService cachingSearchService;
+    private TestIndex index;
+    private WordEntry bolanle;
+
+    @Before
+    public void setUp() {
+        index = new TestIndex();
+        cachingSearchService = new CachingSearchService(delegate, Collections.singletonList(index),
+                                                        2, 60, 60, 60, 60, 60);
+        bolanle = new WordEntry("Bọ́lánlé");
+    }
+
+    @Test
+    public void test_repeated_reads_are_served_from_cache() {
+        when(delegate.search("bola")).thenReturn(Collections.singleton(bolanle));
+
+        cachingSearchService.search("bola");
+        assertEquals(Collections.singleton(bolanle), cachingSearchService.search("bola"));
+
+        verify(delegate, times(1)).search("bola");
+        assertEquals(1, cachingSearchService.getStats().get("search").hitCount());
+        assertEquals(1, cachingSearchService.getStats().get("search").missCount());
+    }
+
+    @Test
+    public void test_missing_word_is_cached_until_it_is_indexed() {
+        assertNull(cachingSearchService.getByWord("Bolanle"));
+        assertNull(cachingSearchService.getByWord("Bolanle"));
+        verify(delegate, times(1)).getByWord("Bolanle");
+
+        cachingSearchService.listen(new WordIndexedEvent("Bọ́lánlé"));
+        when(delegate.getByWord("Bolanle")).thenReturn(bolanle);
+
+        assertEquals(bolanle, cachingSearchService.getByWord("Bolanle"));
+    }
+
+    @Test
+    public void test_event_drops_only_affected_queries() {
+        when(delegate.autocomplete("lanle")).thenReturn(Collections.emptySet());
+        when(delegate.autocomplete("ade")).thenReturn(Collections.emptySet());
+        when(delegate.listByAlphabet("b")).thenReturn(Collections.singleton(bolanle));
+        cachingSearchService.autocomplete("lanle");
+        cachingSearchService.autocomplete("ade");
+        cachingSearchService.listByAlphabet("b");
+
+        cachingSearchService.listen(new WordDeletedEvent("Bọ́lánlé"));
+        cachingSearchService.autocomplete("lanle");
+        cachingSearchService.autocomplete("ade");
+        cachingSearchService.listByAlphabet("b");
+
+        verify(delegate, times(2)).autocomplete("lanle");
+        verify(delegate, times(1)).autocomplete("ade");
+        verify(delegate, times(2)).listByAlphabet("b");
+    }
+
+    @Test
+    public void test_event_drops_searches_matching_definitions_too() {
+        // found by a definition of the word, not by the word
+        when(delegate.search("river")).thenReturn(Collections.singleton(new WordEntry("Ọ̀ṣun")));
+        cachingSearchService.search("river");
+
+        cachingSearchService.listen(new WordIndexedEvent("Ọbà"));
+        cachingSearchService.search("river");
+
+        verify(delegate, times(2)).search("river");
+    }
+
+    @Test
+    public void test_result_read_before_an_index_applied_the_change_is_dropped() {
+        when(delegate.autocomplete("bola")).thenReturn(Collections.emptySet())
+                                           .thenReturn(Collections.singleton("Bọ́lánlé"));
+
+        cachingSearchService.listen(new WordIndexedEvent("Bọ́lánlé"));
+        // read from the index before it has the word
+        assertEquals(Collections.emptySet(), cachingSearchService.autocomplete("bola"));
+        index.apply("Bọ́lánlé");
+
+        assertEquals(Collections.singleton("Bọ́lánlé"), cachingSearchService.autocomplete("bola"));
+    }
+
+    @Test
+    public void test_result_loaded_before_an_invalidation_is_not_kept() {
+        when(delegate.search("bola")).thenAnswer(invocation -> {
+            // the word changes while the result without it is being read
+            cachingSearchService.listen(new WordIndexedEvent("Bọ́lánlé"));
+            return Collections.emptySet();
+        }).thenReturn(Collections.singleton(bolanle));
+
+        assertEquals(Collections.emptySet(), cachingSearchService.search("bola"));
+        assertEquals(Collections.singleton(bolanle), cachingSearchService.search("bola"));
+        assertEquals(Collections.singleton(bolanle), cachingSearchService.search("bola"));
+
+        verify(delegate, times(2)).search("bola");
+    }
+
+    @Test
+    public void test_least_recently_used_query_is_evicted() {
+        cachingSearchService.autocomplete("ad");
+        cachingSearchService.autocomplete("bo");
+        cachingSearchService.autocomplete("ol");
+
+        assertEquals(1, cachingSearchService.getStats().get("autocomplete").evictionCount());
+    }
+
+    private static class TestIndex extends ListenableIndex {
+
+        void apply(String word) {
+            applied(word);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package org.oruko.dictionary.search.memory;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.oruko.dictionary.model.State;
+import org.oruko.dictionary.model.WordEntry;
+import org.oruko.dictionary.model.repository.WordEntryRepository;
+import org.oruko.dictionary.search.api.SearchService;
+import org.oruko.dictionary.search.jpa.FullTextIndex;
+import org.oruko.dictionary.search.jpa.FuzzyIndex;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests {@link InMemorySearchService}
+ *
+ * @author Dadepo Aderemi.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class InMemorySearchServiceTest {
+
+    @Mock
+    WordEntryRepository wordEntryRepository;
+
+    @Mock
+    SearchService delegate;
+
+    @Mock
+    FullTextIndex fullTextIndex;
+
+    @Mock
+    FuzzyIndex fuzzyIndex;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    private InMemorySearchService inMemorySearchService;
+    private WordEntry adewale;
+    private WordEntry oluwade;
+
+    @Before
+    public void setUp() {
+        adewale = new WordEntry("Adéwálé");
+        oluwade = new WordEntry("Olúwadé");
+        when(wordEntryRepository.findByState(State.PUBLISHED)).thenReturn(Arrays.asList(adewale, oluwade));
+        when(fullTextIndex.containing(anyString())).thenReturn(Collections.emptyList());
+        when(fullTextIndex.search(anyString())).thenReturn(Collections.emptyList());
+        inMemorySearchService = new InMemorySearchService(wordEntryRepository, delegate, fullTextIndex, fuzzyIndex,
+                                                          transactionManager);
+        inMemorySearchService.reload();
+    }
+
+    @Test
+    public void test_partial_matches_are_looked_up_in_the_full_text_index() {
+        when(fullTextIndex.containing("wade")).thenReturn(Collections.singletonList("Olúwadé"));
+        // a word the in-heap index does not have yet is skipped
+        when(fullTextIndex.search("wade")).thenReturn(Arrays.asList("Adéwálé", "Ṣadé"));
+
+        assertEquals(new LinkedHashSet<>(Arrays.asList(oluwade, adewale)), inMemorySearchService.search("wade"));
+        verify(fuzzyIndex, never()).suggest(anyString());
+    }
+
+    @Test
+    public void test_closest_words_are_suggested_when_nothing_is_found() {
+        when(fuzzyIndex.suggest("adewade")).thenReturn(Collections.singletonList("Adéwálé"));
+
+        assertEquals(Collections.singleton(adewale), inMemorySearchService.search("adewade"));
+    }
+}
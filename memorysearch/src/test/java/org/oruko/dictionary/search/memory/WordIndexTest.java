@@ -0,0 +1,96 @@
+package org.oruko.dictionary.search.memory;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.oruko.dictionary.model.WordEntry;
+import org.oruko.dictionary.model.WordVariant;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link WordIndex}
+ *
+ * @author Dadepo Aderemi.
+ */
+public class WordIndexTest {
+
+    private WordEntry bolanle;
+    private WordEntry bimpe;
+    private WordEntry ade;
+    private WordIndex index;
+
+    @Before
+    public void setUp() {
+        bolanle = new WordEntry("Bọ́lánlé");
+        bimpe = new WordEntry("Bimpe");
+        ade = new WordEntry("Ade");
+        WordVariant variant = new WordVariant();
+        variant.setWord("Adé");
+        ade.setVariants(Collections.singletonList(variant));
+        index = WordIndex.of(Arrays.asList(bolanle, bimpe, ade));
+    }
+
+    @Test
+    public void test_entries_are_sorted() {
+        assertEquals(Arrays.asList(ade, bimpe, bolanle), index.entries());
+    }
+
+    @Test
+    public void test_exact_lookup_ignores_case() {
+        assertSame(bimpe, index.exact("bimpe"));
+        assertNull(index.exact("bim"));
+    }
+
+    @Test
+    public void test_folded_lookup_ignores_tone_marks_and_under_dots() {
+        assertEquals(Collections.singletonList(bolanle), index.folded("bolanle"));
+        assertEquals(Collections.singletonList(ade), index.variant("ade"));
+    }
+
+    @Test
+    public void test_prefix_lookup() {
+        assertEquals(Arrays.asList(bimpe, bolanle), index.prefixed("b"));
+        assertTrue(index.prefixed("z").isEmpty());
+    }
+
+    @Test
+    public void test_with_replaces_entry_with_same_word() {
+        WordEntry newBimpe = new WordEntry("Bimpe");
+        WordIndex updated = index.with(newBimpe);
+
+        assertEquals(3, updated.size());
+        assertSame(newBimpe, updated.exact("Bimpe"));
+        assertSame(bimpe, index.exact("Bimpe"));
+    }
+
+    @Test
+    public void test_without_removes_entry_and_its_keys() {
+        WordIndex updated = index.without("Ade");
+
+        assertEquals(2, updated.size());
+        assertNull(updated.exact("Ade"));
+        assertTrue(updated.variant("ade").isEmpty());
+        assertTrue(updated.folded("ade").isEmpty());
+        assertSame(ade, index.exact("Ade"));
+    }
+
+    @Test
+    public void test_batches_are_applied_in_one_go() {
+        WordEntry newAde = new WordEntry("Ade");
+        WordEntry kola = new WordEntry("Kola");
+        WordEntry abike = new WordEntry("Abike");
+
+        WordIndex updated = index.withAll(Arrays.asList(kola, newAde, abike)).withoutAll(Arrays.asList("Bimpe", "Tolu"));
+
+        assertEquals(Arrays.asList(abike, newAde, bolanle, kola), updated.entries());
+        assertTrue(updated.variant("ade").isEmpty());
+        assertEquals(Collections.singletonList(kola), updated.folded("kola"));
+        assertSame(index, index.withoutAll(Collections.singletonList("Tolu")));
+    }
+}
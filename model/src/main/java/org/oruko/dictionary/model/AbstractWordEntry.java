@@ -4,6 +4,9 @@ import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateTimeDeserializer;
 import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateTimeSerializer;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 import java.time.LocalDateTime;
@@ -18,7 +21,20 @@ import java.util.List;
 //TODO revisit the entries and use a more appropriate data type in cases this is necessary
 public abstract class AbstractWordEntry {
 
-    @Id @GeneratedValue(strategy = GenerationType.AUTO)
+    /**
+     * The number of entries whose collections are loaded together, when the collection of one of them is first
+     * read, so a page of entries loads each of its collections in one query instead of one query per entry
+     */
+    public static final int BATCH_FETCH_SIZE = 50;
+
+    // ids are handed out from a table in blocks, instead of by the database on insert, so inserts can be batched
+    @Id
+    @GeneratedValue(generator = "word_entry_id")
+    @GenericGenerator(name = "word_entry_id", strategy = "org.hibernate.id.enhanced.TableGenerator", parameters = {
+            @Parameter(name = "table_name", value = "id_generator"),
+            @Parameter(name = "segment_value", value = "word_entry"),
+            @Parameter(name = "increment_size", value = "50"),
+            @Parameter(name = "optimizer", value = "pooled-lo")})
     protected Long id;
 
     @Column
@@ -37,6 +53,9 @@ public abstract class AbstractWordEntry {
     protected String ipaNotation;
 
     @ElementCollection
+    @BatchSize(size = BATCH_FETCH_SIZE)
+    @CollectionTable(name = "word_entry_variants",
+            indexes = @Index(name = "idx_word_entry_variants_word", columnList = "word"))
     protected List<WordVariant> variants;
 
     @Column
@@ -51,6 +70,7 @@ public abstract class AbstractWordEntry {
 
     @JoinColumn(name = "geo_location_id")
     @ManyToMany
+    @BatchSize(size = BATCH_FETCH_SIZE)
     protected List<GeoLocation> geoLocation;
 
     @Column(length = 1000)
@@ -72,12 +92,15 @@ public abstract class AbstractWordEntry {
     protected String submittedBy = "Not Available";
 
     @ElementCollection
+    @BatchSize(size = BATCH_FETCH_SIZE)
     protected List<Etymology> etymology;
 
     @ElementCollection
+    @BatchSize(size = BATCH_FETCH_SIZE)
     protected List<MediaLink> mediaLinks;
 
     @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = BATCH_FETCH_SIZE)
     @JoinColumn(name = "word_id")
     protected List<Definition> definitions;
 
@@ -4,6 +4,9 @@ import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateTimeDeserializer;
 import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateTimeSerializer;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 import org.hibernate.validator.constraints.NotEmpty;
 
 import javax.persistence.*;
@@ -17,7 +20,12 @@ import java.util.List;
 @Entity
 public class Definition {
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(generator = "definition_id")
+    @GenericGenerator(name = "definition_id", strategy = "org.hibernate.id.enhanced.TableGenerator", parameters = {
+            @Parameter(name = "table_name", value = "id_generator"),
+            @Parameter(name = "segment_value", value = "definition"),
+            @Parameter(name = "increment_size", value = "50"),
+            @Parameter(name = "optimizer", value = "pooled-lo")})
     private long id;
 
     @JsonDeserialize(using = LocalDateTimeDeserializer.class)
@@ -33,9 +41,10 @@ public class Definition {
     public String englishTranslation;
 
     @ElementCollection
+    @BatchSize(size = AbstractWordEntry.BATCH_FETCH_SIZE)
     private List<Example> examples;
 
-    @ManyToOne(fetch=FetchType.EAGER, targetEntity = WordEntry.class)
+    @ManyToOne(fetch=FetchType.LAZY, targetEntity = WordEntry.class)
     @JoinColumn(name="word_id")
     private AbstractWordEntry owner;
 
@@ -2,6 +2,7 @@ package org.oruko.dictionary.model;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.annotations.BatchSize;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
@@ -15,6 +16,7 @@ import javax.persistence.Table;
  */
 @Entity
 @Table(name = "geo_location")
+@BatchSize(size = AbstractWordEntry.BATCH_FETCH_SIZE)
 public class GeoLocation {
 
 
@@ -0,0 +1,114 @@
+package org.oruko.dictionary.model;
+
+import org.oruko.dictionary.model.repository.GeoLocationRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Holds the {@link GeoLocation}s in memory, so places can be resolved without a query each. The locations are a
+ * short list that hardly ever changes, so they are loaded in a single query the first time they are asked for and
+ * kept as an immutable snapshot, which is swapped for a new one by {@link #reload()} whenever they are changed.
+ *
+ * Places are looked up ignoring case and surrounding or repeated spaces.
+ *
+ * @author Dadepo Aderemi.
+ */
+@Component
+public class GeoLocationRegistry {
+
+    private final GeoLocationRepository geoLocationRepository;
+    private volatile Snapshot snapshot;
+
+    /**
+     * Public constructor for {@link GeoLocationRegistry}
+     *
+     * @param geoLocationRepository the repository the locations are loaded from
+     */
+    @Autowired
+    public GeoLocationRegistry(GeoLocationRepository geoLocationRepository) {
+        this.geoLocationRepository = geoLocationRepository;
+    }
+
+    /**
+     * Finds the location of the given place
+     *
+     * @param place the place
+     * @return the location, null if there is none for the place
+     */
+    public GeoLocation findByPlace(String place) {
+        return place == null ? null : loaded().byKey.get(keyOf(place));
+    }
+
+    /**
+     * Finds the locations of the places in a comma separated list. Places without a location are left out
+     *
+     * @param places the comma separated places
+     * @return the locations, in the order of the places
+     */
+    public List<GeoLocation> findByPlaces(String places) {
+        List<GeoLocation> locations = new ArrayList<>();
+        for (String place : places.split(",")) {
+            GeoLocation location = findByPlace(place);
+            if (location != null) {
+                locations.add(location);
+            }
+        }
+        return locations;
+    }
+
+    /**
+     * Returns all the locations
+     *
+     * @return the locations, which can not be modified
+     */
+    public List<GeoLocation> findAll() {
+        return loaded().all;
+    }
+
+    /**
+     * Loads the locations again. To be called whenever the locations are changed
+     */
+    public void reload() {
+        snapshot = new Snapshot(geoLocationRepository.findAll());
+    }
+
+    //=====================================Helpers=========================================================//
+
+    private Snapshot loaded() {
+        Snapshot loaded = snapshot;
+        if (loaded == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    reload();
+                }
+                loaded = snapshot;
+            }
+        }
+        return loaded;
+    }
+
+    private static String keyOf(String place) {
+        return place.trim().replaceAll("\\s+", " ").toUpperCase(Locale.ROOT);
+    }
+
+    private static class Snapshot {
+        private final List<GeoLocation> all;
+        private final Map<String, GeoLocation> byKey;
+
+        Snapshot(List<GeoLocation> locations) {
+            Map<String, GeoLocation> byKey = new HashMap<>();
+            for (GeoLocation location : locations) {
+                byKey.putIfAbsent(keyOf(location.getPlace()), location);
+            }
+            this.all = Collections.unmodifiableList(new ArrayList<>(locations));
+            this.byKey = Collections.unmodifiableMap(byKey);
+        }
+    }
+}
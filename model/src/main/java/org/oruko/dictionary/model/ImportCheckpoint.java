@@ -0,0 +1,81 @@
+package org.oruko.dictionary.model;
+
+import java.time.LocalDateTime;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+/**
+ * Entity recording how far the import of a sheet of a file got: the last row whose names were committed. The file
+ * is identified by a hash of its content, so an import interrupted before it finished can be resumed after that
+ * row when the same file is uploaded again.
+ *
+ * @author Dadepo Aderemi.
+ */
+@Entity
+@Table(name = "import_checkpoint", uniqueConstraints = @UniqueConstraint(name = "uk_import_checkpoint_file_sheet",
+        columnNames = {"file_hash", "sheet_index"}))
+public class ImportCheckpoint {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private long id;
+    @Column(name = "file_hash", length = 64, nullable = false)
+    private String fileHash;
+    @Column(name = "sheet_index", nullable = false)
+    private int sheetIndex;
+    @Column(name = "last_committed_row", nullable = false)
+    private int lastCommittedRow;
+    @Column(name = "job_id", length = 36)
+    private String jobId;
+    @Column
+    private LocalDateTime updatedAt;
+
+    /** no args constructor for JPA **/
+    public ImportCheckpoint() {
+    }
+
+    public ImportCheckpoint(String fileHash, int sheetIndex) {
+        this.fileHash = fileHash;
+        this.sheetIndex = sheetIndex;
+    }
+
+    /**
+     * Moves the checkpoint to the given row
+     * @param lastCommittedRow the last row committed, zero based with the header being row 0
+     * @param jobId the id of the import job that committed the row
+     */
+    public void committed(int lastCommittedRow, String jobId) {
+        this.lastCommittedRow = lastCommittedRow;
+        this.jobId = jobId;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getFileHash() {
+        return fileHash;
+    }
+
+    public int getSheetIndex() {
+        return sheetIndex;
+    }
+
+    public int getLastCommittedRow() {
+        return lastCommittedRow;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+}
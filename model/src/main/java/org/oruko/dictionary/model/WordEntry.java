@@ -1,12 +1,20 @@
 package org.oruko.dictionary.model;
 
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import org.hibernate.validator.constraints.NotEmpty;
 import org.springframework.beans.BeanUtils;
 
 import java.time.LocalDateTime;
+import java.util.Locale;
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.Index;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
 import javax.persistence.Table;
 import javax.validation.constraints.NotNull;
 
@@ -14,14 +22,44 @@ import javax.validation.constraints.NotNull;
  * Entity for persisting WordDto entries
  */
 @Entity
-@Table(name = "word_entry")
+@NamedEntityGraph(name = WordEntry.WITH_DEFINITIONS, attributeNodes = @NamedAttributeNode("definitions"))
+@Table(name = "word_entry", indexes = {
+        @Index(name = "idx_word_entry_folded_word", columnList = "folded_word"),
+        @Index(name = "idx_word_entry_state_id", columnList = "state, id"),
+        @Index(name = "idx_word_entry_submitted_by_key", columnList = "submitted_by_key, state, id")})
 public class WordEntry extends AbstractWordEntry implements Comparable<WordEntry> {
 
+    /**
+     * The entity graph fetching an entry together with its definitions. The other collections can not be fetched
+     * in the same query, as Hibernate does not join more than one list at a time; they are batch fetched instead
+     */
+    public static final String WITH_DEFINITIONS = "WordEntry.withDefinitions";
+
+    /**
+     * The length of the submitted by key, short enough for the column to be indexed
+     */
+    public static final int SUBMITTED_BY_KEY_LENGTH = 255;
+
     @Column(unique = true)
     @NotNull
     @NotEmpty
     private String word;
 
+    /**
+     * The word without tone marks, under dots and case. See {@link WordFolding}
+     */
+    @Column(name = "folded_word")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private String foldedWord;
+
+    /**
+     * Who submitted the entry, trimmed and in lower case, so entries can be filtered by submitter through an
+     * index. See {@link #submittedByKey(String)}
+     */
+    @Column(name = "submitted_by_key", length = SUBMITTED_BY_KEY_LENGTH)
+    @JsonIgnore
+    private String submittedByKey;
+
     public WordEntry() {
         this.createdAt = LocalDateTime.now();
         this.updatedAt = this.createdAt;
@@ -29,6 +67,7 @@ public class WordEntry extends AbstractWordEntry implements Comparable<WordEntry
 
     public WordEntry(String word) {
         this.word = word;
+        this.foldedWord = WordFolding.fold(word);
         this.createdAt = LocalDateTime.now();
         this.updatedAt = this.createdAt;
     }
@@ -58,6 +97,48 @@ public class WordEntry extends AbstractWordEntry implements Comparable<WordEntry
      */
     public void setWord(String word) {
         this.word = word;
+        this.foldedWord = WordFolding.fold(word);
+    }
+
+    /**
+     * Get the folded form of the word, used for lookups that ignore tone marks, under dots and case
+     *
+     * @return the folded word
+     */
+    public String getFoldedWord() {
+        return foldedWord;
+    }
+
+    /**
+     * Recomputes the folded form of the word
+     */
+    public void refreshFoldedWord() {
+        this.foldedWord = WordFolding.fold(word);
+    }
+
+    /**
+     * Returns the form of who submitted an entry that the entries are filtered by, i.e. trimmed, in lower case
+     * and cut to the length of the column
+     *
+     * @param submittedBy who submitted the entry
+     * @return the key, null if submittedBy is null
+     */
+    public static String submittedByKey(String submittedBy) {
+        if (submittedBy == null) {
+            return null;
+        }
+        String key = submittedBy.trim().toLowerCase(Locale.ROOT);
+        return key.length() > SUBMITTED_BY_KEY_LENGTH ? key.substring(0, SUBMITTED_BY_KEY_LENGTH) : key;
+    }
+
+    /**
+     * Recomputes the columns derived from the other fields. Called before the entry is saved
+     */
+    @PrePersist
+    @PreUpdate
+    void refreshDerivedColumns() {
+        refreshFoldedWord();
+        this.submittedByKey = submittedByKey(submittedBy);
     }
 
     /**
@@ -0,0 +1,35 @@
+package org.oruko.dictionary.model;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Folds a Yoruba word into a diacritic and tone insensitive form.
+ *
+ * The word is decomposed (NFD), the combining marks (tone marks and under-dots) are stripped
+ * and the result is lower cased. i.e. "Bọ́lánlé" folds to "bolanle"
+ *
+ * @author Dadepo Aderemi.
+ */
+public final class WordFolding {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private WordFolding() {
+    }
+
+    /**
+     * Returns the folded form of the given word
+     *
+     * @param word the word to fold
+     * @return the folded word, or null if word is null
+     */
+    public static String fold(String word) {
+        if (word == null) {
+            return null;
+        }
+        String decomposed = Normalizer.normalize(word.trim(), Normalizer.Form.NFD);
+        return COMBINING_MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,92 @@
+package org.oruko.dictionary.model;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * The letters of the Yoruba alphabet, and the letter a word is listed under.
+ *
+ * Besides the latin letters, the digraph gb and the dotted letters ẹ, ọ and ṣ are letters of their own, so
+ * "Gbénga" is not listed under g, nor "Ọlá" under o. Tone marks do not make a letter, so "Àdùnní" is
+ * listed under a.
+ *
+ * @author Dadepo Aderemi.
+ */
+public final class YorubaAlphabet {
+
+    /**
+     * The letters, in alphabetical order
+     */
+    public static final List<String> LETTERS = Collections.unmodifiableList(Arrays.asList(
+            "a", "b", "d", "e", "ẹ", "f", "g", "gb", "h", "i", "j", "k", "l", "m", "n", "o", "ọ", "p", "r", "s", "ṣ",
+            "t", "u", "w", "y"));
+
+    private static final char DOT_BELOW = '\u0323';
+
+    private YorubaAlphabet() {
+    }
+
+    /**
+     * Returns the given alphabet as a letter of the Yoruba alphabet
+     *
+     * @param alphabet the alphabet, in any case
+     * @return the letter, lower cased, or null if the alphabet is not a letter of the Yoruba alphabet
+     */
+    public static String asLetter(String alphabet) {
+        if (alphabet == null) {
+            return null;
+        }
+        String letter = Normalizer.normalize(alphabet.trim(), Normalizer.Form.NFC).toLowerCase(Locale.ROOT);
+        return LETTERS.contains(letter) ? letter : null;
+    }
+
+    /**
+     * Returns the letter the given word is listed under
+     *
+     * @param word the word
+     * @return the letter, or null if the word does not start with a letter of the Yoruba alphabet
+     */
+    public static String letterOf(String word) {
+        if (word == null) {
+            return null;
+        }
+        String decomposed = Normalizer.normalize(word.trim(), Normalizer.Form.NFD).toLowerCase(Locale.ROOT);
+        if (decomposed.isEmpty()) {
+            return null;
+        }
+        char first = decomposed.charAt(0);
+        int next = 1;
+        boolean dotted = false;
+        while (next < decomposed.length() && Character.getType(decomposed.charAt(next)) == Character.NON_SPACING_MARK) {
+            dotted |= decomposed.charAt(next) == DOT_BELOW;
+            next++;
+        }
+
+        String letter;
+        if (dotted) {
+            letter = Normalizer.normalize(new String(new char[]{first, DOT_BELOW}), Normalizer.Form.NFC);
+        } else if (first == 'g' && next == 1 && decomposed.length() > 1 && decomposed.charAt(1) == 'b') {
+            letter = "gb";
+        } else {
+            letter = String.valueOf(first);
+        }
+        return LETTERS.contains(letter) ? letter : null;
+    }
+
+    /**
+     * Returns the letters spelt starting with the given letter, whose words a plain prefix match on the letter
+     * would wrongly include. i.e. gb for g
+     *
+     * @param letter the letter
+     * @return the longer letters, if any
+     */
+    public static List<String> longerLetters(String letter) {
+        return LETTERS.stream()
+                      .filter(other -> other.length() > letter.length() && other.startsWith(letter))
+                      .collect(Collectors.toList());
+    }
+}
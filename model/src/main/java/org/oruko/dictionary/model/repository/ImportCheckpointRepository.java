@@ -0,0 +1,23 @@
+package org.oruko.dictionary.model.repository;
+
+import org.oruko.dictionary.model.ImportCheckpoint;
+import org.springframework.data.repository.CrudRepository;
+
+import javax.transaction.Transactional;
+
+/**
+ * Repository for {@link ImportCheckpoint}
+ *
+ * @author Dadepo Aderemi.
+ */
+@Transactional
+public interface ImportCheckpointRepository extends CrudRepository<ImportCheckpoint, Long> {
+
+    /**
+     * Finds the checkpoint of a sheet of a file
+     * @param fileHash the hash of the content of the file
+     * @param sheetIndex the index of the sheet
+     * @return the checkpoint, null if the sheet has none
+     */
+    ImportCheckpoint findByFileHashAndSheetIndex(String fileHash, int sheetIndex);
+}
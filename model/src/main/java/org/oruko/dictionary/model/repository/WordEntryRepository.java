@@ -3,11 +3,19 @@ package org.oruko.dictionary.model.repository;
 import org.oruko.dictionary.model.WordEntry;
 import org.oruko.dictionary.model.State;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
 import javax.transaction.Transactional;
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  *
@@ -15,6 +23,12 @@ import java.util.Set;
 @Transactional
 public interface WordEntryRepository extends JpaRepository<WordEntry, Long> {
 
+    /**
+     * How long, in milliseconds, the queries a search is made of may run, so a slow statement does not hold up
+     * the search, and the request, indefinitely
+     */
+    String SEARCH_QUERY_TIMEOUT = "2000";
+
     /**
      * For finding a {@link WordEntry} given the word
      * @param word the word
@@ -22,6 +36,16 @@ public interface WordEntryRepository extends JpaRepository<WordEntry, Long> {
      */
     WordEntry findByWord(String word);
 
+    /**
+     * For finding a {@link WordEntry} given the word, together with its definitions, i.e. to show the entry
+     * in full. Its other collections are batch fetched when first read
+     *
+     * @param word the word
+     * @return {@link WordEntry}
+     */
+    @EntityGraph(WordEntry.WITH_DEFINITIONS)
+    WordEntry findWithDefinitionsByWord(String word);
+
     /**
      * For retrieving word entries by state. Supports pagination
      *
@@ -32,14 +56,299 @@ public interface WordEntryRepository extends JpaRepository<WordEntry, Long> {
     List<WordEntry> findByState(State state, Pageable pageable);
 
     List<WordEntry> findByState(State state);
+
+    /**
+     * For retrieving the word entries that come after the given id, i.e. the next page of a listing sorted by id.
+     * Unlike an offset, the id is found through the primary key, so a page costs the same however deep it is
+     *
+     * @param id the id of the last entry of the previous page
+     * @param pageable the {@link Pageable} to represent pagination intent, sorted by id
+     * @return list of {@link WordEntry}
+     */
+    List<WordEntry> findByIdGreaterThan(Long id, Pageable pageable);
+
+    /**
+     * For retrieving the word entries in the given state that come after the given id, i.e. the next page of a
+     * listing by state sorted by id. Backed by an index on state and id
+     *
+     * @param state the state of {@link WordEntry} to load
+     * @param id the id of the last entry of the previous page
+     * @param pageable the {@link Pageable} to represent pagination intent, sorted by id
+     * @return list of {@link WordEntry}
+     */
+    List<WordEntry> findByStateAndIdGreaterThan(State state, Long id, Pageable pageable);
+
+    /**
+     * For retrieving the word entries submitted by the given submitter. Supports pagination. Backed by an index on
+     * the submitted by key, state and id
+     *
+     * @param submittedByKey who submitted the entries, see {@link WordEntry#submittedByKey(String)}
+     * @param pageable the {@link Pageable} to represent pagination intent, sorted by id
+     * @return list of {@link WordEntry}
+     */
+    List<WordEntry> findBySubmittedByKey(String submittedByKey, Pageable pageable);
+
+    /**
+     * For retrieving the word entries in the given state submitted by the given submitter. Supports pagination.
+     * Backed by an index on the submitted by key, state and id
+     *
+     * @param submittedByKey who submitted the entries, see {@link WordEntry#submittedByKey(String)}
+     * @param state the state of {@link WordEntry} to load
+     * @param pageable the {@link Pageable} to represent pagination intent, sorted by id
+     * @return list of {@link WordEntry}
+     */
+    List<WordEntry> findBySubmittedByKeyAndState(String submittedByKey, State state, Pageable pageable);
+
+    List<WordEntry> findBySubmittedByKey(String submittedByKey);
+
+    List<WordEntry> findBySubmittedByKeyAndState(String submittedByKey, State state);
+
+    /**
+     * For retrieving the word entries submitted by the given submitter that come after the given id, i.e. the
+     * next page of a listing by submitter sorted by id
+     *
+     * @param submittedByKey who submitted the entries, see {@link WordEntry#submittedByKey(String)}
+     * @param id the id of the last entry of the previous page
+     * @param pageable the {@link Pageable} to represent pagination intent, sorted by id
+     * @return list of {@link WordEntry}
+     */
+    List<WordEntry> findBySubmittedByKeyAndIdGreaterThan(String submittedByKey, Long id, Pageable pageable);
+
+    /**
+     * For retrieving the word entries in the given state submitted by the given submitter that come after the
+     * given id, i.e. the next page of a listing by submitter and state sorted by id
+     *
+     * @param submittedByKey who submitted the entries, see {@link WordEntry#submittedByKey(String)}
+     * @param state the state of {@link WordEntry} to load
+     * @param id the id of the last entry of the previous page
+     * @param pageable the {@link Pageable} to represent pagination intent, sorted by id
+     * @return list of {@link WordEntry}
+     */
+    List<WordEntry> findBySubmittedByKeyAndStateAndIdGreaterThan(String submittedByKey, State state, Long id,
+                                                                 Pageable pageable);
+
+    /**
+     * For filling in the submitted by key of the {@link WordEntry}s saved before it was maintained, in a single
+     * statement
+     *
+     * @return the number of entries filled in
+     */
+    @Modifying
+    @Query("update WordEntry e set e.submittedByKey = substring(lower(trim(e.submittedBy)), 1, "
+            + WordEntry.SUBMITTED_BY_KEY_LENGTH + ") where e.submittedByKey is null and e.submittedBy is not null")
+    int fillInSubmittedByKeys();
+
+    /**
+     * For reading every {@link WordEntry} through a forward only cursor, sorted by id, i.e. to export the whole
+     * dictionary. Rows are fetched from the database a few hundred at a time as the stream is consumed, so the
+     * stream has to be consumed, and closed, within a transaction
+     *
+     * @return the stream of {@link WordEntry}
+     */
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+    @Query("select e from WordEntry e order by e.id")
+    Stream<WordEntry> streamAll();
+
+    /**
+     * For reading the {@link WordEntry}s in the given state through a forward only cursor, sorted by id. See
+     * {@link #streamAll()}
+     *
+     * @param state the state of the {@link WordEntry}s
+     * @return the stream of {@link WordEntry}
+     */
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+    @Query("select e from WordEntry e where e.state = :state order by e.id")
+    Stream<WordEntry> streamByState(@Param("state") State state);
+
+    /**
+     * For retrieving the words of the {@link WordEntry}s in the given state, without loading the entries
+     *
+     * @param state the state of the {@link WordEntry}s
+     * @return the words
+     */
+    @Query("select e.word from WordEntry e where e.state = :state")
+    List<String> findWordsByState(@Param("state") State state);
+    @QueryHints(@QueryHint(name = "javax.persistence.query.timeout", value = SEARCH_QUERY_TIMEOUT))
     Set<WordEntry> findByWordStartingWithAndState(String alphabet, State state);
+
+    /**
+     * For retrieving a page of the {@link WordEntry}s whose word starts with the given alphabet
+     *
+     * @param alphabet the alphabet
+     * @param state the state of the {@link WordEntry}s
+     * @param pageable the {@link Pageable} to represent pagination intent
+     * @return list of {@link WordEntry}
+     */
+    List<WordEntry> findByWordStartingWithAndState(String alphabet, State state, Pageable pageable);
+
+    /**
+     * For retrieving the {@link WordEntry}s whose word starts with the given alphabet and comes after the given
+     * word, i.e. the next page of a listing when sorted by word
+     *
+     * @param alphabet the alphabet
+     * @param state the state of the {@link WordEntry}s
+     * @param after the last word of the previous page
+     * @param pageable the {@link Pageable} to represent pagination intent
+     * @return list of {@link WordEntry}
+     */
+    List<WordEntry> findByWordStartingWithAndStateAndWordGreaterThan(String alphabet, State state, String after,
+                                                                     Pageable pageable);
+    @QueryHints(@QueryHint(name = "javax.persistence.query.timeout", value = SEARCH_QUERY_TIMEOUT))
     Set<WordEntry> findWordEntryByWordContainingAndState(String word, State state);
-    Set<WordEntry> findWordEntryByVariants_wordContainingAndState(String word, State state);
-    Set<WordEntry> findWordEntryByDefinitions_contentContainingAndState(String word, State state);
+    @QueryHints(@QueryHint(name = "javax.persistence.query.timeout", value = SEARCH_QUERY_TIMEOUT))
     WordEntry findByWordAndState(String word, State state);
 
+    /**
+     * For finding the {@link WordEntry}s with the given words
+     *
+     * @param words the words
+     * @param state the state of the {@link WordEntry}s
+     * @return the entries found
+     */
+    Set<WordEntry> findByWordInAndState(Collection<String> words, State state);
+
+    /**
+     * For loading the {@link WordEntry}s with the given words together with their definitions, i.e. the entries
+     * to update in a batch update
+     *
+     * @param words the words
+     * @return the entries found
+     */
+    @Query("select distinct e from WordEntry e left join fetch e.definitions where e.word in :words")
+    List<WordEntry> findByWordIn(@Param("words") Collection<String> words);
+
+    /**
+     * For retrieving the definitions of the words in the given state, as word, content and english translation
+     *
+     * @param state the state of the {@link WordEntry}s
+     * @return list of word, content and english translation triples
+     */
+    @Query("select e.word, d.content, d.englishTranslation from WordEntry e join e.definitions d "
+            + "where e.state = :state")
+    List<Object[]> findDefinitionTextsByState(@Param("state") State state);
+
+    /**
+     * For retrieving the definitions of a word in the given state, as word, content and english translation
+     *
+     * @param word the word
+     * @param state the state of the {@link WordEntry}
+     * @return list of word, content and english translation triples
+     */
+    @Query("select e.word, d.content, d.englishTranslation from WordEntry e join e.definitions d "
+            + "where e.word = :word and e.state = :state")
+    List<Object[]> findDefinitionTextsByWordAndState(@Param("word") String word, @Param("state") State state);
+
+    /**
+     * For retrieving the examples of the words in the given state, as word, content and english translation
+     *
+     * @param state the state of the {@link WordEntry}s
+     * @return list of word, content and english translation triples
+     */
+    @Query("select e.word, x.content, x.englishTranslation from WordEntry e join e.definitions d join d.examples x "
+            + "where e.state = :state")
+    List<Object[]> findExampleTextsByState(@Param("state") State state);
+
+    /**
+     * For retrieving the examples of a word in the given state, as word, content and english translation
+     *
+     * @param word the word
+     * @param state the state of the {@link WordEntry}
+     * @return list of word, content and english translation triples
+     */
+    @Query("select e.word, x.content, x.englishTranslation from WordEntry e join e.definitions d join d.examples x "
+            + "where e.word = :word and e.state = :state")
+    List<Object[]> findExampleTextsByWordAndState(@Param("word") String word, @Param("state") State state);
+
+    /**
+     * For finding the {@link WordEntry}s whose word folds to the given form. Backed by an index
+     *
+     * @param foldedWord the word without tone marks, under dots and case
+     * @param state the state of the {@link WordEntry}s
+     * @return the entries found
+     */
+    @QueryHints(@QueryHint(name = "javax.persistence.query.timeout", value = SEARCH_QUERY_TIMEOUT))
+    Set<WordEntry> findByFoldedWordAndState(String foldedWord, State state);
+
+    /**
+     * For retrieving the {@link WordEntry}s saved before their folded word was maintained
+     *
+     * @param pageable the {@link Pageable} to represent pagination intent
+     * @return list of {@link WordEntry}
+     */
+    List<WordEntry> findByFoldedWordIsNull(Pageable pageable);
+
+    /**
+     * For retrieving the words in the given state paired with each of their variants. A word without
+     * variants is paired with null
+     *
+     * @param state the state of the {@link WordEntry}s
+     * @return list of word and variant pairs
+     */
+    @Query("select e.word, v.word from WordEntry e left join e.variants v where e.state = :state")
+    List<Object[]> findWordAndVariantPairsByState(@Param("state") State state);
+
+    /**
+     * For retrieving the variants of a word in the given state
+     *
+     * @param word the word
+     * @param state the state of the {@link WordEntry}
+     * @return the variants of the word
+     */
+    @Query("select v.word from WordEntry e join e.variants v where e.word = :word and e.state = :state")
+    List<String> findVariantWordsByWordAndState(@Param("word") String word, @Param("state") State state);
+
+    /**
+     * For counting the {@link WordEntry}s that have the given word as one of their variants. Backed by an index
+     *
+     * @param word the word
+     * @return the number of entries
+     */
+    @Query("select count(e) from WordEntry e join e.variants v where v.word = :word")
+    Long countByVariantWord(@Param("word") String word);
+
+    /**
+     * For finding which of the given words already have a {@link WordEntry}, without loading the entries
+     *
+     * @param words the words
+     * @return the words that have an entry
+     */
+    @Query("select e.word from WordEntry e where e.word in :words")
+    List<String> findWordsByWordIn(@Param("words") Collection<String> words);
+
+    /**
+     * For finding which of the given words are already a variant of a {@link WordEntry}. Backed by an index
+     *
+     * @param words the words
+     * @return the words that are a variant
+     */
+    @Query("select v.word from WordEntry e join e.variants v where v.word in :words")
+    List<String> findVariantWordsByVariantWordIn(@Param("words") Collection<String> words);
+
+    /**
+     * For moving the {@link WordEntry}s with the given words from any of the given states to another, in a single
+     * statement. Entries already loaded are cleared from the persistence context, as they would be stale
+     *
+     * @param words the words
+     * @param from the states the entries are moved from
+     * @param state the state the entries are moved to
+     * @return the number of entries moved
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update WordEntry e set e.state = :state where e.word in :words and e.state in :from")
+    int updateStateByWordInAndStateIn(@Param("words") Collection<String> words,
+                                      @Param("from") Collection<State> from,
+                                      @Param("state") State state);
+
+    /**
+     * For counting the {@link WordEntry}s in each state, in a single query
+     *
+     * @return list of state and count pairs
+     */
+    @Query("select e.state, count(e) from WordEntry e group by e.state")
+    List<Object[]> countGroupedByState();
 
     Integer countByState(State state);
+    Integer countByWordStartingWithAndState(String alphabet, State state);
     Boolean deleteByWordAndState(String word, State state);
     Boolean deleteByState(State state);
 }
@@ -0,0 +1,62 @@
+package org.oruko.dictionary.model;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.oruko.dictionary.model.repository.GeoLocationRepository;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests {@link GeoLocationRegistry}
+ *
+ * @author Dadepo Aderemi.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class GeoLocationRegistryTest {
+
+    @Mock
+    GeoLocationRepository geoLocationRepository;
+
+    private GeoLocationRegistry registry;
+    private GeoLocation oyo = new GeoLocation("OYO", "OYO");
+    private GeoLocation general = new GeoLocation("GENERAL/NOT LOCATION SPECIFIC", "GENERAL");
+
+    @Before
+    public void setUp() {
+        when(geoLocationRepository.findAll()).thenReturn(Arrays.asList(oyo, general));
+        registry = new GeoLocationRegistry(geoLocationRepository);
+    }
+
+    @Test
+    public void test_places_are_found_ignoring_case_and_spaces_with_a_single_query() {
+        assertSame(oyo, registry.findByPlace(" oyo "));
+        assertSame(general, registry.findByPlace("general/not  location specific"));
+        assertNull(registry.findByPlace("lagos"));
+        assertEquals(Arrays.asList(oyo, general), registry.findByPlaces("Oyo, lagos,GENERAL/NOT LOCATION SPECIFIC"));
+        assertEquals(Arrays.asList(oyo, general), registry.findAll());
+
+        verify(geoLocationRepository, times(1)).findAll();
+    }
+
+    @Test
+    public void test_reload_picks_up_changes() {
+        registry.findAll();
+        when(geoLocationRepository.findAll()).thenReturn(Collections.singletonList(general));
+
+        registry.reload();
+
+        assertNull(registry.findByPlace("OYO"));
+        assertEquals(Collections.singletonList(general), registry.findAll());
+    }
+}
@@ -0,0 +1,143 @@
+package org.oruko.dictionary.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.jpa.HibernateEntityManagerFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.oruko.dictionary.model.repository.GeoLocationRepository;
+import org.oruko.dictionary.model.repository.WordEntryRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.SpringApplicationConfiguration;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Counts the statements run to load and render {@link WordEntry}s the way the endpoints do, so pages of entries
+ * run the same number of statements however many entries they hold
+ *
+ * @author Dadepo Aderemi.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringApplicationConfiguration(classes = WordEntryFetchPlanTest.Config.class)
+@TestPropertySource(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"})
+public class WordEntryFetchPlanTest {
+
+    // one per collection: variants, etymology, media links, geo locations, definitions and their examples
+    private static final long COLLECTION_QUERIES = 6;
+
+    @Configuration
+    @EnableAutoConfiguration
+    static class Config {
+    }
+
+    @Autowired
+    private WordEntryRepository wordEntryRepository;
+
+    @Autowired
+    private GeoLocationRepository geoLocationRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private ObjectMapper mapper = new ObjectMapper();
+
+    @Before
+    public void setUp() {
+        wordEntryRepository.deleteAll();
+        GeoLocation geoLocation = geoLocationRepository.save(new GeoLocation("OYO", "NWY"));
+        List<WordEntry> entries = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            entries.add(entry("Word" + i, geoLocation));
+        }
+        wordEntryRepository.save(entries);
+    }
+
+    @Test
+    public void test_a_page_of_entries_runs_a_constant_number_of_statements() {
+        long smallPage = statementsToRender(() -> wordEntryRepository.findByState(State.PUBLISHED,
+                                                                                   new PageRequest(0, 5)));
+        long largePage = statementsToRender(() -> wordEntryRepository.findByState(State.PUBLISHED,
+                                                                                   new PageRequest(0, 30)));
+
+        assertEquals(smallPage, largePage);
+        assertThat(largePage, lessThanOrEqualTo(1 + COLLECTION_QUERIES));
+    }
+
+    @Test
+    public void test_a_single_entry_is_loaded_with_its_definitions() {
+        long statements = statementsToRender(
+                () -> Collections.singletonList(wordEntryRepository.findWithDefinitionsByWord("Word1")));
+
+        // the definitions come with the entry, so one statement less than a page
+        assertThat(statements, lessThanOrEqualTo(COLLECTION_QUERIES));
+    }
+
+    //=====================================Helpers=========================================================//
+
+    // loads and renders the entries as JSON in a transaction of its own, as the open session of a request would
+    private long statementsToRender(Supplier<List<WordEntry>> load) {
+        Statistics statistics = ((HibernateEntityManagerFactory) entityManagerFactory).getSessionFactory()
+                                                                                      .getStatistics();
+        statistics.clear();
+        new TransactionTemplate(transactionManager).execute(status -> {
+            try {
+                return mapper.writeValueAsString(load.get());
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        return statistics.getPrepareStatementCount();
+    }
+
+    private static WordEntry entry(String word, GeoLocation geoLocation) {
+        WordEntry entry = new WordEntry(word);
+        entry.setState(State.PUBLISHED);
+
+        WordVariant variant = new WordVariant();
+        variant.setWord(word + "Variant");
+        entry.setVariants(Collections.singletonList(variant));
+
+        Etymology etymology = new Etymology();
+        etymology.setPart("part");
+        etymology.setMeaning("meaning");
+        entry.setEtymology(Collections.singletonList(etymology));
+
+        MediaLink mediaLink = new MediaLink();
+        mediaLink.setLink("http://example.com/" + word);
+        entry.setMediaLinks(Collections.singletonList(mediaLink));
+
+        entry.setGeoLocation(Collections.singletonList(geoLocation));
+
+        Example example = new Example();
+        example.setContent("example");
+        Definition definition = new Definition();
+        definition.setContent("definition");
+        definition.setExamples(Arrays.asList(example, example));
+        entry.setDefinitions(new ArrayList<>(Arrays.asList(definition)));
+        return entry;
+    }
+}
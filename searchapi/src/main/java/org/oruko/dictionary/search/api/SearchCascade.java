@@ -0,0 +1,48 @@
+package org.oruko.dictionary.search.api;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Runs the tiers of a search cascade, in priority order, stopping as soon as a tier is decisive.
+ *
+ * The tiers are run one after the other on the calling thread. The lookups that can end the cascade, i.e. an exact
+ * or prefix match, come first, so a query they answer costs no more than those lookups. The
+ * {@link SearchTier#always} tiers after them are served from in memory indexes and take microseconds, so running
+ * them on a pool would cost more in hand-offs than it saves. A {@link SearchTier#fallback} tier is only run once all
+ * the tiers before it came back empty. The result is what the tiers consulted found, in tier order.
+ *
+ * Tiers that query the database are expected to bound themselves with a query timeout.
+ *
+ * Created by Dadepo Aderemi.
+ */
+@Component
+public class SearchCascade {
+
+    /**
+     * Runs the given tiers
+     *
+     * @param tiers the tiers, highest priority first
+     * @return what the tiers up to and including the first decisive one found, in tier order and without duplicates
+     */
+    public <T> Set<T> search(List<SearchTier<T>> tiers) {
+        Set<T> merged = new LinkedHashSet<>();
+        for (SearchTier<T> tier : tiers) {
+            if (tier.isFallback() && !merged.isEmpty()) {
+                break;
+            }
+            Collection<T> found = tier.search();
+            found = found == null ? Collections.<T>emptyList() : found;
+            merged.addAll(found);
+            if (tier.isDecisive(found, merged)) {
+                break;
+            }
+        }
+        return merged;
+    }
+}
@@ -4,6 +4,7 @@ import org.oruko.dictionary.model.WordEntry;
 
 import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 
 public interface SearchService {
     /**
@@ -25,7 +26,9 @@ public interface SearchService {
     Set<WordEntry> search(String searchTerm);
 
     /**
-     * Return all the names which starts with the given alphabet
+     * Return all the names which starts with the given alphabet. When the alphabet is a letter of the Yoruba
+     * alphabet, the names listed under that letter are returned, i.e. names starting with gb are not listed
+     * under g
      *
      * @param alphabetQuery the given alphabet
      *
@@ -33,6 +36,35 @@ public interface SearchService {
      */
     Set<WordEntry> listByAlphabet(String alphabetQuery);
 
+    /**
+     * Return a page of the names which starts with the given alphabet, in alphabetical order
+     *
+     * @param alphabetQuery the given alphabet
+     * @param page the page, starting from 1
+     * @param count the number of names on a page
+     *
+     * @return the names on the page
+     */
+    List<WordEntry> listByAlphabet(String alphabetQuery, int page, int count);
+
+    /**
+     * Hands all the names which starts with the given alphabet, in alphabetical order, to the consumer one
+     * after the other. They are fetched a batch at a time, so they are never all held in memory together
+     *
+     * @param alphabetQuery the given alphabet
+     * @param consumer the consumer of the names
+     */
+    void streamByAlphabet(String alphabetQuery, Consumer<WordEntry> consumer);
+
+    /**
+     * Return the number of names which starts with the given alphabet
+     *
+     * @param alphabetQuery the given alphabet
+     *
+     * @return the number of names
+     */
+    Integer countByAlphabet(String alphabetQuery);
+
     /**
      * For getting the list of partial matches for autocomplete
      *
@@ -47,4 +79,13 @@ public interface SearchService {
     IndexOperationStatus removeFromIndex(String name);
     IndexOperationStatus bulkRemoveByNameFromIndex(List<String> name);
     IndexOperationStatus bulkRemoveFromIndex(List<WordEntry> nameEntries);
+
+    /**
+     * For removing the entries with the given words from the index, whatever state they are in, like
+     * {@link #bulkRemoveFromIndex(List)} but without loading the entries first
+     *
+     * @param words the words
+     * @return the status of the operation
+     */
+    IndexOperationStatus bulkRemoveWordsFromIndex(List<String> words);
 }
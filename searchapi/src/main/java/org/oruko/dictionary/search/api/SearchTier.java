@@ -0,0 +1,80 @@
+package org.oruko.dictionary.search.api;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.function.BiPredicate;
+import java.util.function.Supplier;
+
+/**
+ * A single tier of a search cascade run by {@link SearchCascade}: the search itself, and when its outcome
+ * is decisive, meaning the tiers after it need not be consulted.
+ *
+ * Created by Dadepo Aderemi.
+ */
+public final class SearchTier<T> {
+
+    private final Supplier<? extends Collection<T>> search;
+    private final BiPredicate<Collection<T>, Set<T>> decisive;
+    private final boolean fallback;
+
+    private SearchTier(Supplier<? extends Collection<T>> search, BiPredicate<Collection<T>, Set<T>> decisive,
+                       boolean fallback) {
+        this.search = search;
+        this.decisive = decisive;
+        this.fallback = fallback;
+    }
+
+    /**
+     * A tier whose outcome is decisive when the predicate holds
+     *
+     * @param search the search, returning null or an empty collection when nothing is found
+     * @param decisive tested with what this tier found and with everything found so far, this tier included
+     * @return the tier
+     */
+    public static <T> SearchTier<T> of(Supplier<? extends Collection<T>> search,
+                                       BiPredicate<Collection<T>, Set<T>> decisive) {
+        return new SearchTier<>(search, decisive, false);
+    }
+
+    /**
+     * A tier that is decisive as soon as it finds anything
+     *
+     * @param search the search, returning null or an empty collection when nothing is found
+     * @return the tier
+     */
+    public static <T> SearchTier<T> untilFound(Supplier<? extends Collection<T>> search) {
+        return new SearchTier<>(search, (found, merged) -> !found.isEmpty(), false);
+    }
+
+    /**
+     * A tier that is never decisive; what it finds is always added to the result
+     *
+     * @param search the search, returning null or an empty collection when nothing is found
+     * @return the tier
+     */
+    public static <T> SearchTier<T> always(Supplier<? extends Collection<T>> search) {
+        return new SearchTier<>(search, (found, merged) -> false, false);
+    }
+
+    /**
+     * A tier only run when the tiers before it found nothing; it is not started before then
+     *
+     * @param search the search, returning null or an empty collection when nothing is found
+     * @return the tier
+     */
+    public static <T> SearchTier<T> fallback(Supplier<? extends Collection<T>> search) {
+        return new SearchTier<>(search, (found, merged) -> !found.isEmpty(), true);
+    }
+
+    Collection<T> search() {
+        return search.get();
+    }
+
+    boolean isDecisive(Collection<T> found, Set<T> merged) {
+        return decisive.test(found, merged);
+    }
+
+    boolean isFallback() {
+        return fallback;
+    }
+}
@@ -0,0 +1,66 @@
+package org.oruko.dictionary.search.api;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Tests {@link SearchCascade}
+ *
+ * @author Dadepo Aderemi.
+ */
+public class SearchCascadeTest {
+
+    private SearchCascade searchCascade = new SearchCascade();
+
+    @Test
+    public void test_decisive_tier_stops_the_tiers_after_it_from_running() {
+        AtomicBoolean started = new AtomicBoolean();
+
+        assertEquals(Collections.singleton("exact"), searchCascade.search(Arrays.asList(
+                SearchTier.untilFound(() -> Collections.<String>emptyList()),
+                SearchTier.untilFound(() -> Collections.singletonList("exact")),
+                SearchTier.always(() -> {
+                    started.set(true);
+                    return Collections.singletonList("partial");
+                }))));
+
+        assertFalse(started.get());
+    }
+
+    @Test
+    public void test_results_are_merged_in_tier_order_without_duplicates() {
+        assertEquals(Arrays.asList("a", "b", "c"), Arrays.asList(searchCascade.search(Arrays.asList(
+                SearchTier.of(() -> Arrays.asList("a", "b"), (found, merged) -> merged.size() == 1),
+                SearchTier.untilFound(() -> null),
+                SearchTier.always(() -> Arrays.asList("b", "c")))).toArray()));
+    }
+
+    @Test
+    public void test_fallback_tier_is_only_run_when_nothing_was_found() {
+        AtomicBoolean started = new AtomicBoolean();
+        assertEquals(Collections.singleton("found"), searchCascade.search(Arrays.asList(
+                SearchTier.always(() -> Collections.singletonList("found")),
+                SearchTier.fallback(() -> {
+                    started.set(true);
+                    return Collections.singletonList("suggested");
+                }))));
+        assertFalse(started.get());
+
+        assertEquals(Collections.singleton("suggested"), searchCascade.search(Arrays.asList(
+                SearchTier.always(() -> Collections.<String>emptyList()),
+                SearchTier.fallback(() -> Collections.singletonList("suggested")))));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_failing_tier_fails_the_search() {
+        searchCascade.search(Collections.singletonList(SearchTier.<String>always(() -> {
+            throw new IllegalArgumentException();
+        })));
+    }
+}
@@ -0,0 +1,91 @@
+package org.oruko.dictionary.web;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reports, row by row, which words of a batch were accepted and why the others were rejected. Rows are in the
+ * order of the batch.
+ *
+ * @author Dadepo Aderemi.
+ */
+public class BatchReport {
+
+    /**
+     * What happened to a row of the batch
+     */
+    public enum Status {
+        ACCEPTED, REJECTED
+    }
+
+    /**
+     * A row of the batch
+     */
+    public static class Row {
+        private final int index;
+        private final String word;
+        private final Status status;
+        private final String reason;
+
+        Row(int index, String word, Status status, String reason) {
+            this.index = index;
+            this.word = word;
+            this.status = status;
+            this.reason = reason;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public String getWord() {
+            return word;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+    }
+
+    private final List<Row> rows = new ArrayList<>();
+    private int accepted;
+
+    /**
+     * Records a row as accepted
+     *
+     * @param index the position of the row in the batch
+     * @param word the word of the row
+     */
+    public void accept(int index, String word) {
+        rows.add(new Row(index, word, Status.ACCEPTED, null));
+        accepted++;
+    }
+
+    /**
+     * Records a row as rejected
+     *
+     * @param index the position of the row in the batch
+     * @param word the word of the row
+     * @param reason why the row was rejected
+     */
+    public void reject(int index, String word, String reason) {
+        rows.add(new Row(index, word, Status.REJECTED, reason));
+    }
+
+    public List<Row> getRows() {
+        return Collections.unmodifiableList(rows);
+    }
+
+    public int getAccepted() {
+        return accepted;
+    }
+
+    public int getRejected() {
+        return rows.size() - accepted;
+    }
+}
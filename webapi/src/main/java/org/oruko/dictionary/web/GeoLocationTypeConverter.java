@@ -1,7 +1,7 @@
 package org.oruko.dictionary.web;
 
 import org.oruko.dictionary.model.GeoLocation;
-import org.oruko.dictionary.model.repository.GeoLocationRepository;
+import org.oruko.dictionary.model.GeoLocationRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
@@ -14,17 +14,17 @@ import java.beans.PropertyEditorSupport;
 @Component
 public class GeoLocationTypeConverter extends PropertyEditorSupport {
 
-    private GeoLocationRepository locationRepository;
+    private GeoLocationRegistry locationRegistry;
 
     @Autowired
-    public GeoLocationTypeConverter(GeoLocationRepository locationRepository) {
+    public GeoLocationTypeConverter(GeoLocationRegistry locationRegistry) {
         super();
-        this.locationRepository = locationRepository;
+        this.locationRegistry = locationRegistry;
     }
 
     @Override
     public void setAsText(String place) {
-        GeoLocation geolocation = locationRepository.findByPlace(place);
+        GeoLocation geolocation = locationRegistry.findByPlace(place);
         this.setValue(geolocation);
     }
 
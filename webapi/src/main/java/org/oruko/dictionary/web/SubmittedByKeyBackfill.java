@@ -0,0 +1,37 @@
+package org.oruko.dictionary.web;
+
+import org.oruko.dictionary.model.WordEntry;
+import org.oruko.dictionary.model.repository.WordEntryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fills in the submitted by key of the {@link WordEntry}s saved before it was maintained on save, so filtering
+ * the words by submitter also finds them. Does nothing once every entry has its key.
+ *
+ * @author Dadepo Aderemi.
+ */
+@Component
+public class SubmittedByKeyBackfill implements ApplicationListener<ContextRefreshedEvent> {
+
+    private Logger logger = LoggerFactory.getLogger(SubmittedByKeyBackfill.class);
+
+    private final WordEntryRepository wordEntryRepository;
+
+    @Autowired
+    public SubmittedByKeyBackfill(WordEntryRepository wordEntryRepository) {
+        this.wordEntryRepository = wordEntryRepository;
+    }
+
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        int filled = wordEntryRepository.fillInSubmittedByKeys();
+        if (filled > 0) {
+            logger.info("Filled in the submitted by key of {} entries", filled);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package org.oruko.dictionary.web;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.oruko.dictionary.model.WordEntry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Imports words sent as newline delimited JSON, one {@link WordEntry} per line. Lines are read, parsed and
+ * validated one at a time, and the valid entries are handed to
+ * {@link WordEntryService#bulkInsertTakingCareOfDuplicates(List)} in batches.
+ *
+ * The next batch is only read once the previous one is saved, so a client sending faster than the database
+ * writes is held back by the connection instead of the request being buffered in memory. The result of each
+ * line is reported as soon as its batch is done with.
+ *
+ * @author Dadepo Aderemi.
+ */
+@Component
+public class WordEntryLineImporter {
+
+    static final int BATCH_SIZE = 500;
+
+    private final WordEntryService entryService;
+    private final ObjectReader entryReader = new ObjectMapper().readerFor(WordEntry.class);
+    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Public constructor for {@link WordEntryLineImporter}
+     *
+     * @param entryService the service the entries are inserted through
+     */
+    @Autowired
+    public WordEntryLineImporter(WordEntryService entryService) {
+        this.entryService = entryService;
+    }
+
+    /**
+     * Imports the entries read from the given reader
+     *
+     * @param in the reader of the lines, one {@link WordEntry} as JSON per line. Blank lines are skipped
+     * @param results the consumer of the results of each batch of lines, in the order of the lines. The index of
+     * a row is the number of its line, starting from 1
+     * @throws IOException when reading the lines fails
+     */
+    public void importLines(Reader in, Consumer<List<BatchReport.Row>> results) throws IOException {
+        BufferedReader reader = new BufferedReader(in);
+        List<BatchReport.Row> invalid = new ArrayList<>();
+        List<WordEntry> batch = new ArrayList<>();
+        List<Integer> batchLines = new ArrayList<>();
+
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            BatchReport.Row rejected = read(line, lineNumber, batch);
+            if (rejected != null) {
+                invalid.add(rejected);
+            } else {
+                batchLines.add(lineNumber);
+            }
+            // invalid lines count towards the batch, so their results are not held back either
+            if (batch.size() + invalid.size() >= BATCH_SIZE) {
+                results.accept(insert(batch, batchLines, invalid));
+            }
+        }
+        if (!batch.isEmpty() || !invalid.isEmpty()) {
+            results.accept(insert(batch, batchLines, invalid));
+        }
+    }
+
+    //=====================================Helpers=========================================================//
+
+    // adds the entry of the line to the batch, or returns why it is rejected
+    private BatchReport.Row read(String line, int lineNumber, List<WordEntry> batch) throws IOException {
+        WordEntry entry;
+        try {
+            entry = entryReader.readValue(line);
+        } catch (JsonProcessingException e) {
+            return new BatchReport.Row(lineNumber, null, BatchReport.Status.REJECTED,
+                                       "Invalid JSON: " + e.getOriginalMessage());
+        }
+        Set<ConstraintViolation<WordEntry>> violations = validator.validate(entry);
+        if (!violations.isEmpty()) {
+            return new BatchReport.Row(lineNumber, entry.getWord(), BatchReport.Status.REJECTED,
+                                       formatViolations(violations));
+        }
+        batch.add(entry);
+        return null;
+    }
+
+    private List<BatchReport.Row> insert(List<WordEntry> batch, List<Integer> batchLines,
+                                         List<BatchReport.Row> invalid) {
+        List<BatchReport.Row> rows = new ArrayList<>(invalid);
+        if (!batch.isEmpty()) {
+            for (BatchReport.Row row : entryService.bulkInsertTakingCareOfDuplicates(batch).getRows()) {
+                rows.add(new BatchReport.Row(batchLines.get(row.getIndex()), row.getWord(), row.getStatus(),
+                                             row.getReason()));
+            }
+            // the saved entries are done with, so they should not pile up in the session the request holds
+            entityManager.clear();
+        }
+        rows.sort(Comparator.comparingInt(BatchReport.Row::getIndex));
+        batch.clear();
+        batchLines.clear();
+        invalid.clear();
+        return rows;
+    }
+
+    private static String formatViolations(Set<ConstraintViolation<WordEntry>> violations) {
+        return violations.stream()
+                         .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                         .sorted()
+                         .collect(Collectors.joining(", "));
+    }
+}
@@ -3,6 +3,7 @@ package org.oruko.dictionary.web;
 import org.oruko.dictionary.model.Definition;
 import org.oruko.dictionary.model.WordEntry;
 import org.oruko.dictionary.model.WordEntryFeedback;
+import org.oruko.dictionary.model.WordFolding;
 import org.oruko.dictionary.model.State;
 import org.oruko.dictionary.model.exception.RepositoryAccessError;
 import org.oruko.dictionary.model.repository.WordEntryFeedbackRepository;
@@ -13,10 +14,21 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.transaction.Transactional;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * The service for managing word entries
@@ -33,6 +45,9 @@ public class WordEntryService {
     private WordEntryRepository wordEntryRepository;
     private WordEntryFeedbackRepository wordEntryFeedbackRepository;
 
+    @PersistenceContext
+    private EntityManager entityManager;
+
     /**
      * Public constructor for {@link WordEntryService} depends on instances of
      *
@@ -68,22 +83,54 @@ public class WordEntryService {
 
 
     /**
-     * Adds a list of words in bulk if not present. If any of the word is already present, adds the word to the
-     * duplicate table.
+     * Adds a list of words in bulk. Words already present, either as a word or as a variant of another word, and
+     * words repeated within the list are rejected; the rest are inserted in batches, each in its own transaction.
+     * The words of a batch that fails to be saved are rejected with the error, and the batches after it are still
+     * saved, so the report always tells which words are in the repository.
      *
      * @param entries the list of words
+     * @return the report of which words were accepted and which were rejected
      */
-    public void bulkInsertTakingCareOfDuplicates(List<WordEntry> entries) {
-        int i = 0;
-        for (WordEntry entry : entries) {
-            this.insertTakingCareOfDuplicates(entry);
-            i++;
+    public BatchReport bulkInsertTakingCareOfDuplicates(List<WordEntry> entries) {
+        List<String> words = entries.stream().map(WordEntry::getWord).collect(Collectors.toList());
+        Set<String> existingWords = keysOf(wordEntryRepository.findWordsByWordIn(words));
+        Set<String> variantWords = keysOf(wordEntryRepository.findVariantWordsByVariantWordIn(words));
+
+        // the reason each rejected row, by its position, was rejected
+        Map<Integer, String> rejected = new HashMap<>();
+        List<Integer> accepted = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < entries.size(); i++) {
+            String key = keyOf(entries.get(i).getWord());
+            if (variantWords.contains(key)) {
+                rejected.put(i, "Given word already exists as a variant entry");
+            } else if (existingWords.contains(key)) {
+                rejected.put(i, "Given word already exists in the index");
+            } else if (!seen.add(key)) {
+                rejected.put(i, "Given word is repeated in the batch");
+            } else {
+                accepted.add(i);
+            }
+        }
 
-            if (i == BATCH_SIZE) {
-                wordEntryRepository.flush();
-                i = 0;
+        for (int from = 0; from < accepted.size(); from += BATCH_SIZE) {
+            List<Integer> batch = accepted.subList(from, Math.min(from + BATCH_SIZE, accepted.size()));
+            try {
+                wordEntryRepository.save(batch.stream().map(entries::get).collect(Collectors.toList()));
+            } catch (RuntimeException e) {
+                batch.forEach(i -> rejected.put(i, "Given word could not be saved: " + e.getMessage()));
+            }
+        }
+
+        BatchReport report = new BatchReport();
+        for (int i = 0; i < entries.size(); i++) {
+            if (rejected.containsKey(i)) {
+                report.reject(i, entries.get(i).getWord(), rejected.get(i));
+            } else {
+                report.accept(i, entries.get(i).getWord());
             }
         }
+        return report;
     }
 
 
@@ -135,39 +182,49 @@ public class WordEntryService {
      * @return the updated entry
      */
     public WordEntry updateWord(WordEntry oldEntry, WordEntry newEntry) {
-        String oldEntryName = oldEntry.getWord();
-        // update main entry
-        oldEntry.update(newEntry);
-        oldEntry.getDefinitions().clear();
-        for (Definition definition : newEntry.getDefinitions()) {
-            definition.setId(0);
-            oldEntry.getDefinitions().add(definition);
-        }
+        applyUpdate(oldEntry, newEntry);
         return wordEntryRepository.save(oldEntry);
     }
 
 
     /**
-     * Updates the properties of a list of words with values from another list of word entries
+     * Updates the properties of a list of words with values from another list of word entries. The words to
+     * update are loaded together and saved in batches. Words not in the database, and words repeated within the
+     * list, are rejected
      *
      * @param wordEntries the new entries
-     * @return the updated entries
+     * @return the report of which words were updated and which were rejected
      */
-    public List<WordEntry> bulkUpdateWords(List<WordEntry> wordEntries) {
-        List<WordEntry> updated = new ArrayList<>();
-
-        int i = 0;
-        for (WordEntry wordEntry : wordEntries) {
-            WordEntry oldEntry = this.loadWord(wordEntry.getWord());
-            updated.add(this.updateWord(oldEntry, wordEntry));
-            i++;
+    @Transactional
+    public BatchReport bulkUpdateWords(List<WordEntry> wordEntries) {
+        List<String> words = wordEntries.stream().map(WordEntry::getWord).collect(Collectors.toList());
+        Map<String, WordEntry> oldEntries = new HashMap<>();
+        for (WordEntry oldEntry : wordEntryRepository.findByWordIn(words)) {
+            oldEntries.put(keyOf(oldEntry.getWord()), oldEntry);
+        }
 
-            if (i == BATCH_SIZE) {
-                wordEntryRepository.flush();
-                i = 0;
+        BatchReport report = new BatchReport();
+        List<WordEntry> updated = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < wordEntries.size(); i++) {
+            WordEntry wordEntry = wordEntries.get(i);
+            String key = keyOf(wordEntry.getWord());
+            WordEntry oldEntry = oldEntries.get(key);
+            if (oldEntry == null) {
+                report.reject(i, wordEntry.getWord(), "Given word was not found in the database");
+            } else if (!seen.add(key)) {
+                report.reject(i, wordEntry.getWord(), "Given word is repeated in the batch");
+            } else {
+                applyUpdate(oldEntry, wordEntry);
+                report.accept(i, wordEntry.getWord());
+                updated.add(oldEntry);
             }
         }
-        return updated;
+
+        for (int from = 0; from < updated.size(); from += BATCH_SIZE) {
+            wordEntryRepository.save(updated.subList(from, Math.min(from + BATCH_SIZE, updated.size())));
+        }
+        return report;
     }
 
     /**
@@ -217,11 +274,105 @@ public class WordEntryService {
             return this.loadAllWords(pageParam, countParam);
         }
 
-        final Integer page = pageParam.map(integer -> integer - 1).orElse(1);
+        final Integer page = pageParam.map(integer -> integer == 0 ? 0 : integer - 1).orElse(PAGE);
         final Integer count = countParam.orElse(COUNT_SIZE);
 
-        return wordEntryRepository.findByState(state.get(), new PageRequest(page, count));
+        return wordEntryRepository.findByState(state.get(), new PageRequest(page, count, Sort.Direction.ASC, "id"));
+
+    }
+
+    /**
+     * Used to retrieve the page of {@link WordEntry} that comes after the entry with the given id, sorted by id.
+     * Pages are found through the id instead of an offset, so a page costs the same however deep into the
+     * listing it is
+     *
+     * @param state      state the {@link State} of the entry. All states if not present
+     * @param afterId    the id of the last entry of the previous page
+     * @param countParam specifies the count of result
+     * @return a list of {@link WordEntry}
+     */
+    public List<WordEntry> loadByStateAfter(Optional<State> state, long afterId, Optional<Integer> countParam) {
+        PageRequest request = new PageRequest(0, countParam.orElse(COUNT_SIZE), Sort.Direction.ASC, "id");
+        return state.map(s -> wordEntryRepository.findByStateAndIdGreaterThan(s, afterId, request))
+                    .orElseGet(() -> wordEntryRepository.findByIdGreaterThan(afterId, request));
+    }
 
+    /**
+     * Used to retrieve all {@link WordEntry} submitted by the given submitter, ignoring case and surrounding
+     * spaces, through an index
+     *
+     * @param state       the {@link State} of the entry. All states if not present
+     * @param submittedBy who submitted the entries
+     * @return a list of {@link WordEntry}
+     */
+    public List<WordEntry> loadAllBySubmitter(Optional<State> state, String submittedBy) {
+        String key = WordEntry.submittedByKey(submittedBy);
+        return state.map(s -> wordEntryRepository.findBySubmittedByKeyAndState(key, s))
+                    .orElseGet(() -> wordEntryRepository.findBySubmittedByKey(key));
+    }
+
+    /**
+     * Used to retrieve paginated result of {@link WordEntry} submitted by the given submitter, ignoring case and
+     * surrounding spaces. The filtering and paging are done in a single indexed query
+     *
+     * @param state       the {@link State} of the entry. All states if not present
+     * @param submittedBy who submitted the entries
+     * @param pageParam   specifies page number
+     * @param countParam  specifies the count of result
+     * @return a list of {@link WordEntry}
+     */
+    public List<WordEntry> loadBySubmitter(Optional<State> state, String submittedBy,
+                                           Optional<Integer> pageParam, Optional<Integer> countParam) {
+        final Integer page = pageParam.map(integer -> integer == 0 ? 0 : integer - 1).orElse(PAGE);
+        final String key = WordEntry.submittedByKey(submittedBy);
+        PageRequest request = new PageRequest(page, countParam.orElse(COUNT_SIZE), Sort.Direction.ASC, "id");
+        return state.map(s -> wordEntryRepository.findBySubmittedByKeyAndState(key, s, request))
+                    .orElseGet(() -> wordEntryRepository.findBySubmittedByKey(key, request));
+    }
+
+    /**
+     * Used to retrieve the page of {@link WordEntry} submitted by the given submitter that comes after the entry
+     * with the given id, sorted by id. See {@link #loadByStateAfter(Optional, long, Optional)}
+     *
+     * @param state       the {@link State} of the entry. All states if not present
+     * @param submittedBy who submitted the entries
+     * @param afterId     the id of the last entry of the previous page
+     * @param countParam  specifies the count of result
+     * @return a list of {@link WordEntry}
+     */
+    public List<WordEntry> loadBySubmitterAfter(Optional<State> state, String submittedBy, long afterId,
+                                                Optional<Integer> countParam) {
+        final String key = WordEntry.submittedByKey(submittedBy);
+        PageRequest request = new PageRequest(0, countParam.orElse(COUNT_SIZE), Sort.Direction.ASC, "id");
+        return state.map(s -> wordEntryRepository.findBySubmittedByKeyAndStateAndIdGreaterThan(key, s, afterId,
+                                                                                               request))
+                    .orElseGet(() -> wordEntryRepository.findBySubmittedByKeyAndIdGreaterThan(key, afterId, request));
+    }
+
+    /**
+     * Hands every {@link WordEntry}, or those in the given state, to the consumer in order of id, reading them
+     * through a forward only cursor. The entries are handed over in batches, their collections fetched a batch at
+     * a time as the consumer reads them, and are detached once the batch is done with, so the memory used stays
+     * the same however large the dictionary is. The entries should not be kept by the consumer
+     *
+     * @param state    the {@link State} of the entries. All states if not present
+     * @param consumer the consumer of the entries
+     */
+    @Transactional
+    public void exportWords(Optional<State> state, Consumer<WordEntry> consumer) {
+        try (Stream<WordEntry> entries = state.map(wordEntryRepository::streamByState)
+                                              .orElseGet(wordEntryRepository::streamAll)) {
+            Iterator<WordEntry> iterator = entries.iterator();
+            List<WordEntry> batch = new ArrayList<>(WordEntry.BATCH_FETCH_SIZE);
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() == WordEntry.BATCH_FETCH_SIZE || !iterator.hasNext()) {
+                    batch.forEach(consumer);
+                    batch.clear();
+                    entityManager.clear();
+                }
+            }
+        }
     }
 
     /**
@@ -252,6 +403,27 @@ public class WordEntryService {
         return wordEntryRepository.findByWord(word);
     }
 
+    /**
+     * Used to retrieve a {@link WordEntry} from the repository using its known word, together with its
+     * definitions, for when the whole entry is shown
+     *
+     * @param word the word
+     * @return the WordEntry
+     */
+    public WordEntry loadWordWithDefinitions(String word) {
+        return wordEntryRepository.findWithDefinitionsByWord(word);
+    }
+
+    /**
+     * Used to find which of the given words are in the repository, without loading their entries
+     *
+     * @param words the words
+     * @return the words found, as stored
+     */
+    public List<String> loadExistingWords(List<String> words) {
+        return wordEntryRepository.findWordsByWordIn(words);
+    }
+
     /**
      * Duplicates all the word entry plus the duplicates
      */
@@ -272,21 +444,18 @@ public class WordEntryService {
     }
 
     /**
-     * Deletes multiple word entries and their duplicates
+     * Deletes multiple word entries and their duplicates. The entries are loaded together, with their definitions,
+     * and removed in one transaction, so the deletes of the entries and of what cascades from them are sent to the
+     * database in batches
      *
      * @param words a list of words to delete their entries and their duplicates
+     * @return the words whose entries were deleted
      */
-    public void batchDeleteWordEntryAndDuplicates(List<String> words) {
-        int i = 0;
-        for (String word : words) {
-            this.deleteWordEntryAndDuplicates(word);
-            i++;
-
-            if (i == BATCH_SIZE) {
-                wordEntryRepository.flush();
-                i = 0;
-            }
-        }
+    @Transactional
+    public List<String> batchDeleteWordEntryAndDuplicates(List<String> words) {
+        List<WordEntry> entries = wordEntryRepository.findByWordIn(words);
+        wordEntryRepository.delete(entries);
+        return entries.stream().map(WordEntry::getWord).collect(Collectors.toList());
     }
 
     // ==================================================== Helpers ====================================================
@@ -296,13 +465,24 @@ public class WordEntryService {
     }
 
     private boolean wordPresentAsVariant(String word) {
-        // TODO revisit. Might end up being impacting performance
-        List<WordEntry> allWords = wordEntryRepository.findAll();
-        return allWords.stream().anyMatch((wordEntry) -> {
-            if (wordEntry.getVariants() != null) {
-                return wordEntry.getVariants().contains(word);
-            }
-            return false;
-        });
+        return wordEntryRepository.countByVariantWord(word) > 0;
+    }
+
+    private void applyUpdate(WordEntry oldEntry, WordEntry newEntry) {
+        oldEntry.update(newEntry);
+        oldEntry.getDefinitions().clear();
+        for (Definition definition : newEntry.getDefinitions()) {
+            definition.setId(0);
+            oldEntry.getDefinitions().add(definition);
+        }
+    }
+
+    // words are matched regardless of case and accents, as the utf8_unicode_ci collation of the database does
+    private static String keyOf(String word) {
+        return WordFolding.fold(word);
+    }
+
+    private static Set<String> keysOf(List<String> words) {
+        return words.stream().map(WordEntryService::keyOf).collect(Collectors.toSet());
     }
 }
@@ -0,0 +1,87 @@
+package org.oruko.dictionary.web;
+
+import org.oruko.dictionary.model.State;
+import org.oruko.dictionary.model.WordEntry;
+import org.oruko.dictionary.model.repository.WordEntryRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the number of {@link WordEntry}s in each {@link State}. The counts are loaded with a single grouped query
+ * and kept for a few seconds, so asking for them repeatedly, as every view of the dashboard does, costs at most
+ * one query per time to live rather than one per request.
+ *
+ * The counts are only ever read from the database, so changes rolled back, or made with bulk statements, are not
+ * miscounted; they only show once the counts are loaded again.
+ *
+ * @author Dadepo Aderemi.
+ */
+@Component
+public class WordStateCounts {
+
+    private final WordEntryRepository wordEntryRepository;
+    private final long ttlNanos;
+    private Map<State, Long> counts;
+    private long total;
+    private long loadedAt;
+
+    /**
+     * Public constructor for {@link WordStateCounts}
+     *
+     * @param wordEntryRepository the repository the counts are loaded from
+     * @param ttlSeconds seconds the counts are kept before they are loaded again
+     */
+    @Autowired
+    public WordStateCounts(WordEntryRepository wordEntryRepository,
+                           @Value("${app.words.stateCountsTtl:10}") long ttlSeconds) {
+        this.wordEntryRepository = wordEntryRepository;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+    }
+
+    /**
+     * Returns the number of entries in the given state
+     *
+     * @param state the state
+     * @return the number of entries
+     */
+    public synchronized long count(State state) {
+        loadIfExpired();
+        return counts.getOrDefault(state, 0L);
+    }
+
+    /**
+     * Returns the number of entries in any state, entries saved without a state included
+     *
+     * @return the number of entries
+     */
+    public synchronized long total() {
+        loadIfExpired();
+        return total;
+    }
+
+    //=====================================Helpers=========================================================//
+
+    private void loadIfExpired() {
+        long now = System.nanoTime();
+        if (counts != null && now - loadedAt < ttlNanos) {
+            return;
+        }
+        Map<State, Long> loaded = new EnumMap<>(State.class);
+        long loadedTotal = 0;
+        for (Object[] stateCount : wordEntryRepository.countGroupedByState()) {
+            long count = (Long) stateCount[1];
+            loadedTotal += count;
+            if (stateCount[0] != null) {
+                loaded.put((State) stateCount[0], count);
+            }
+        }
+        counts = loaded;
+        total = loadedTotal;
+        loadedAt = now;
+    }
+}
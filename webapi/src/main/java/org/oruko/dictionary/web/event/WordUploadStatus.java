@@ -1,29 +1,28 @@
 package org.oruko.dictionary.web.event;
 
-import org.oruko.dictionary.events.WordUploadedEvent;
-import org.springframework.stereotype.Component;
+import org.oruko.dictionary.importer.ImportJob;
+
+import java.util.List;
 
 /**
+ * The progress of the uploads going on, summed up over their {@link ImportJob}s. The jobs are listed as well, for the
+ * progress of each upload on its own
+ *
  * Created by Dadepo Aderemi.
  */
-@Component
 public class WordUploadStatus {
-    private Integer totalNumberOfNames;
-    private Integer totalUploaded;
+    private int totalNumberOfNames;
+    private int totalUploaded;
     private boolean isUploading = false;
+    private List<ImportJob> jobs;
 
-    public void setStatus(WordUploadedEvent event) {
-
-        if (event.isUploading()) {
+    public WordUploadStatus(List<ImportJob> jobs) {
+        this.jobs = jobs;
+        jobs.stream().filter(ImportJob::isUploading).forEach(job -> {
             isUploading = true;
-            totalNumberOfNames = event.getTotalNumberOfNames();
-            totalUploaded = event.getTotalUploaded();
-        } else {
-            isUploading = false;
-            totalNumberOfNames = 0;
-            totalUploaded = 0;
-        }
-
+            totalNumberOfNames += job.getTotalNumberOfNames();
+            totalUploaded += job.getTotalUploaded();
+        });
     }
 
     public Integer getTotalNumberOfNames() {
@@ -37,4 +36,8 @@ public class WordUploadStatus {
     public boolean isUploading() {
         return isUploading;
     }
+
+    public List<ImportJob> getJobs() {
+        return jobs;
+    }
 }
@@ -1,7 +1,7 @@
 package org.oruko.dictionary.web.rest;
 
 import org.oruko.dictionary.model.GeoLocation;
-import org.oruko.dictionary.model.repository.GeoLocationRepository;
+import org.oruko.dictionary.model.GeoLocationRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -20,15 +20,15 @@ import java.util.List;
 @RequestMapping("/v1/admin")
 public class AdminApi {
 
-    private GeoLocationRepository geoLocationRepository;
+    private GeoLocationRegistry geoLocationRegistry;
 
     /**
      * Public constructor for {@link AdminApi}
-     * @param geoLocationRepository instance of {@link GeoLocationRepository} used for persisting {@link GeoLocation}
+     * @param geoLocationRegistry instance of {@link GeoLocationRegistry} holding the {@link GeoLocation}s
      */
     @Autowired
-    public AdminApi(GeoLocationRepository geoLocationRepository) {
-        this.geoLocationRepository = geoLocationRepository;
+    public AdminApi(GeoLocationRegistry geoLocationRegistry) {
+        this.geoLocationRegistry = geoLocationRegistry;
     }
 
     /**
@@ -38,7 +38,7 @@ public class AdminApi {
      */
     @RequestMapping(value = "/geolocations", method = RequestMethod.GET)
     public ResponseEntity<List<GeoLocation>> listGeoLocations() {
-        return new ResponseEntity<List<GeoLocation>>(geoLocationRepository.findAll(), HttpStatus.OK);
+        return new ResponseEntity<List<GeoLocation>>(geoLocationRegistry.findAll(), HttpStatus.OK);
     }
 
 }
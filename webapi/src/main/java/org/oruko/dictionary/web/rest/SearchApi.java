@@ -1,5 +1,8 @@
 package org.oruko.dictionary.web.rest;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import org.oruko.dictionary.events.EventPubService;
 import org.oruko.dictionary.events.WordIndexedEvent;
 import org.oruko.dictionary.events.WordSearchedEvent;
@@ -28,14 +31,18 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * Handler for search functionality
@@ -46,6 +53,9 @@ import java.util.Set;
 @RequestMapping("/v1/search")
 public class SearchApi {
 
+    private static final String NDJSON_VALUE = "application/x-ndjson";
+    private static final int ALPHABET_PAGE_SIZE = 50;
+
     private Logger logger = LoggerFactory.getLogger(SearchApi.class);
 
     private WordEntryService wordEntryService;
@@ -53,6 +63,7 @@ public class SearchApi {
     private RecentSearches recentSearches;
     private RecentIndexes recentIndexes;
     private EventPubService eventPubService;
+    private ObjectWriter ndjsonWriter = new ObjectMapper().writerFor(WordEntry.class).withRootValueSeparator("\n");
 
     /**
      * Public constructor for {@link SearchApi}
@@ -118,15 +129,70 @@ public class SearchApi {
     }
 
 
+    /**
+     * Lists the names starting with the given alphabet
+     *
+     * @param alphabet the alphabet
+     * @param pageParam the page to return, starting from 1. All the names are returned if none is given
+     * @param countParam the number of names on a page. 50 if none is given
+     * @return the names, alphabetically ordered when a page is asked for
+     */
     @RequestMapping(value = "/alphabet/{alphabet}", method = RequestMethod.GET,
             produces = MediaType.APPLICATION_JSON_VALUE)
-    public Set<WordEntry> getByAlphabet(@PathVariable Optional<String> alphabet) {
+    public Collection<WordEntry> getByAlphabet(@PathVariable Optional<String> alphabet,
+                                               @RequestParam("page") Optional<Integer> pageParam,
+                                               @RequestParam("count") Optional<Integer> countParam) {
         if (!alphabet.isPresent()) {
             return Collections.emptySet();
         }
+        if (pageParam.isPresent() || countParam.isPresent()) {
+            return searchService.listByAlphabet(alphabet.get(), pageParam.orElse(1),
+                                                countParam.orElse(ALPHABET_PAGE_SIZE));
+        }
         return searchService.listByAlphabet(alphabet.get());
     }
 
+    /**
+     * Endpoint for the number of names starting with the given alphabet
+     *
+     * @param alphabet the alphabet
+     * @return a {@link ResponseEntity} with the count
+     */
+    @RequestMapping(value = "/alphabet/{alphabet}/count", method = RequestMethod.GET,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, Object>> countByAlphabet(@PathVariable String alphabet) {
+        Map<String, Object> count = new HashMap<>();
+        count.put("alphabet", alphabet);
+        count.put("count", searchService.countByAlphabet(alphabet));
+        return new ResponseEntity<>(count, HttpStatus.OK);
+    }
+
+    /**
+     * Streams all the names starting with the given alphabet, alphabetically ordered, as newline delimited
+     * JSON. The names are written as they are fetched, so none of them are held for the whole response
+     *
+     * @param alphabet the alphabet
+     * @param response the response the names are written to
+     * @throws IOException when writing to the response fails
+     */
+    @RequestMapping(value = "/alphabet/{alphabet}/stream", method = RequestMethod.GET,
+            produces = NDJSON_VALUE)
+    public void streamByAlphabet(@PathVariable String alphabet, HttpServletResponse response) throws IOException {
+        response.setContentType(NDJSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        try (SequenceWriter writer = ndjsonWriter.writeValues(response.getOutputStream())) {
+            searchService.streamByAlphabet(alphabet, entry -> {
+                try {
+                    writer.write(entry);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
     @RequestMapping(value = "/{searchTerm}", method = RequestMethod.GET,
             produces = MediaType.APPLICATION_JSON_VALUE)
     public WordEntry findByName(@PathVariable String searchTerm, HttpServletRequest request) {
@@ -220,9 +286,9 @@ public class SearchApi {
             return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
         }
 
-        publishNameIsIndexed(wordEntry);
         wordEntry.setState(State.PUBLISHED);
         wordEntryService.saveWord(wordEntry);
+        publishNameIsIndexed(wordEntry);
         response.put("message", name + " has been published");
 
         return new ResponseEntity<>(response, HttpStatus.CREATED);
@@ -268,9 +334,9 @@ public class SearchApi {
         }
 
         for (WordEntry wordEntry : nameEntries) {
-            publishNameIsIndexed(wordEntry);
             wordEntry.setState(State.PUBLISHED);
             wordEntryService.saveWord(wordEntry);
+            publishNameIsIndexed(wordEntry);
         }
 
         return new ResponseEntity<>(response, HttpStatus.CREATED);
@@ -315,26 +381,18 @@ public class SearchApi {
             produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<Map<String, Object>> batchDeleteFromIndex(@RequestBody String[] names) {
         Map<String, Object> response = new HashMap<>();
-        List<String> found = new ArrayList<>();
-        List<WordEntry> nameEntries = new ArrayList<>();
-        List<String> notFound = new ArrayList<>();
-
-        Arrays.stream(names).forEach(name -> {
-            WordEntry entry = wordEntryService.loadWord(name);
-            if (entry == null) {
-                notFound.add(name);
-            } else {
-                found.add(name);
-                nameEntries.add(entry);
-            }
-        });
+        List<String> found = wordEntryService.loadExistingWords(Arrays.asList(names));
+        Set<String> foundKeys = found.stream().map(String::toLowerCase).collect(Collectors.toSet());
+        List<String> notFound = Arrays.stream(names)
+                                      .filter(name -> !foundKeys.contains(name.toLowerCase()))
+                                      .collect(Collectors.toList());
 
         if (found.size() == 0) {
             response.put("message", "none of the names was found in the repository so not attempting to remove");
             return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
         }
 
-        IndexOperationStatus indexOperationStatus = searchService.bulkRemoveFromIndex(nameEntries);
+        IndexOperationStatus indexOperationStatus = searchService.bulkRemoveWordsFromIndex(found);
         return returnStatusMessage(notFound, indexOperationStatus);
     }
 
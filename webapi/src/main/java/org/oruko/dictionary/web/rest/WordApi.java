@@ -1,20 +1,28 @@
 package org.oruko.dictionary.web.rest;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import org.oruko.dictionary.events.EventPubService;
 import org.oruko.dictionary.events.WordDeletedEvent;
-import org.oruko.dictionary.importer.ImporterInterface;
+import org.oruko.dictionary.importer.ImportJob;
+import org.oruko.dictionary.importer.ImportJobs;
 import org.oruko.dictionary.model.GeoLocation;
+import org.oruko.dictionary.model.GeoLocationRegistry;
 import org.oruko.dictionary.model.WordEntry;
 import org.oruko.dictionary.model.State;
-import org.oruko.dictionary.model.repository.GeoLocationRepository;
+import org.oruko.dictionary.web.BatchReport;
 import org.oruko.dictionary.web.GeoLocationTypeConverter;
+import org.oruko.dictionary.web.WordEntryLineImporter;
 import org.oruko.dictionary.web.WordEntryService;
+import org.oruko.dictionary.web.WordStateCounts;
 import org.oruko.dictionary.web.event.WordUploadStatus;
 import org.oruko.dictionary.web.exception.GenericApiCallException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -25,28 +33,35 @@ import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.annotation.InitBinder;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.Base64;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.function.Predicate;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * End point for inserting and retrieving WordDto Entries
@@ -58,34 +73,44 @@ public class WordApi {
 
     private Logger logger = LoggerFactory.getLogger(WordApi.class);
 
-    private ImporterInterface importerInterface;
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final String NDJSON_VALUE = "application/x-ndjson";
+    private static final int COUNT_SIZE = 50;
+
+    private ImportJobs importJobs;
     private WordEntryService entryService;
-    private GeoLocationRepository geoLocationRepository;
-    private WordUploadStatus wordUploadStatus;
+    private WordEntryLineImporter lineImporter;
+    private WordStateCounts wordStateCounts;
+    private GeoLocationRegistry geoLocationRegistry;
     private EventPubService eventPubService;
-
+    private ObjectWriter ndjsonWriter = new ObjectMapper().writerFor(WordEntry.class).withRootValueSeparator("\n");
+    private ObjectWriter rowWriter = new ObjectMapper().writerFor(BatchReport.Row.class).withRootValueSeparator("\n");
 
     /**
      * Public constructor for {@link WordApi}
-     * @param importerInterface an implementation of {@link ImporterInterface} used for adding words in files
+     * @param importJobs the {@link ImportJobs} the words in uploaded files are imported by
      * @param entryService an instance of {@link WordEntryService} representing the service layer
-     * @param geoLocationRepository an instance of {@link GeoLocationRepository} for persiting {@link GeoLocation}
+     * @param geoLocationRegistry an instance of {@link GeoLocationRegistry} for resolving {@link GeoLocation}s
+     * @param wordStateCounts the number of words in each state
+     * @param lineImporter the importer of words sent as newline delimited JSON
      */
     @Autowired
-    public WordApi(ImporterInterface importerInterface, WordEntryService entryService,
-                   GeoLocationRepository geoLocationRepository,
-                   WordUploadStatus wordUploadStatus,
-                   EventPubService eventPubService) {
-        this.importerInterface = importerInterface;
+    public WordApi(ImportJobs importJobs, WordEntryService entryService,
+                   GeoLocationRegistry geoLocationRegistry,
+                   EventPubService eventPubService,
+                   WordStateCounts wordStateCounts,
+                   WordEntryLineImporter lineImporter) {
+        this.importJobs = importJobs;
         this.entryService = entryService;
-        this.geoLocationRepository = geoLocationRepository;
-        this.wordUploadStatus = wordUploadStatus;
+        this.lineImporter = lineImporter;
+        this.wordStateCounts = wordStateCounts;
+        this.geoLocationRegistry = geoLocationRegistry;
         this.eventPubService = eventPubService;
     }
 
     @InitBinder
     public void initBinder(WebDataBinder binder) {
-        binder.registerCustomEditor(GeoLocation.class, new GeoLocationTypeConverter(geoLocationRepository));
+        binder.registerCustomEditor(GeoLocation.class, new GeoLocationTypeConverter(geoLocationRegistry));
     }
 
     /**
@@ -122,65 +147,97 @@ public class WordApi {
     @RequestMapping(value = "/v1/words/meta", method = RequestMethod.GET,
             produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<Map<String, Object>> getMetaData() {
-
-        final List<WordEntry> wordEntries = entryService.loadAllWords();
-        long totalWords = ((Integer) wordEntries.size()).longValue();
-
-        final long totalModifiedWords = wordEntries.stream()
-                                                   .filter(wordEntry -> State.MODIFIED.equals(wordEntry.getState()))
-                                                   .count();
-        final long totalNewWords = wordEntries.stream()
-                                              .filter(wordEntry -> State.NEW.equals(wordEntry.getState()))
-                                              .count();
-        final long totalPublishedWords = wordEntries.stream()
-                                                    .filter(wordEntry -> State.PUBLISHED.equals(wordEntry.getState()))
-                                                    .count();
         Map<String, Object> metaData = new HashMap<>();
-        metaData.put("totalWords", totalWords);
-        metaData.put("totalNewWords", totalNewWords);
-        metaData.put("totalModifiedWords", totalModifiedWords);
-        metaData.put("totalPublishedWords", totalPublishedWords);
+        metaData.put("totalWords", wordStateCounts.total());
+        metaData.put("totalNewWords", wordStateCounts.count(State.NEW));
+        metaData.put("totalModifiedWords", wordStateCounts.count(State.MODIFIED));
+        metaData.put("totalPublishedWords", wordStateCounts.count(State.PUBLISHED));
 
         return new ResponseEntity<>(metaData, HttpStatus.OK);
     }
 
     /**
-     * Get words that has been persisted. Supports ability to specify the count of words to return and the offset
+     * Get words that has been persisted. Supports ability to specify the count of words to return and the offset,
+     * or the cursor to continue from. When a page is full, the cursor of the next page is returned in the
+     * {@value #NEXT_CURSOR_HEADER} header; it is the cheaper way to page deep into the words
      * @param pageParam a {@link Integer} representing the page (offset) to start the
      *                  result set from. 0 if none is given
      * @param countParam a {@link Integer} the number of words to return. 50 is none is given
+     * @param cursorParam the cursor returned with the previous page, to continue from. Takes over the page
      * @return the list of {@link WordEntry}
      */
     @RequestMapping(value = "/v1/words", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
-    public List<WordEntry> getAllWords(@RequestParam("page") final Optional<Integer> pageParam,
-                                       @RequestParam("count") final Optional<Integer> countParam,
-                                       @RequestParam("all") final Optional<Boolean> all,
-                                       @RequestParam("submittedBy") final Optional<String> submittedBy,
-                                       @RequestParam("state") final Optional<State> state) {
+    public ResponseEntity<List<WordEntry>> getAllWords(@RequestParam("page") final Optional<Integer> pageParam,
+                                                       @RequestParam("count") final Optional<Integer> countParam,
+                                                       @RequestParam("cursor") final Optional<String> cursorParam,
+                                                       @RequestParam("all") final Optional<Boolean> all,
+                                                       @RequestParam("submittedBy") final Optional<String> submittedBy,
+                                                       @RequestParam("state") final Optional<State> state) {
 
         List<WordEntry> allWordEntries;
+        HttpHeaders headers = new HttpHeaders();
 
         if (all.isPresent() && all.get()) {
-            if (state.isPresent()) {
+            if (submittedBy.isPresent()) {
+                allWordEntries = entryService.loadAllBySubmitter(state, submittedBy.get());
+            } else if (state.isPresent()) {
                 allWordEntries = entryService.loadAllByState(state);
             } else {
                 allWordEntries = entryService.loadAllWords();
             }
         } else {
-            allWordEntries = entryService.loadByState(state, pageParam, countParam);
+            if (cursorParam.isPresent()) {
+                long afterId = decodeCursor(cursorParam.get());
+                allWordEntries = submittedBy
+                        .map(s -> entryService.loadBySubmitterAfter(state, s, afterId, countParam))
+                        .orElseGet(() -> entryService.loadByStateAfter(state, afterId, countParam));
+            } else {
+                allWordEntries = submittedBy
+                        .map(s -> entryService.loadBySubmitter(state, s, pageParam, countParam))
+                        .orElseGet(() -> entryService.loadByState(state, pageParam, countParam));
+            }
+            if (!allWordEntries.isEmpty() && allWordEntries.size() == countParam.orElse(COUNT_SIZE)) {
+                headers.set(NEXT_CURSOR_HEADER, encodeCursor(allWordEntries.get(allWordEntries.size() - 1).getId()));
+            }
         }
 
-        List<WordEntry> words = new ArrayList<>(allWordEntries);
+        return new ResponseEntity<>(allWordEntries, headers, HttpStatus.OK);
 
-        // for filtering based on value of submitBy
-        Predicate<WordEntry> filterBasedOnSubmitBy = (word) -> submittedBy
-                .map(s -> word.getSubmittedBy().trim().equalsIgnoreCase(s.trim()))
-                .orElse(true);
-
-        return words.stream()
-                    .filter(filterBasedOnSubmitBy)
-                    .collect(Collectors.toCollection(ArrayList::new));
+    }
 
+    /**
+     * Exports every word, or the words in the given state, as newline delimited JSON, one entry per line. The
+     * entries are written out as they are read from the database instead of being collected first, so the whole
+     * dictionary can be pulled without holding it in memory. The response is gzipped when the client accepts it
+     *
+     * @param state the state of the words to export. All states if not present
+     * @param acceptEncoding the encodings the client accepts
+     * @param response the response the entries are written to
+     * @throws IOException when writing to the response fails
+     */
+    @RequestMapping(value = "/v1/words/export", method = RequestMethod.GET, produces = NDJSON_VALUE)
+    public void exportWords(@RequestParam("state") final Optional<State> state,
+                            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+                            final String acceptEncoding,
+                            HttpServletResponse response) throws IOException {
+        response.setContentType(NDJSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        OutputStream out = response.getOutputStream();
+        if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            out = new GZIPOutputStream(out);
+        }
+        try (SequenceWriter writer = ndjsonWriter.writeValues(out)) {
+            entryService.exportWords(state, entry -> {
+                try {
+                    writer.write(entry);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
     }
 
     /**
@@ -192,7 +249,7 @@ public class WordApi {
     @RequestMapping(value = "/v1/words/{word}", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
     public Object getWord(@RequestParam("feedback") final Optional<Boolean> feedback,
                           @PathVariable String word) throws JsonProcessingException {
-        WordEntry wordEntry = entryService.loadWord(word);
+        WordEntry wordEntry = entryService.loadWordWithDefinitions(word);
         if (wordEntry == null) {
             String errorMsg = "#WORD not found in the database".replace("#WORD", word);
             throw new GenericApiCallException(errorMsg);
@@ -244,10 +301,11 @@ public class WordApi {
 
 
     /**
-     * Endpoint for uploading words via spreadsheet
+     * Endpoint for uploading words via spreadsheet. The words are imported in the background as an
+     * {@link ImportJob}, whose id is returned for following its progress at /v1/words/uploading
      *
      * @param multipartFile the spreadsheet file
-     * @return the Import status
+     * @return a message and the id of the import job
      * @throws JsonProcessingException Json processing exception
      */
     @RequestMapping(value = "/v1/words/upload", method = RequestMethod.POST,
@@ -256,39 +314,55 @@ public class WordApi {
             throws JsonProcessingException {
         Assert.state(!multipartFile.isEmpty(), "You can't upload an empty file");
 
+        File file = null;
         try {
-            File file = File.createTempFile(UUID.randomUUID().toString(), ".tmp");
+            file = File.createTempFile(UUID.randomUUID().toString(), ".tmp");
             multipartFile.transferTo(file);
 
-            // perform the importation of words in a seperate thread
-            // client can poll /v1/words/uploading?q=progress for upload progress
-            ExecutorService executorService = Executors.newSingleThreadExecutor();
-            executorService.submit(() -> {
-                importerInterface.importFile(file);
-                file.delete();
-            });
-
-            return new ResponseEntity<>(response("File successfully imported"), HttpStatus.ACCEPTED);
+            // the sheets are imported by the shared workers of the import jobs
+            // client can poll /v1/words/uploading?job={jobId} for upload progress
+            ImportJob job = importJobs.submit(file);
+
+            HashMap<String, String> response = response("File successfully imported");
+            response.put("jobId", job.getId());
+            return new ResponseEntity<>(response, HttpStatus.ACCEPTED);
+        } catch (RejectedExecutionException e) {
+            file.delete();
+            throw new GenericApiCallException("Too many uploads in progress, try again later",
+                                              HttpStatus.SERVICE_UNAVAILABLE);
         } catch (IOException e) {
             logger.warn("Failed to import File with error {}", e.getMessage());
+            if (file != null) {
+                file.delete();
+            }
             throw new GenericApiCallException(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
     /**
-     * Endpoint that returns if a word uploading is ongoing and if so, provides
-     * the number of total words to be uploaded and the numbers already uploaded.
+     * Endpoint that returns the progress of the uploads. With the id of a job, the progress of that upload is
+     * returned; otherwise the number of total words to be uploaded and the numbers already uploaded, summed up
+     * over the uploads going on, with the recent uploads listed.
      * @param parameter query parameter. Supports "progress"
-     * @return
+     * @param jobId the id of the import job returned by /v1/words/upload
+     * @return the {@link ImportJob} or the {@link WordUploadStatus}
      * @throws JsonProcessingException
      */
     @RequestMapping(value = "/v1/words/uploading", method = RequestMethod.GET)
-    public ResponseEntity<WordUploadStatus> uploadProgress(@RequestParam("q") Optional<String> parameter)
+    public ResponseEntity<?> uploadProgress(@RequestParam("q") Optional<String> parameter,
+                                            @RequestParam("job") Optional<String> jobId)
             throws JsonProcessingException {
+        if (jobId.isPresent()) {
+            ImportJob job = importJobs.get(jobId.get());
+            if (job == null) {
+                throw new GenericApiCallException("No upload with id " + jobId.get(), HttpStatus.NOT_FOUND);
+            }
+            return new ResponseEntity<>(job, HttpStatus.OK);
+        }
         if (parameter.isPresent()) {
             switch (parameter.get()) {
                 case "progress":
-                    return new ResponseEntity<>(wordUploadStatus, HttpStatus.OK);
+                    return new ResponseEntity<>(new WordUploadStatus(importJobs.getAll()), HttpStatus.OK);
                 default:
                     throw new GenericApiCallException("query parameter [" + parameter.get() + "] not supported",
                                                       HttpStatus.INTERNAL_SERVER_ERROR);
@@ -302,61 +376,65 @@ public class WordApi {
      * Endpoint for batch uploading of words. Words are sent as array of json from the client
      * @param wordEntries the array of {@link WordEntry}
      * @param bindingResult {@link org.springframework.validation.BindingResult} used to capture result of validation
-     * @return {@link org.springframework.http.ResponseEntity} with string containting error message.
-     * "success" is returned if no error
+     * @return {@link org.springframework.http.ResponseEntity} with a message and the report of which words were
+     * imported and which were rejected, row by row
      */
     @RequestMapping(value = "/v1/words/batch", method = RequestMethod.POST, consumes = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity< Map<String, String>> addWord(@Valid @RequestBody WordEntry[] wordEntries,
-                                                        BindingResult bindingResult) {
+    public ResponseEntity<Map<String, Object>> addWord(@Valid @RequestBody WordEntry[] wordEntries,
+                                                       BindingResult bindingResult) {
         if (!bindingResult.hasErrors() && wordEntries.length != 0) {
-            entryService.bulkInsertTakingCareOfDuplicates(Arrays.asList(wordEntries));
-            return new ResponseEntity<>(response("Words successfully imported"), HttpStatus.CREATED);
+            BatchReport report = entryService.bulkInsertTakingCareOfDuplicates(Arrays.asList(wordEntries));
+            return batchResponse(report, report.getAccepted() + " words imported, " + report.getRejected()
+                    + " rejected");
         }
         throw new GenericApiCallException(formatErrorMessage(bindingResult), HttpStatus.BAD_REQUEST);
     }
 
 
+    /**
+     * Endpoint for batch uploading of words sent as newline delimited JSON, one {@link WordEntry} per line. The
+     * lines are imported in batches as they arrive, so the request is never held in memory as a whole, and the
+     * result of each line is streamed back as newline delimited JSON as soon as its batch is saved
+     *
+     * @param request the request the lines are read from
+     * @param response the response the results are written to
+     * @throws IOException when reading the request or writing the response fails
+     */
+    @RequestMapping(value = "/v1/words/batch", method = RequestMethod.POST, consumes = NDJSON_VALUE,
+            produces = NDJSON_VALUE)
+    public void addWords(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType(NDJSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        try (SequenceWriter writer = rowWriter.writeValues(response.getOutputStream())) {
+            lineImporter.importLines(new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8),
+                                     rows -> {
+                                         try {
+                                             writer.writeAll(rows);
+                                             writer.flush();
+                                         } catch (IOException e) {
+                                             throw new UncheckedIOException(e);
+                                         }
+                                     });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+
     /**
      * Endpoint for batch updating  of words. Words are sent as array of json from the client
      * @param wordEntries the array of {@link WordEntry}
      * @param bindingResult {@link org.springframework.validation.BindingResult} used to capture result of validation
-     * @return {@link org.springframework.http.ResponseEntity} with string containing error message.
-     * "success" is returned if no error
+     * @return {@link org.springframework.http.ResponseEntity} with a message and the report of which words were
+     * updated and which were not found, word by word
      */
     @RequestMapping(value = "/v1/words/batch", method = RequestMethod.PUT, consumes = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity< Map<String, String>> updateWords(@Valid @RequestBody WordEntry[] wordEntries,
-                                                         BindingResult bindingResult) {
+    public ResponseEntity<Map<String, Object>> updateWords(@Valid @RequestBody WordEntry[] wordEntries,
+                                                           BindingResult bindingResult) {
         if (!bindingResult.hasErrors() && wordEntries.length != 0) {
-
-            //TODO refactor into a method
-            List<WordEntry> notFoundWords = Stream.of(wordEntries)
-                                             .filter(entry -> entryService.loadWord(entry.getWord()) == null)
-                                            .collect(Collectors.toList());
-
-            List<WordEntry> foundWords = new ArrayList<>(Arrays.asList(wordEntries));
-            foundWords.removeAll(notFoundWords);
-
-            if (foundWords.size() == 0) {
-                return new ResponseEntity<>(response("none of the words was found in the repository so not indexed"),
-                                            HttpStatus.BAD_REQUEST);
-            }
-            entryService.bulkUpdateWords(foundWords);
-
-            List<String> notFound = notFoundWords.stream()
-                                                 .map(WordEntry::getWord)
-                                                 .collect(Collectors.toList());
-
-            List<String> found = foundWords.stream()
-                                             .map(WordEntry::getWord)
-                                             .collect(Collectors.toList());
-
-            String responseMessage = String.join(",", found) + " updated. ";
-
-            if (notFound.size() > 0) {
-                responseMessage += String.join(",",notFound) + " not updated as they were not found in the database";
-            }
-
-            return new ResponseEntity<>(response(responseMessage), HttpStatus.CREATED);
+            BatchReport report = entryService.bulkUpdateWords(Arrays.asList(wordEntries));
+            return batchResponse(report, report.getAccepted() + " words updated, " + report.getRejected()
+                    + " not updated");
         }
 
         throw new GenericApiCallException(formatErrorMessage(bindingResult), HttpStatus.BAD_REQUEST);
@@ -403,21 +481,18 @@ public class WordApi {
             consumes = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity< Map<String, String>> batchDeleteWord(@RequestBody String[] words) {
 
-        List<String> notFoundWords = Stream.of(words)
-                                     .filter(entry -> entryService.loadWord(entry) == null)
-                                     .collect(Collectors.toCollection(ArrayList::new));
-
-        List<String> foundWords = new ArrayList<>(Arrays.asList(words));
-        foundWords.removeAll(notFoundWords);
-
+        List<String> foundWords = entryService.batchDeleteWordEntryAndDuplicates(Arrays.asList(words));
         if (foundWords.size() == 0) {
             return new ResponseEntity<>(response("No deletion as none of the words were found in the database."),
                                         HttpStatus.BAD_REQUEST);
         }
-
-        entryService.batchDeleteWordEntryAndDuplicates(foundWords);
         publishWordsDeletedEvent(foundWords);
 
+        Set<String> deleted = foundWords.stream().map(String::toLowerCase).collect(Collectors.toSet());
+        List<String> notFoundWords = Stream.of(words)
+                                           .filter(word -> !deleted.contains(word.toLowerCase()))
+                                           .collect(Collectors.toList());
+
         String responseMessage = String.join(",",foundWords) + " deleted. ";
         if (notFoundWords.size() > 0) {
             responseMessage += String.join(",",notFoundWords) + " not deleted as they were not found in the database";
@@ -426,9 +501,7 @@ public class WordApi {
     }
 
     private void publishWordsDeletedEvent(List<String> foundWords) {
-        for (String word: foundWords) {
-            eventPubService.publish(new WordDeletedEvent(word));
-        }
+        eventPubService.publish(foundWords.stream().map(WordDeletedEvent::new).toArray());
     }
 
     //=====================================Helpers=========================================================//
@@ -442,6 +515,29 @@ public class WordApi {
     }
 
 
+    private ResponseEntity<Map<String, Object>> batchResponse(BatchReport report, String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", message);
+        response.put("accepted", report.getAccepted());
+        response.put("rejected", report.getRejected());
+        response.put("rows", report.getRows());
+        return new ResponseEntity<>(response, report.getAccepted() > 0 ? HttpStatus.CREATED : HttpStatus.BAD_REQUEST);
+    }
+
+    // the cursor is the id of the last entry of a page, encoded so clients do not read anything into it
+    private String encodeCursor(Long id) {
+        byte[] idBytes = String.valueOf(id).getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(idBytes);
+    }
+
+    private long decodeCursor(String cursor) {
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new GenericApiCallException("Invalid cursor " + cursor, HttpStatus.BAD_REQUEST);
+        }
+    }
+
     private HashMap<String, String> response(String value) {
         HashMap<String, String> response = new HashMap<>();
         response.put("message", value);
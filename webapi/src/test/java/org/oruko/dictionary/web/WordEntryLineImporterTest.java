@@ -0,0 +1,103 @@
+package org.oruko.dictionary.web;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.oruko.dictionary.model.WordEntry;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.persistence.EntityManager;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests {@link WordEntryLineImporter}
+ *
+ * @author Dadepo Aderemi.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class WordEntryLineImporterTest {
+
+    @Mock
+    WordEntryService entryService;
+
+    @Mock
+    EntityManager entityManager;
+
+    private WordEntryLineImporter lineImporter;
+    private List<List<BatchReport.Row>> results = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        lineImporter = new WordEntryLineImporter(entryService);
+        ReflectionTestUtils.setField(lineImporter, "entityManager", entityManager);
+        when(entryService.bulkInsertTakingCareOfDuplicates(anyListOf(WordEntry.class))).thenAnswer(invocation -> {
+            @SuppressWarnings("unchecked")
+            List<WordEntry> entries = (List<WordEntry>) invocation.getArguments()[0];
+            BatchReport report = new BatchReport();
+            for (int i = 0; i < entries.size(); i++) {
+                if (entries.get(i).getWord().equals("existing")) {
+                    report.reject(i, "existing", "Given word already exists in the index");
+                } else {
+                    report.accept(i, entries.get(i).getWord());
+                }
+            }
+            return report;
+        });
+    }
+
+    @Test
+    public void test_reports_each_line_in_order() throws Exception {
+        String lines = "{\"word\":\"ade\"}\n"
+                + "not json\n"
+                + "\n"
+                + "{\"word\":\"\"}\n"
+                + "{\"word\":\"existing\"}\n";
+
+        lineImporter.importLines(new StringReader(lines), results::add);
+
+        assertEquals(1, results.size());
+        List<BatchReport.Row> rows = results.get(0);
+        assertEquals(4, rows.size());
+        assertEquals(BatchReport.Status.ACCEPTED, rows.get(0).getStatus());
+        assertEquals(1, rows.get(0).getIndex());
+        assertEquals(BatchReport.Status.REJECTED, rows.get(1).getStatus());
+        assertEquals(2, rows.get(1).getIndex());
+        assertNull(rows.get(1).getWord());
+        assertEquals(BatchReport.Status.REJECTED, rows.get(2).getStatus());
+        assertEquals(4, rows.get(2).getIndex());
+        assertEquals("Given word already exists in the index", rows.get(3).getReason());
+        assertEquals(5, rows.get(3).getIndex());
+    }
+
+    @Test
+    public void test_entries_are_inserted_in_bounded_batches() throws Exception {
+        int count = WordEntryLineImporter.BATCH_SIZE * 2 + 1;
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            lines.append("{\"word\":\"word").append(i).append("\"}\n");
+        }
+
+        lineImporter.importLines(new StringReader(lines.toString()), results::add);
+
+        assertEquals(3, results.size());
+        assertEquals(count, results.stream().mapToInt(List::size).sum());
+        assertEquals(count, results.stream()
+                                   .flatMap(List::stream)
+                                   .map(BatchReport.Row::getIndex)
+                                   .collect(Collectors.toSet()).size());
+        verify(entryService, times(3)).bulkInsertTakingCareOfDuplicates(anyListOf(WordEntry.class));
+        verify(entityManager, times(3)).clear();
+    }
+}
@@ -4,13 +4,30 @@ import org.junit.*;
 import org.junit.runner.RunWith;
 import org.mockito.*;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.oruko.dictionary.model.State;
 import org.oruko.dictionary.model.WordEntry;
 import org.oruko.dictionary.model.exception.RepositoryAccessError;
 import org.oruko.dictionary.model.repository.WordEntryRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.util.ReflectionTestUtils;
 
-import java.util.Collections;
+import javax.persistence.EntityManager;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.*;
 
@@ -47,30 +64,68 @@ public class WordEntryServiceTest {
     @Test(expected = RepositoryAccessError.class)
     public void testInsertTakingCareOfDuplicates_with_duplicates_and_name_not_in_variant() throws Exception {
         String testName = "Ajani";
-        WordEntry wordEntryMock = mock(WordEntry.class);
-        when(wordEntryMock.getVariants()).thenReturn(null);
         when(wordEntry.getWord()).thenReturn(testName);
-        when(wordEntryRepository.findAll()).thenReturn(Collections.singletonList(wordEntryMock));
+        when(wordEntryRepository.countByVariantWord(testName)).thenReturn(0L);
         when(wordEntryRepository.findByWord(testName)).thenReturn(wordEntry);
         wordEntryService.insertTakingCareOfDuplicates(wordEntry);
-
-        verify(wordEntryRepository).findAll();
-        verify(wordEntryRepository).findByWord(testName);
-        verifyZeroInteractions(wordEntryRepository);
     }
 
-    @Test(expected = RepositoryAccessError.class)
-    public void testInsertTakingCareOfDuplicates_with_duplicates_and_name_already_in_variant() throws Exception {
+    @Test
+    public void testInsertTakingCareOfDuplicates_with_name_already_in_variant() throws Exception {
         String testName = "Ajani";
-        WordEntry wordEntryMock = mock(WordEntry.class);
         when(wordEntry.getWord()).thenReturn(testName);
-        when(wordEntryRepository.findAll()).thenReturn(Collections.singletonList(wordEntryMock));
-        when(wordEntryRepository.findByWord(testName)).thenReturn(wordEntry);
-        wordEntryService.insertTakingCareOfDuplicates(wordEntry);
+        when(wordEntryRepository.countByVariantWord(testName)).thenReturn(1L);
+        try {
+            wordEntryService.insertTakingCareOfDuplicates(wordEntry);
+            fail("Word present as a variant should not be inserted");
+        } catch (RepositoryAccessError e) {
+            verify(wordEntryRepository, never()).findAll();
+            verify(wordEntryRepository, never()).save(wordEntry);
+        }
+    }
 
-        verifyZeroInteractions(wordEntryRepository);
+    @Test
+    public void testBulkInsertTakingCareOfDuplicates_rejects_existing_and_repeated_words() throws Exception {
+        List<WordEntry> entries = Arrays.asList(new WordEntry("Ajani"), new WordEntry("Bọ́lá"),
+                                                new WordEntry("Adé"), new WordEntry("Àjàní"), new WordEntry("Ṣadé"));
+        // the database matches words regardless of accents
+        when(wordEntryRepository.findWordsByWordIn(anyCollectionOf(String.class)))
+                .thenReturn(Collections.singletonList("bola"));
+        when(wordEntryRepository.findVariantWordsByVariantWordIn(anyCollectionOf(String.class)))
+                .thenReturn(Collections.singletonList("Adé"));
+
+        BatchReport report = wordEntryService.bulkInsertTakingCareOfDuplicates(entries);
+
+        assertEquals(2, report.getAccepted());
+        assertEquals(3, report.getRejected());
+        List<BatchReport.Status> statuses = report.getRows().stream()
+                                                  .map(BatchReport.Row::getStatus)
+                                                  .collect(Collectors.toList());
+        assertEquals(Arrays.asList(BatchReport.Status.ACCEPTED, BatchReport.Status.REJECTED,
+                                   BatchReport.Status.REJECTED, BatchReport.Status.REJECTED,
+                                   BatchReport.Status.ACCEPTED), statuses);
+        verify(wordEntryRepository).save(Arrays.asList(entries.get(0), entries.get(4)));
+        verify(wordEntryRepository, never()).findByWord(anyString());
+        verify(wordEntryRepository, never()).countByVariantWord(anyString());
     }
 
+    @Test
+    public void testBulkInsertTakingCareOfDuplicates_rejects_the_words_of_a_batch_that_fails() throws Exception {
+        ReflectionTestUtils.setField(wordEntryService, "BATCH_SIZE", 2);
+        List<WordEntry> entries = Arrays.asList(new WordEntry("Ajani"), new WordEntry("Bọ́lá"),
+                                                new WordEntry("Adé"), new WordEntry("Ṣadé"));
+        doThrow(new DataIntegrityViolationException("duplicate key"))
+                .when(wordEntryRepository).save(Arrays.asList(entries.get(0), entries.get(1)));
+
+        BatchReport report = wordEntryService.bulkInsertTakingCareOfDuplicates(entries);
+
+        assertEquals(2, report.getAccepted());
+        assertEquals(Arrays.asList(BatchReport.Status.REJECTED, BatchReport.Status.REJECTED,
+                                   BatchReport.Status.ACCEPTED, BatchReport.Status.ACCEPTED),
+                     report.getRows().stream().map(BatchReport.Row::getStatus).collect(Collectors.toList()));
+        assertEquals("Given word could not be saved: duplicate key", report.getRows().get(0).getReason());
+        verify(wordEntryRepository).save(Arrays.asList(entries.get(2), entries.get(3)));
+    }
 
     @Test
     public void testSave() throws Exception {
@@ -88,6 +143,85 @@ public class WordEntryServiceTest {
         verify(oldEntry).update(wordEntry);
     }
 
+    @Test
+    public void testBulkUpdateWords_loads_all_words_at_once() throws Exception {
+        WordEntry oldAjani = new WordEntry("Ajani");
+        oldAjani.setDefinitions(new ArrayList<>());
+        WordEntry newAjani = new WordEntry("Ajani");
+        newAjani.setMeaning("One who wins after a struggle");
+        newAjani.setDefinitions(new ArrayList<>());
+        when(wordEntryRepository.findByWordIn(anyCollectionOf(String.class)))
+                .thenReturn(Collections.singletonList(oldAjani));
+
+        BatchReport report = wordEntryService.bulkUpdateWords(Arrays.asList(newAjani, new WordEntry("Bọ́lá")));
+
+        assertEquals(1, report.getAccepted());
+        assertEquals(BatchReport.Status.REJECTED, report.getRows().get(1).getStatus());
+        assertEquals("One who wins after a struggle", oldAjani.getMeaning());
+        verify(wordEntryRepository).save(Collections.singletonList(oldAjani));
+        verify(wordEntryRepository, never()).findByWord(anyString());
+    }
+
+    @Test
+    public void testBatchDeleteWordEntryAndDuplicates_deletes_all_words_at_once() throws Exception {
+        List<WordEntry> found = Collections.singletonList(new WordEntry("Ajani"));
+        when(wordEntryRepository.findByWordIn(anyCollectionOf(String.class))).thenReturn(found);
+
+        List<String> deleted = wordEntryService.batchDeleteWordEntryAndDuplicates(Arrays.asList("Ajani", "Bọ́lá"));
+
+        assertEquals(Collections.singletonList("Ajani"), deleted);
+        verify(wordEntryRepository).delete(found);
+        verify(wordEntryRepository, never()).findByWord(anyString());
+    }
+
+    @Test
+    public void testLoadByState_defaults_to_the_first_page() throws Exception {
+        wordEntryService.loadByState(Optional.of(State.NEW), Optional.empty(), Optional.empty());
+
+        verify(wordEntryRepository).findByState(State.NEW, new PageRequest(0, 50, Sort.Direction.ASC, "id"));
+    }
+
+    @Test
+    public void testLoadByStateAfter_pages_from_the_given_id() throws Exception {
+        wordEntryService.loadByStateAfter(Optional.of(State.NEW), 42L, Optional.of(10));
+
+        verify(wordEntryRepository).findByStateAndIdGreaterThan(State.NEW, 42L,
+                                                                 new PageRequest(0, 10, Sort.Direction.ASC, "id"));
+    }
+
+    @Test
+    public void testLoadBySubmitter_filters_on_the_submitted_by_key() throws Exception {
+        wordEntryService.loadBySubmitter(Optional.of(State.NEW), " Ade ", Optional.of(2), Optional.of(10));
+
+        verify(wordEntryRepository).findBySubmittedByKeyAndState("ade", State.NEW,
+                                                                 new PageRequest(1, 10, Sort.Direction.ASC, "id"));
+    }
+
+    @Test
+    public void testLoadBySubmitterAfter_pages_from_the_given_id() throws Exception {
+        wordEntryService.loadBySubmitterAfter(Optional.empty(), "Ade", 42L, Optional.of(10));
+
+        verify(wordEntryRepository).findBySubmittedByKeyAndIdGreaterThan("ade", 42L,
+                                                                         new PageRequest(0, 10, Sort.Direction.ASC,
+                                                                                         "id"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testExportWords_detaches_the_entries_a_batch_at_a_time() throws Exception {
+        EntityManager entityManager = mock(EntityManager.class);
+        ReflectionTestUtils.setField(wordEntryService, "entityManager", entityManager);
+        when(wordEntryRepository.streamByState(State.PUBLISHED))
+                .thenReturn(IntStream.range(0, 120).mapToObj(i -> new WordEntry("word" + i)));
+        Consumer<WordEntry> consumer = mock(Consumer.class);
+
+        wordEntryService.exportWords(Optional.of(State.PUBLISHED), consumer);
+
+        verify(consumer, times(120)).accept(any(WordEntry.class));
+        verify(entityManager, times(3)).clear();
+        verify(wordEntryRepository, never()).streamAll();
+    }
+
     @Test
     public void testFindAll() throws Exception {
         //TODO
@@ -38,4 +38,23 @@ public class WordEntryTest {
         assertEquals("submittedBy1", wordEntry.getSubmittedBy());
         assertEquals(tonalMark, wordEntry.getTonalMark());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testFoldedWordFollowsWord() throws Exception {
+        WordEntry wordEntry = new WordEntry("Bọ́lánlé");
+        assertEquals("bolanle", wordEntry.getFoldedWord());
+
+        WordEntry newEntry = new WordEntry("Adéwálé");
+        wordEntry.update(newEntry);
+
+        assertEquals("adewale", wordEntry.getFoldedWord());
+    }
+
+    @Test
+    public void testSubmittedByKeyIgnoresCaseAndSurroundingSpaces() throws Exception {
+        assertEquals("ade bola", WordEntry.submittedByKey("  Ade Bola "));
+        assertEquals(WordEntry.SUBMITTED_BY_KEY_LENGTH, WordEntry.submittedByKey(new String(new char[300])
+                                                                                     .replace('\0', 'a')).length());
+        assertNull(WordEntry.submittedByKey(null));
+    }
+}
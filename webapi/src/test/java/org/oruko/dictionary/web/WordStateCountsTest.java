@@ -0,0 +1,55 @@
+package org.oruko.dictionary.web;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.oruko.dictionary.model.State;
+import org.oruko.dictionary.model.repository.WordEntryRepository;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests {@link WordStateCounts}
+ *
+ * @author Dadepo Aderemi.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class WordStateCountsTest {
+
+    @Mock
+    WordEntryRepository wordEntryRepository;
+
+    @Before
+    public void setUp() {
+        when(wordEntryRepository.countGroupedByState()).thenReturn(Arrays.asList(
+                new Object[]{State.NEW, 3L}, new Object[]{State.PUBLISHED, 2L}, new Object[]{null, 1L}))
+                .thenReturn(Collections.singletonList(new Object[]{State.NEW, 4L}));
+    }
+
+    @Test
+    public void test_counts_are_loaded_once_per_time_to_live_with_a_grouped_query() {
+        WordStateCounts wordStateCounts = new WordStateCounts(wordEntryRepository, 60);
+
+        assertEquals(3, wordStateCounts.count(State.NEW));
+        assertEquals(0, wordStateCounts.count(State.MODIFIED));
+        assertEquals(6, wordStateCounts.total());
+        verify(wordEntryRepository, times(1)).countGroupedByState();
+    }
+
+    @Test
+    public void test_counts_are_loaded_again_once_expired() {
+        WordStateCounts wordStateCounts = new WordStateCounts(wordEntryRepository, 0);
+
+        assertEquals(3, wordStateCounts.count(State.NEW));
+        assertEquals(4, wordStateCounts.count(State.NEW));
+        assertEquals(4, wordStateCounts.total());
+    }
+}
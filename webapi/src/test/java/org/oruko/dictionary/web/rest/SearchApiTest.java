@@ -7,14 +7,31 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.oruko.dictionary.events.EventPubService;
+import org.oruko.dictionary.model.WordEntry;
+import org.oruko.dictionary.search.api.IndexOperationStatus;
 import org.oruko.dictionary.search.api.SearchService;
+import org.oruko.dictionary.web.WordEntryService;
+import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.function.Consumer;
+
+import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
@@ -36,6 +53,9 @@ public class SearchApiTest extends AbstractApiTest {
     @Mock
     EventPubService eventPubService;
 
+    @Mock
+    WordEntryService wordEntryService;
+
     @Before
     public void setUp() {
         mockMvc = MockMvcBuilders.standaloneSetup(searchApi).setHandlerExceptionResolvers(createExceptionResolver()).build();
@@ -74,6 +94,42 @@ public class SearchApiTest extends AbstractApiTest {
         verifyZeroInteractions(searchService);
     }
 
+    @Test
+    public void test_alphabet_listing_is_paged_when_a_page_is_asked_for() throws Exception {
+        mockMvc.perform(get("/v1/search/alphabet/b?page=2&count=10"))
+               .andExpect(status().isOk());
+        verify(searchService).listByAlphabet("b", 2, 10);
+        verify(searchService, never()).listByAlphabet("b");
+    }
+
+    @Test
+    public void test_alphabet_count() throws Exception {
+        when(searchService.countByAlphabet("gb")).thenReturn(12);
+        mockMvc.perform(get("/v1/search/alphabet/gb/count"))
+               .andExpect(jsonPath("$.count", is(12)))
+               .andExpect(status().isOk());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_alphabet_stream_writes_a_line_per_name() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<WordEntry> consumer = (Consumer<WordEntry>) invocation.getArguments()[1];
+            consumer.accept(new WordEntry("Bọ́lá"));
+            consumer.accept(new WordEntry("Bọ́lánlé"));
+            return null;
+        }).when(searchService).streamByAlphabet(eq("b"), any());
+
+        String[] lines = mockMvc.perform(get("/v1/search/alphabet/b/stream"))
+                                .andExpect(status().isOk())
+                                .andExpect(content().contentType("application/x-ndjson;charset=UTF-8"))
+                                .andReturn().getResponse().getContentAsString().split("\n");
+
+        assertEquals(2, lines.length);
+        assertThat(lines[0], containsString("\"word\":\"Bọ́lá\""));
+        assertThat(lines[1], containsString("\"word\":\"Bọ́lánlé\""));
+    }
+
     @Test
     public void testFindByName_NameNotFound() throws Exception {
         when(searchService.getByWord("searchTerm")).thenReturn(null);
@@ -82,4 +138,19 @@ public class SearchApiTest extends AbstractApiTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    public void testBatchDeleteFromIndex_EntriesInAnyStateAreRemoved() throws Exception {
+        when(wordEntryService.loadExistingWords(Arrays.asList("adewale", "missing")))
+                .thenReturn(Collections.singletonList("Adéwálé"));
+        when(searchService.bulkRemoveWordsFromIndex(Collections.singletonList("Adéwálé")))
+                .thenReturn(new IndexOperationStatus(true, "removed"));
+
+        mockMvc.perform(delete("/v1/search/indexes/batch")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("[\"adewale\", \"missing\"]"))
+               .andExpect(status().isCreated())
+               .andExpect(jsonPath("$.message", containsString("missing")));
+
+        verify(searchService, never()).bulkRemoveByNameFromIndex(anyListOf(String.class));
+    }
 }
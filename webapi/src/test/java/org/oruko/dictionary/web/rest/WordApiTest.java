@@ -10,22 +10,30 @@ import org.junit.runner.RunWith;
 import org.mockito.*;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.oruko.dictionary.events.EventPubService;
-import org.oruko.dictionary.importer.ImportStatus;
-import org.oruko.dictionary.importer.ImporterInterface;
+import org.oruko.dictionary.importer.ImportJob;
+import org.oruko.dictionary.importer.ImportJobs;
 import org.oruko.dictionary.model.WordEntry;
 import org.oruko.dictionary.model.State;
+import org.oruko.dictionary.web.BatchReport;
+import org.oruko.dictionary.web.WordEntryLineImporter;
 import org.oruko.dictionary.web.WordEntryService;
+import org.oruko.dictionary.web.WordStateCounts;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.io.Reader;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
 
 import static org.hamcrest.CoreMatchers.*;
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -50,11 +58,17 @@ public class WordApiTest extends AbstractApiTest {
     private WordEntryService entryService;
 
     @Mock
-    private ImporterInterface importerInterface;
+    private ImportJobs importJobs;
 
     @Mock
     private EventPubService eventPubService;
 
+    @Mock
+    private WordStateCounts wordStateCounts;
+
+    @Mock
+    private WordEntryLineImporter lineImporter;
+
     MockMvc mockMvc;
     WordEntry testWordEntry;
     WordEntry anotherTestWordEntry;
@@ -93,14 +107,24 @@ public class WordApiTest extends AbstractApiTest {
     @Test
     public void test_get_all_words_filtered_by_is_submitted_by() throws Exception {
         testWordEntry.setSubmittedBy("test");
-        WordEntry secondEntry = new WordEntry("secondEntry");
-        secondEntry.setSubmittedBy("Not Available");
-        when(entryService.loadByState(eq(Optional.empty()), any(), any())).thenReturn(Arrays.asList(testWordEntry, secondEntry));
+        when(entryService.loadBySubmitter(eq(Optional.empty()), eq(" Test "), any(), any()))
+                .thenReturn(Collections.singletonList(testWordEntry));
 
-        mockMvc.perform(get("/v1/words?submittedBy=test"))
+        mockMvc.perform(get("/v1/words").param("submittedBy", " Test "))
                .andExpect(jsonPath("$", hasSize(1)))
                .andExpect(jsonPath("$[0].word", is("test-entry")))
                .andExpect(status().isOk());
+
+        verify(entryService, never()).loadByState(any(), any(), any());
+    }
+
+    @Test
+    public void test_get_all_words_filtered_by_is_submitted_by_and_state_after_a_cursor() throws Exception {
+        // NDI is the cursor of the entry with id 42
+        mockMvc.perform(get("/v1/words?submittedBy=test&state=NEW&cursor=NDI"))
+               .andExpect(status().isOk());
+
+        verify(entryService).loadBySubmitterAfter(Optional.of(State.NEW), "test", 42L, Optional.empty());
     }
 
     @Test
@@ -119,9 +143,78 @@ public class WordApiTest extends AbstractApiTest {
     }
 
 
+    @Test
+    public void test_get_words_after_a_cursor() throws Exception {
+        ReflectionTestUtils.setField(testWordEntry, "id", 42L);
+        when(entryService.loadByState(eq(Optional.of(State.NEW)), any(), eq(Optional.of(1))))
+                .thenReturn(Collections.singletonList(testWordEntry));
+
+        String cursor = mockMvc.perform(get("/v1/words?state=NEW&count=1"))
+                               .andExpect(status().isOk())
+                               .andReturn().getResponse().getHeader(WordApi.NEXT_CURSOR_HEADER);
+
+        mockMvc.perform(get("/v1/words?state=NEW&count=1&cursor=" + cursor))
+               .andExpect(status().isOk());
+        verify(entryService).loadByStateAfter(Optional.of(State.NEW), 42L, Optional.of(1));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_export_words_as_ndjson() throws Exception {
+        anotherTestWordEntry.setWord("secondword");
+        doAnswer(invocation -> {
+            Consumer<WordEntry> consumer = (Consumer<WordEntry>) invocation.getArguments()[1];
+            consumer.accept(testWordEntry);
+            consumer.accept(anotherTestWordEntry);
+            return null;
+        }).when(entryService).exportWords(eq(Optional.empty()), any(Consumer.class));
+
+        String body = mockMvc.perform(get("/v1/words/export"))
+                             .andExpect(status().isOk())
+                             .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertThat(lines.length, is(2));
+        assertThat(lines[0], containsString("\"word\":\"test-entry\""));
+        assertThat(lines[1], containsString("\"word\":\"secondword\""));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_add_words_as_ndjson_streams_a_result_per_line() throws Exception {
+        BatchReport report = new BatchReport();
+        report.accept(1, "first");
+        report.reject(2, "second", "Given word already exists in the index");
+        doAnswer(invocation -> {
+            ((Consumer<List<BatchReport.Row>>) invocation.getArguments()[1]).accept(report.getRows());
+            return null;
+        }).when(lineImporter).importLines(any(Reader.class), any(Consumer.class));
+
+        String body = mockMvc.perform(post("/v1/words/batch")
+                                              .content("{\"word\":\"first\"}\n{\"word\":\"second\"}\n")
+                                              .contentType("application/x-ndjson"))
+                             .andExpect(status().isOk())
+                             .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertThat(lines.length, is(2));
+        assertThat(lines[0], containsString("\"status\":\"ACCEPTED\""));
+        assertThat(lines[1], containsString("\"index\":2"));
+        assertThat(lines[1], containsString("\"status\":\"REJECTED\""));
+        verify(entryService, never()).bulkInsertTakingCareOfDuplicates(any());
+    }
+
+    @Test
+    public void test_get_words_with_invalid_cursor() throws Exception {
+        mockMvc.perform(get("/v1/words?cursor=not-a-cursor"))
+               .andExpect(status().isBadRequest());
+
+        verifyZeroInteractions(entryService);
+    }
+
     @Test
     public void test_get_a_word() throws Exception {
-        when(entryService.loadWord("test-entry")).thenReturn(testWordEntry);
+        when(entryService.loadWordWithDefinitions("test-entry")).thenReturn(testWordEntry);
         mockMvc.perform(get("/v1/words/test-entry"))
                .andExpect(jsonPath("$.word", is("test-entry")))
                .andExpect(status().isOk());
@@ -140,26 +233,10 @@ public class WordApiTest extends AbstractApiTest {
 
     @Test
     public void test_get_word_count() throws Exception {
-        // Entries with NEW state
-        WordEntry wordEntry_new_1 = mock(WordEntry.class);
-        when(wordEntry_new_1.getState()).thenReturn(State.NEW);
-        WordEntry wordEntry_new_2 = mock(WordEntry.class);
-        when(wordEntry_new_2.getState()).thenReturn(State.NEW);
-        WordEntry wordEntry_new_3 = mock(WordEntry.class);
-        when(wordEntry_new_3.getState()).thenReturn(State.NEW);
-        // Entries with modified state
-        WordEntry wordEntry_modified_1 = mock(WordEntry.class);
-        when(wordEntry_modified_1.getState()).thenReturn(State.MODIFIED);
-        WordEntry wordEntry_modified_2 = mock(WordEntry.class);
-        when(wordEntry_modified_2.getState()).thenReturn(State.MODIFIED);
-        // Entries with Published State
-        WordEntry wordEntry_published_2 = mock(WordEntry.class);
-        when(wordEntry_published_2.getState()).thenReturn(State.PUBLISHED);
-
-        when(entryService.loadAllWords()).thenReturn(Arrays.asList(wordEntry_new_1, wordEntry_new_2, wordEntry_new_3,
-                wordEntry_modified_1, wordEntry_modified_2,
-                wordEntry_published_2));
-
+        when(wordStateCounts.total()).thenReturn(6L);
+        when(wordStateCounts.count(State.NEW)).thenReturn(3L);
+        when(wordStateCounts.count(State.MODIFIED)).thenReturn(2L);
+        when(wordStateCounts.count(State.PUBLISHED)).thenReturn(1L);
 
         mockMvc.perform(get("/v1/words/meta"))
                .andExpect(jsonPath("$.totalWords", is(6)))
@@ -173,7 +250,7 @@ public class WordApiTest extends AbstractApiTest {
 
     @Test
     public void test_get_a_word_not_found_in_db() throws Exception {
-        when(entryService.loadWord("test")).thenReturn(null);
+        when(entryService.loadWordWithDefinitions("test")).thenReturn(null);
 
         mockMvc.perform(get("/v1/words/test"))
                .andExpect(status().isBadRequest());
@@ -287,14 +364,42 @@ public class WordApiTest extends AbstractApiTest {
     @Test
     public void test_uploading_vai_spreadsheet() throws Exception {
 
-        ImportStatus importStatus = mock(ImportStatus.class);
-        when(importStatus.hasErrors()).thenReturn(false);
-        when(importerInterface.importFile(any())).thenReturn(importStatus);
+        ImportJob job = new ImportJob(2);
+        when(importJobs.submit(any())).thenReturn(job);
         MockMultipartFile spreadsheet = new MockMultipartFile("wordFiles", "filename.xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", "some spreadsheet".getBytes());
         mockMvc.perform(MockMvcRequestBuilders.fileUpload("/v1/words/upload").file(spreadsheet))
                .andExpect(status().isAccepted())
-               .andExpect(jsonPath("$.message", IsNot.not(nullValue())));
+               .andExpect(jsonPath("$.message", IsNot.not(nullValue())))
+               .andExpect(jsonPath("$.jobId", is(job.getId())));
+
+    }
+
+    @Test
+    public void test_uploading_when_too_many_uploads_are_in_progress() throws Exception {
+        when(importJobs.submit(any())).thenThrow(new RejectedExecutionException("Too many imports in progress"));
+        MockMultipartFile spreadsheet = new MockMultipartFile("wordFiles", "filename.xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", "some spreadsheet".getBytes());
+        mockMvc.perform(MockMvcRequestBuilders.fileUpload("/v1/words/upload").file(spreadsheet))
+               .andExpect(status().isServiceUnavailable());
+    }
 
+    @Test
+    public void test_upload_progress_is_reported_per_job() throws Exception {
+        ImportJob uploading = new ImportJob(1);
+        ImportJob done = new ImportJob(0);
+        when(importJobs.get(uploading.getId())).thenReturn(uploading);
+        when(importJobs.getAll()).thenReturn(Arrays.asList(uploading, done));
+
+        mockMvc.perform(get("/v1/words/uploading?job=" + uploading.getId()))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.id", is(uploading.getId())))
+               .andExpect(jsonPath("$.state", is("QUEUED")))
+               .andExpect(jsonPath("$.uploading", is(true)));
+        mockMvc.perform(get("/v1/words/uploading?job=unknown"))
+               .andExpect(status().isNotFound());
+        mockMvc.perform(get("/v1/words/uploading?q=progress"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.uploading", is(true)))
+               .andExpect(jsonPath("$.jobs", hasSize(2)));
     }
 
     @Test
@@ -302,16 +407,43 @@ public class WordApiTest extends AbstractApiTest {
         WordEntry[] wordEntries = new WordEntry[2];
         wordEntries[0] = new WordEntry("test");
         wordEntries[1] = new WordEntry("anothertest");
+        BatchReport report = new BatchReport();
+        report.accept(0, "test");
+        report.reject(1, "anothertest", "Given word already exists in the index");
+        when(entryService.bulkInsertTakingCareOfDuplicates(anyListOf(WordEntry.class))).thenReturn(report);
         String requestJson = new ObjectMapper().writeValueAsString(wordEntries);
         mockMvc.perform(post("/v1/words/batch")
                                 .contentType(MediaType.parseMediaType("application/json; charset=UTF-8"))
                                 .content(requestJson))
                .andExpect(status().isCreated())
-               .andExpect(jsonPath("$.message", IsNot.not(nullValue())));
+               .andExpect(jsonPath("$.message", IsNot.not(nullValue())))
+               .andExpect(jsonPath("$.accepted", is(1)))
+               .andExpect(jsonPath("$.rows[1].status", is("REJECTED")))
+               .andExpect(jsonPath("$.rows[1].reason", IsNot.not(nullValue())));
 
         verify(entryService, times(1)).bulkInsertTakingCareOfDuplicates(anyListOf(WordEntry.class));
     }
 
+    @Test
+    public void test_batch_update() throws Exception {
+        WordEntry[] wordEntries = new WordEntry[2];
+        wordEntries[0] = new WordEntry("test");
+        wordEntries[1] = new WordEntry("anothertest");
+        BatchReport report = new BatchReport();
+        report.accept(0, "test");
+        report.reject(1, "anothertest", "Given word was not found in the database");
+        when(entryService.bulkUpdateWords(anyListOf(WordEntry.class))).thenReturn(report);
+        String requestJson = new ObjectMapper().writeValueAsString(wordEntries);
+        mockMvc.perform(put("/v1/words/batch")
+                                .contentType(MediaType.parseMediaType("application/json; charset=UTF-8"))
+                                .content(requestJson))
+               .andExpect(status().isCreated())
+               .andExpect(jsonPath("$.rejected", is(1)))
+               .andExpect(jsonPath("$.rows[1].word", is("anothertest")));
+
+        verify(entryService, never()).loadWord(anyString());
+    }
+
     @Test
     public void test_batch_upload_with_faulty_request() throws Exception {
         WordEntry[] wordEntries = new WordEntry[0];
@@ -335,16 +467,30 @@ public class WordApiTest extends AbstractApiTest {
     }
 
 
+    @Test
+    public void test_batch_deleting_words() throws Exception {
+        when(entryService.batchDeleteWordEntryAndDuplicates(anyListOf(String.class)))
+                .thenReturn(Collections.singletonList("test"));
+        mockMvc.perform(delete("/v1/words/batch")
+                                .contentType(MediaType.parseMediaType("application/json; charset=UTF-8"))
+                                .content("[\"test\", \"anothertest\"]"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.message", containsString("anothertest not deleted")));
+
+        verify(entryService, never()).loadWord(anyString());
+        verify(eventPubService, times(1)).publish(anyVararg());
+    }
+
     @Test
     public void test_get_words_with_feedback() throws Exception {
-        when(entryService.loadWord("test")).thenReturn(testWordEntry);
+        when(entryService.loadWordWithDefinitions("test")).thenReturn(testWordEntry);
         mockMvc.perform(get("/v1/words/{word}?feedback=true", "test"))
                .andExpect(status().isOk()).andExpect(jsonPath("$.feedback", notNullValue()));
     }
 
     @Test
     public void test_get_words_without_feedback() throws Exception {
-        when(entryService.loadWord("test")).thenReturn(testWordEntry);
+        when(entryService.loadWordWithDefinitions("test")).thenReturn(testWordEntry);
         mockMvc.perform(get("/v1/words/{word}?feedback=false", "test"))
                .andExpect(status().isOk()).andExpect(jsonPath("$.feedback").doesNotExist());
     }
@@ -50,6 +50,17 @@ public class ApiService {
         return Arrays.asList(restTemplate.getForObject(APIPATH + "/search/alphabet/" + alphabet, Map[].class));
     }
 
+    public List<Map<String, Object>> getWordsByAlphabet(String alphabet, int page, int count) {
+        return Arrays.asList(restTemplate.getForObject(APIPATH + "/search/alphabet/" + alphabet
+                                                               + "?page=" + page + "&count=" + count, Map[].class));
+    }
+
+    public Integer getWordCountByAlphabet(String alphabet) {
+        final Map<String, Integer> countMap = restTemplate.getForObject(APIPATH + "/search/alphabet/" + alphabet
+                                                                                + "/count", Map.class);
+        return countMap.get("count");
+    }
+
     public Integer getIndexedNameCount() {
         final Map<String, Integer> countMap = restTemplate.getForObject(APIPATH + "/search/meta", Map.class);
         return countMap.get("totalPublishedNames");
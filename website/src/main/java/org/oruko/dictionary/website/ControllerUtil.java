@@ -1,7 +1,8 @@
 package org.oruko.dictionary.website;
 
+import org.oruko.dictionary.model.YorubaAlphabet;
+
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -12,11 +13,6 @@ import java.util.List;
 public class ControllerUtil {
 
     public static List<String> getYorubaAlphabets() {
-        final List<String> alphabets = new ArrayList<>(Arrays.asList("abdefghijklmnoprstuwy".split("")));
-        alphabets.add(4, "ẹ");
-        alphabets.add(7, "gb");
-        alphabets.add(16, "ọ");
-        alphabets.add(20, "ṣ");
-        return alphabets;
+        return new ArrayList<>(YorubaAlphabet.LETTERS);
     }
 }
@@ -1,8 +1,8 @@
 package org.oruko.dictionary.website;
 
-import org.apache.commons.lang3.StringUtils;
 import org.oruko.dictionary.model.GeoLocation;
 import org.oruko.dictionary.model.WordEntry;
+import org.oruko.dictionary.model.WordFolding;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Controller;
@@ -16,9 +16,9 @@ import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 /**
  * Controller for the search result pages
@@ -28,6 +28,8 @@ import java.util.Map;
 @Controller
 public class SearchResultController {
 
+    private static final int ALPHABET_PAGE_SIZE = 200;
+
     private ApiService apiService;
 
     @Autowired
@@ -107,23 +109,33 @@ public class SearchResultController {
     }
 
 
+    /**
+     * Lists the words under a letter of the alphabet, a page at a time. The backend knows which words are
+     * listed under which letter, i.e. words starting with gb are not listed under g
+     *
+     * @param alphabet the letter
+     * @param pageParam the page, starting from 1
+     * @param map model the model
+     * @return returns the view name
+     */
     @RequestMapping("/alphabets/{alphabet}")
-    public String alphabeticListing(@PathVariable String alphabet, Model map) {
-        if (alphabet.length() > 2) { //gb
-            //TODO ideally you should only list names by an alphabet
-        }
-
+    public String alphabeticListing(@PathVariable String alphabet,
+                                    @RequestParam("page") Optional<Integer> pageParam,
+                                    Model map) {
         map.addAttribute("title", "Names listed alphabetically");
-        final ArrayList<Map<String, Object>> allWordsByAlphabet = new ArrayList<>(apiService.getAllWordsByAlphabet(alphabet));
 
-        // Remove words starting with 'gb' when the search letter is 'g'
-        if ("g".equals(alphabet)) {
-            allWordsByAlphabet.removeIf(name -> ((String) name.get("name")).toLowerCase().startsWith("gb"));
-        }
+        final int count = apiService.getWordCountByAlphabet(alphabet);
+        final int pages = Math.max((count + ALPHABET_PAGE_SIZE - 1) / ALPHABET_PAGE_SIZE, 1);
+        final int page = Math.min(Math.max(pageParam.orElse(1), 1), pages);
 
-        // TODO cant believe I can't do this from within handlebars. Revisit!
-        map.addAttribute("count", allWordsByAlphabet.size());
-        map.addAttribute("words", allWordsByAlphabet);
+        map.addAttribute("count", count);
+        map.addAttribute("words", apiService.getWordsByAlphabet(alphabet, page, ALPHABET_PAGE_SIZE));
+        if (page > 1) {
+            map.addAttribute("previousPage", page - 1);
+        }
+        if (page < pages) {
+            map.addAttribute("nextPage", page + 1);
+        }
         map.addAttribute("showAlphabet", true);
         map.addAttribute("letter", alphabet);
         return "namesbyalphabet";
@@ -143,6 +155,6 @@ public class SearchResultController {
     }
 
     private Boolean isEqualWithoutAccent(String firstName, String secondName) {
-        return StringUtils.stripAccents(firstName).equalsIgnoreCase(StringUtils.stripAccents(secondName));
+        return WordFolding.fold(firstName).equals(WordFolding.fold(secondName));
     }
 }